@@ -53,6 +53,7 @@ struct is_error_code_enum<rstudio::r::session::graphics::errc::errc_t>
 
 
 #include <string>
+#include <utility>
 #include <vector>
 
 #include <boost/function.hpp>
@@ -101,6 +102,10 @@ struct DisplayState
    int height;
    int activePlotIndex;
    int plotCount;
+
+   // images of plots near the active plot which are already rendered at
+   // the current size (plot index, image filename)
+   std::vector<std::pair<int, std::string> > neighborImages;
 };
 
 extern const char * const kPngFormat;
@@ -204,6 +204,15 @@ std::string Plot::imageFilename() const
    return imageFilePath(storageUuid()).filename();
 }
 
+// does our image file reflect the plot at the current graphics device size?
+bool Plot::hasCurrentImage() const
+{
+   return hasStorage() &&
+          !needsUpdate_ &&
+          (renderedSize() == graphicsDevice_.displaySize()) &&
+          imageFilePath(storageUuid()).exists();
+}
+
 Error Plot::renderToDisplay()
 {
    Error error = graphicsDevice_.restoreSnapshot(snapshotFilePath());
@@ -68,6 +68,7 @@ public:
    core::Error renderFromDisplay();
    core::Error renderFromDisplaySnapshot(SEXP snapshot);
    std::string imageFilename() const;
+   bool hasCurrentImage() const;
    
    core::Error renderToDisplay();
    
@@ -51,6 +51,10 @@ double pixelsToInches(int pixels)
    return (double)pixels / 96.0;
 }
 
+// number of plots on either side of the active plot whose images are
+// offered to the client for prefetching
+const int kNeighborImageCount = 2;
+
 } // anonymous namespace
 
 const char * const kPngFormat = "png";
@@ -507,6 +511,25 @@ void PlotManager::render(boost::function<void(DisplayState)> outputFunction)
                              r::session::graphics::device::getHeight(),
                              activePlotIndex(), 
                              plotCount());
+
+   // let the client prefetch the images of nearby plots which won't need
+   // to be re-rendered when they become active
+   if (hasPlot())
+   {
+      for (int index = activePlot_ - kNeighborImageCount;
+           index <= activePlot_ + kNeighborImageCount;
+           index++)
+      {
+         if (index != activePlot_ &&
+             isValidPlotIndex(index) &&
+             plots_[index]->hasCurrentImage())
+         {
+            currentState.neighborImages.push_back(
+                  std::make_pair(index, plots_[index]->imageFilename()));
+         }
+      }
+   }
+
    outputFunction(currentState);
 }
    
@@ -20,6 +20,7 @@
 #include <map>
 
 #include <boost/regex.hpp>
+#include <boost/weak_ptr.hpp>
 
 #include <boost/date_time/posix_time/posix_time.hpp>
 
@@ -156,6 +157,74 @@ void handleProxyResponse(
    ptrConnection->writeResponse(response);
 }
 
+bool isEventStreamRequest(const http::Request& request)
+{
+   return boost::algorithm::ends_with(request.uri(), "events/stream_events");
+}
+
+bool isEventStreamResponse(const http::Response& response)
+{
+   return response.statusCode() == http::status::Ok &&
+          boost::algorithm::starts_with(response.contentType(),
+                                        "application/x-ndjson");
+}
+
+// the session writes event streams as events occur, so rather than waiting
+// for the whole response we respond as soon as the headers arrive and then
+// relay the rest of the stream to the browser as-is (other responses, e.g.
+// errors, are read and forwarded as usual)
+class EventStreamAsyncClient : public http::LocalStreamAsyncClient
+{
+public:
+   EventStreamAsyncClient(boost::asio::io_service& ioService,
+                          const FilePath& localStreamPath,
+                          UidType validateUid)
+      : http::LocalStreamAsyncClient(ioService,
+                                     localStreamPath,
+                                     false,
+                                     validateUid)
+   {
+   }
+
+private:
+   virtual bool stopReadingAndRespond()
+   {
+      return isEventStreamResponse(response_);
+   }
+
+   virtual bool keepConnectionAlive()
+   {
+      return isEventStreamResponse(response_);
+   }
+};
+
+void handleEventStreamResponse(
+      boost::shared_ptr<core::http::AsyncConnection> ptrConnection,
+      const r_util::SessionContext& context,
+      boost::weak_ptr<EventStreamAsyncClient> weakClient,
+      const http::Response& response)
+{
+   boost::shared_ptr<EventStreamAsyncClient> ptrClient = weakClient.lock();
+   if (!ptrClient || !isEventStreamResponse(response))
+   {
+      handleProxyResponse(ptrConnection, context, response);
+      return;
+   }
+
+   // if there was a launch pending then remove it
+   sessionManager().removePendingLaunch(context);
+
+   // write the headers (and whatever part of the stream arrived with them)
+   // without closing the connection
+   ptrConnection->writeResponse(response, false);
+
+   // relay the rest of the stream (the proxy closes both connections when
+   // either end does)
+   http::SocketProxy::create(
+            boost::static_pointer_cast<http::Socket>(ptrConnection),
+            boost::static_pointer_cast<http::Socket>(ptrClient));
+}
+
 class LocalhostAsyncClient : public http::TcpIpAsyncClient
 {
 public:
@@ -517,9 +586,34 @@ void proxyRequest(
       return;
    }
 
-   // create client
-   boost::shared_ptr<http::LocalStreamAsyncClient> pClient(
-    new http::LocalStreamAsyncClient(ptrConnection->ioService(), streamPath, false, uid));
+   // create client (event streams are relayed as they arrive). note that
+   // the stream response handler only holds a weak reference to its client
+   // to avoid a reference cycle through the client's handler
+   boost::shared_ptr<http::LocalStreamAsyncClient> pClient;
+   http::ResponseHandler responseHandler;
+   if (isEventStreamRequest(ptrConnection->request()))
+   {
+      boost::shared_ptr<EventStreamAsyncClient> pStreamClient(
+       new EventStreamAsyncClient(ptrConnection->ioService(), streamPath, uid));
+      responseHandler = boost::bind(handleEventStreamResponse,
+                                    ptrConnection,
+                                    context,
+                                    boost::weak_ptr<EventStreamAsyncClient>(
+                                                               pStreamClient),
+                                    _1);
+      pClient = pStreamClient;
+   }
+   else
+   {
+      pClient.reset(new http::LocalStreamAsyncClient(ptrConnection->ioService(),
+                                                     streamPath,
+                                                     false,
+                                                     uid));
+      responseHandler = boost::bind(handleProxyResponse,
+                                    ptrConnection,
+                                    context,
+                                    _1);
+   }
 
    // setup retry context
    if (!connectionRetryProfile.empty())
@@ -533,9 +627,7 @@ void proxyRequest(
       s_proxyRequestFilter(&(pClient->request()));
 
    // execute
-   pClient->execute(
-         boost::bind(handleProxyResponse, ptrConnection, context, _1),
-         errorHandler);
+   pClient->execute(responseHandler, errorHandler);
 }
 
 // function used to periodically validate that the user is valid (has an
@@ -29,11 +29,13 @@
 
 
 #include <core/http/Request.hpp>
+#include <core/http/Response.hpp>
 
 #include <session/SessionOptions.hpp>
 #include <session/SessionHttpConnectionListener.hpp>
 
 #include "SessionClientEventQueue.hpp"
+#include "http/SessionHttpConnectionUtils.hpp"
 
 using namespace rstudio::core;
 
@@ -44,6 +46,10 @@ namespace {
 
 const int kLastChanceWaitSeconds = 4;
 
+// idle event streams are sent a keep-alive this often
+const boost::posix_time::time_duration kKeepAliveInterval =
+                                          boost::posix_time::seconds(15);
+
 bool hasEventIdLessThanOrEqualTo(const json::Value& event, int targetId)
 {
    const json::Object& eventJSON = event.get_obj();
@@ -184,6 +190,151 @@ void ClientEventService::setClientEventResult(
    END_LOCK_MUTEX
 }
 
+void ClientEventService::copyClientEvents(std::size_t offset,
+                                          core::json::Array* pEvents)
+{
+   LOCK_MUTEX(mutex_)
+   {
+      if (offset < clientEvents_.size())
+         pEvents->assign(clientEvents_.begin() + offset, clientEvents_.end());
+   }
+   END_LOCK_MUTEX
+}
+
+void ClientEventService::dequeClientEvents(int* pNextEventId)
+{
+   // deque the events
+   std::vector<ClientEvent> events;
+   clientEventQueue().remove(&events);
+
+   // convert to json and add event id
+   for (std::vector<ClientEvent>::const_iterator
+        it = events.begin(); it != events.end(); ++it)
+   {
+      json::Object event ;
+      it->asJsonObject((*pNextEventId)++, &event);
+      addClientEvent(event);
+   }
+}
+
+bool ClientEventService::waitForClientEvents(
+                  bool haveEvents,
+                  const boost::posix_time::time_duration& maxWait,
+                  const boost::posix_time::time_duration& batchDelay,
+                  const boost::posix_time::time_duration& maxTotalBatchDelay)
+{
+   ClientEventQueue& clientEventQueue = session::clientEventQueue();
+
+   // wait for the specified maximum time
+   if (haveEvents || clientEventQueue.hasEvents() ||
+       clientEventQueue.waitForEvent(maxWait))
+   {
+      // ...got at least one event
+
+      // wait for additional events that occur in rapid succession
+      // but don't wait for more than the specified maximum seconds
+      boost::system_time maxBatchDelayTime =
+                     boost::get_system_time() + maxTotalBatchDelay;
+
+      while ( clientEventQueue.waitForEvent(batchDelay) &&
+              (boost::get_system_time() < maxBatchDelayTime) )
+      {
+      }
+
+      return true;
+   }
+
+   return false;
+}
+
+// holds an events/stream_events connection open and writes each batch of
+// events to it as a line of json (an array of events) as soon as it is
+// available. events stay in clientEvents_ until the client confirms them
+// by passing its last seen event id when it opens the next stream, so a
+// dropped stream loses nothing. returns true if we were interrupted
+bool ClientEventService::streamEvents(
+                  boost::shared_ptr<HttpConnection> ptrConnection,
+                  const std::string& streamClientId,
+                  const boost::posix_time::time_duration& maxDuration,
+                  const boost::posix_time::time_duration& batchDelay,
+                  const boost::posix_time::time_duration& maxTotalBatchDelay,
+                  int* pNextEventId)
+{
+   using namespace boost::posix_time;
+
+   // send the headers and an initial keep-alive right away; the client
+   // uses the latter to verify that nothing between us is buffering
+   // the response
+   core::http::Response response;
+   response.setContentType("application/x-ndjson");
+   response.setNoCacheHeaders();
+   if (!ptrConnection->sendResponseHeaders(response) ||
+       !ptrConnection->sendResponseBody("\n"))
+   {
+      return false;
+   }
+
+   // the stream is ended after maxDuration (the client opens a new one,
+   // which also lets us discard the events it has confirmed)
+   boost::system_time streamEndTime = boost::get_system_time() + maxDuration;
+
+   bool interrupted = false;
+   std::size_t sentCount = 0;
+   while (true)
+   {
+      time_duration remaining = streamEndTime - boost::get_system_time();
+      if (remaining.is_negative())
+         remaining = time_duration();
+
+      // wait for events (the first pass immediately sends any events
+      // the client hasn't confirmed yet)
+      bool haveEvents = false;
+      try
+      {
+         haveEvents = waitForClientEvents(
+                           sentCount == 0 && havePendingClientEvents(),
+                           std::min(remaining, kKeepAliveInterval),
+                           batchDelay,
+                           maxTotalBatchDelay);
+      }
+      catch(const boost::thread_interrupted& e)
+      {
+         // still send what we have (e.g. the quit event)
+         interrupted = true;
+         haveEvents = true;
+      }
+
+      // write the new events, or a blank line as a keep-alive
+      std::string frame = "\n";
+      if (haveEvents)
+      {
+         dequeClientEvents(pNextEventId);
+         json::Array events;
+         copyClientEvents(sentCount, &events);
+         if (!events.empty())
+         {
+            sentCount += events.size();
+            frame = json::write(events) + "\n";
+         }
+      }
+
+      if (!ptrConnection->sendResponseBody(frame))
+         break;
+
+      // stop if we've been interrupted, another client has taken over
+      // or the stream has run its course
+      if (interrupted ||
+          streamClientId != clientId() ||
+          boost::get_system_time() >= streamEndTime)
+      {
+         break;
+      }
+   }
+
+   ptrConnection->close();
+   return interrupted;
+}
+
 
 void ClientEventService::run()
 {
@@ -285,25 +436,31 @@ void ClientEventService::run()
          // would never see any events!)
          nextEventId = std::max(nextEventId, lastClientEventIdSeen + 1);
 
+         // event streams stay open, sending events as they arrive
+         if (connection::isStreamEvents(ptrConnection))
+         {
+            // (if we are stopping just send what we have and end it)
+            time_duration maxStreamDuration = stopServer ? time_duration()
+                                                         : maxRequestSec;
+            if (streamEvents(ptrConnection,
+                             request.clientId,
+                             maxStreamDuration,
+                             batchDelay,
+                             maxTotalBatchDelay,
+                             &nextEventId))
+            {
+               stopServer = true;
+            }
+            continue;
+         }
+
          // check for events (and wait a specified internal if there are none)
          try
          {
-            // wait for the specified maximum time
-            if (havePendingClientEvents() || clientEventQueue.hasEvents() ||
-                clientEventQueue.waitForEvent(maxRequestSec))
-            {
-               // ...got at least one event
-               
-               // wait for additional events that occur in rapid succession 
-               // but don't wait for more than the specified maximum seconds
-               boost::system_time maxBatchDelayTime = 
-                              boost::get_system_time() + maxTotalBatchDelay;
-               
-               while ( clientEventQueue.waitForEvent(batchDelay) &&
-                       (boost::get_system_time() < maxBatchDelayTime) )
-               {
-               }
-           }
+            waitForClientEvents(havePendingClientEvents(),
+                                maxRequestSec,
+                                batchDelay,
+                                maxTotalBatchDelay);
          }
          catch(const boost::thread_interrupted& e)
          {
@@ -322,17 +479,7 @@ void ClientEventService::run()
          if (request.clientId == clientId())
          {
             // deque the events
-            std::vector<ClientEvent> events;
-            clientEventQueue.remove(&events);
-            
-            // convert to json and add event id
-            for (std::vector<ClientEvent>::const_iterator 
-                 it = events.begin(); it != events.end(); ++it)
-            {
-               json::Object event ;
-               it->asJsonObject(nextEventId++, &event);
-               addClientEvent(event);
-            }
+            dequeClientEvents(&nextEventId);
 
             // send them (pass false for kEventsPending b/c responses from the
             // event service shouldn't interact with automatic event service
@@ -19,6 +19,8 @@
 #include <string>
 
 #include <boost/utility.hpp>
+#include <boost/shared_ptr.hpp>
+#include <boost/date_time/posix_time/posix_time.hpp>
 
 #include <core/BoostThread.hpp>
 
@@ -34,6 +36,8 @@ namespace core {
 namespace rstudio {
 namespace session {
 
+class HttpConnection;
+
 // singleton
 class ClientEventService;
 ClientEventService& clientEventService();
@@ -62,6 +66,22 @@ private:
    bool havePendingClientEvents();
    void addClientEvent(const core::json::Object& eventObject);
    void setClientEventResult(core::json::JsonRpcResponse* pResponse);
+   void copyClientEvents(std::size_t offset, core::json::Array* pEvents);
+   void dequeClientEvents(int* pNextEventId);
+
+   bool waitForClientEvents(
+                  bool haveEvents,
+                  const boost::posix_time::time_duration& maxWait,
+                  const boost::posix_time::time_duration& batchDelay,
+                  const boost::posix_time::time_duration& maxTotalBatchDelay);
+
+   bool streamEvents(
+                  boost::shared_ptr<HttpConnection> ptrConnection,
+                  const std::string& streamClientId,
+                  const boost::posix_time::time_duration& maxDuration,
+                  const boost::posix_time::time_duration& batchDelay,
+                  const boost::posix_time::time_duration& maxTotalBatchDelay,
+                  int* pNextEventId);
 
   
 private:
@@ -245,6 +245,7 @@ const char * const kHandleUnsavedChangesCompleted = "handle_unsaved_changes_comp
 const char * const kQuitSession = "quit_session" ;   
 const char * const kSuspendSession = "suspend_session";
 const char * const kInterrupt = "interrupt";
+const char * const kRpcBatch = "batch";
 
 // convenience function for disallowing suspend (note still doesn't override
 // the presence of s_forceSuspend = 1)
@@ -693,6 +694,14 @@ void handleClientInit(const boost::function<void()>& initFunction,
 
    sessionInfo["connections_enabled"] = modules::connections::connectionsEnabled();
 
+   sessionInfo["rpc_batch_supported"] = true;
+
+   // events can be streamed through the server's proxy; the desktop
+   // network layer only delivers responses once they are complete so
+   // desktop clients keep polling (which is cheap locally anyway)
+   sessionInfo["event_stream_supported"] =
+                  options.programMode() == kSessionProgramModeServer;
+
    std::string sessionId = module_context::activeSession().id();
    if (sessionId.empty())
    {
@@ -787,10 +796,137 @@ void endHandleRpcRequestIndirect(
    module_context::enqueClientEvent(evt);
 }
 
+// state of an rpc/batch request: the responses of the batched requests and
+// the number of them (plus the batch itself) which are still executing
+struct RpcBatch
+{
+   RpcBatch(std::size_t count,
+            boost::shared_ptr<HttpConnection> ptrConnection,
+            boost::posix_time::ptime executeStartTime)
+      : responses(count),
+        pending(count + 1),
+        ptrConnection(ptrConnection),
+        executeStartTime(executeStartTime)
+   {
+   }
+
+   std::vector<json::JsonRpcResponse> responses;
+   std::size_t pending;
+   boost::shared_ptr<HttpConnection> ptrConnection;
+   boost::posix_time::ptime executeStartTime;
+};
+
+void endRpcBatchPart(boost::shared_ptr<RpcBatch> pBatch)
+{
+   if (--pBatch->pending > 0)
+      return;
+
+   // the result of the batch is the raw response of each request, in order
+   json::Array results;
+   bool hasAfterResponse = false;
+   bool detectChangesAfterCall = false;
+   BOOST_FOREACH(json::JsonRpcResponse& response, pBatch->responses)
+   {
+      results.push_back(response.getRawResponse());
+      hasAfterResponse = hasAfterResponse || response.hasAfterResponse();
+      detectChangesAfterCall = detectChangesAfterCall ||
+                               !response.suppressDetectChanges();
+   }
+
+   if (detectChangesAfterCall)
+      detectChanges(module_context::ChangeSourceRPC);
+
+   json::JsonRpcResponse batchResponse;
+   batchResponse.setResult(results);
+   if (!clientEventQueue().eventAddedSince(pBatch->executeStartTime) &&
+       !hasAfterResponse)
+   {
+      batchResponse.setField(kEventsPending, "false");
+   }
+   pBatch->ptrConnection->sendJsonRpcResponse(batchResponse);
+
+   if (hasAfterResponse)
+   {
+      BOOST_FOREACH(json::JsonRpcResponse& response, pBatch->responses)
+      {
+         if (response.hasAfterResponse())
+            response.runAfterResponse();
+      }
+      if (detectChangesAfterCall)
+         detectChanges(module_context::ChangeSourceRPC);
+   }
+}
+
+void endHandleRpcBatchRequest(boost::shared_ptr<RpcBatch> pBatch,
+                              std::size_t index,
+                              const core::Error& executeError,
+                              json::JsonRpcResponse* pJsonRpcResponse)
+{
+   if (executeError)
+      pBatch->responses[index].setError(executeError);
+   else if (pJsonRpcResponse)
+      pBatch->responses[index] = *pJsonRpcResponse;
+
+   endRpcBatchPart(pBatch);
+}
+
+// executes each of the requests in a batch (in order) and responds with
+// all of their responses once they've completed. only methods which return
+// their result directly can be batched.
+void handleRpcBatchRequest(const core::json::JsonRpcRequest& request,
+                           boost::shared_ptr<HttpConnection> ptrConnection)
+{
+   using namespace boost::posix_time;
+   boost::shared_ptr<RpcBatch> pBatch(new RpcBatch(
+         request.params.size(),
+         ptrConnection,
+         microsec_clock::universal_time()));
+
+   for (std::size_t i = 0; i < request.params.size(); i++)
+   {
+      const json::Value& value = request.params[i];
+
+      json::JsonRpcRequest batchedRequest;
+      Error error = value.type() == json::ObjectType ?
+               json::parseJsonRpcRequest(json::write(value), &batchedRequest) :
+               Error(json::errc::InvalidRequest, ERROR_LOCATION);
+      if (error)
+      {
+         LOG_ERROR(error);
+         endHandleRpcBatchRequest(pBatch, i, error, NULL);
+         continue;
+      }
+      batchedRequest.isBackgroundConnection = request.isBackgroundConnection;
+
+      json::JsonRpcAsyncMethods::const_iterator it =
+                               s_jsonRpcMethods.find(batchedRequest.method);
+      if (it == s_jsonRpcMethods.end() || !it->second.first)
+      {
+         Error executeError(json::errc::MethodNotFound, ERROR_LOCATION);
+         executeError.addProperty("method", batchedRequest.method);
+         LOG_ERROR(executeError);
+         endHandleRpcBatchRequest(pBatch, i, executeError, NULL);
+         continue;
+      }
+
+      json::JsonRpcAsyncFunction handlerFunction = it->second.second;
+      handlerFunction(batchedRequest,
+                      boost::bind(endHandleRpcBatchRequest, pBatch, i, _1, _2));
+   }
+
+   endRpcBatchPart(pBatch);
+}
+
 void handleRpcRequest(const core::json::JsonRpcRequest& request,
                       boost::shared_ptr<HttpConnection> ptrConnection,
                       ConnectionType connectionType)
 {
+   if (request.method == kRpcBatch)
+   {
+      handleRpcBatchRequest(request, ptrConnection);
+      return;
+   }
+
    // record the time just prior to execution of the event
    // (so we can determine if any events were added during execution)
    using namespace boost::posix_time; 
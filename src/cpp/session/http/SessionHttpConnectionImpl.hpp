@@ -107,6 +107,18 @@ public:
       CATCH_UNEXPECTED_EXCEPTION
    }
 
+   virtual bool sendResponseHeaders(const core::http::Response& response)
+   {
+      return write(response.toBuffers(core::http::Header::connectionClose()));
+   }
+
+   virtual bool sendResponseBody(const std::string& body)
+   {
+      std::vector<boost::asio::const_buffer> buffers;
+      buffers.push_back(boost::asio::buffer(body));
+      return write(buffers);
+   }
+
    // close (occurs automatically after writeResponse, here in case it
    // need to be closed in other circumstances
    virtual void close()
@@ -213,6 +225,29 @@ private:
       CATCH_UNEXPECTED_EXCEPTION
    }
 
+   // write part of a streaming response (the connection is left open)
+   bool write(const std::vector<boost::asio::const_buffer>& buffers)
+   {
+      try
+      {
+         boost::asio::write(socket_, buffers);
+         return true;
+      }
+      catch(const boost::system::system_error& e)
+      {
+         // establish error
+         core::Error error = core::Error(e.code(), ERROR_LOCATION);
+         error.addProperty("request-uri", request_.uri());
+
+         // log the error if it wasn't connection terminated
+         if (!core::http::isConnectionTerminatedError(error))
+            LOG_ERROR(error);
+      }
+      CATCH_UNEXPECTED_EXCEPTION
+
+      return false;
+   }
+
 private:
    typename ProtocolType::socket socket_;
    boost::array<char, 8192> buffer_ ;
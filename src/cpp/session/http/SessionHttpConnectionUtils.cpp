@@ -91,6 +91,12 @@ bool isGetEvents(boost::shared_ptr<HttpConnection> ptrConnection)
                                       "events/get_events");
 }
 
+bool isStreamEvents(boost::shared_ptr<HttpConnection> ptrConnection)
+{
+   return boost::algorithm::ends_with(ptrConnection->request().uri(),
+                                      "events/stream_events");
+}
+
 void handleAbortNextProjParam(
                boost::shared_ptr<HttpConnection> ptrConnection)
 {
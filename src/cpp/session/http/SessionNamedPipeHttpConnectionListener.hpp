@@ -155,37 +155,19 @@ public:
 
    virtual void sendResponse(const core::http::Response &response)
    {
-      // get the buffers
-      std::vector<boost::asio::const_buffer> buffers =response.toBuffers(
-                                        core::http::Header::connectionClose());
-
-      // write them
-      DWORD bytesWritten;
-      for (std::size_t i=0; i<buffers.size(); i++)
-      {
-         DWORD bytesToWrite = boost::asio::buffer_size(buffers[i]);
-         BOOL success = ::WriteFile(
-                  hPipe_,
-                  boost::asio::buffer_cast<const unsigned char*>(buffers[i]),
-                  bytesToWrite,
-                  &bytesWritten,
-                  NULL);
-
-         if (!success || (bytesWritten != bytesToWrite))
-         {
-            // establish error
-            Error error = systemError(::GetLastError(), ERROR_LOCATION);
-            error.addProperty("request-uri", request_.uri());
+      write(response.toBuffers(core::http::Header::connectionClose()));
+   }
 
-            // log the error if it wasn't connection terminated
-            if (!core::http::isConnectionTerminatedError(error))
-               LOG_ERROR(error);
+   virtual bool sendResponseHeaders(const core::http::Response& response)
+   {
+      return write(response.toBuffers(core::http::Header::connectionClose()));
+   }
 
-            // close and terminate
-            close();
-            break;
-         }
-      }
+   virtual bool sendResponseBody(const std::string& body)
+   {
+      std::vector<boost::asio::const_buffer> buffers;
+      buffers.push_back(boost::asio::buffer(body));
+      return write(buffers);
    }
 
    // close (occurs automatically after writeResponse, here in case it
@@ -212,6 +194,37 @@ public:
 
 
 private:
+   bool write(const std::vector<boost::asio::const_buffer>& buffers)
+   {
+      DWORD bytesWritten;
+      for (std::size_t i=0; i<buffers.size(); i++)
+      {
+         DWORD bytesToWrite = boost::asio::buffer_size(buffers[i]);
+         BOOL success = ::WriteFile(
+                  hPipe_,
+                  boost::asio::buffer_cast<const unsigned char*>(buffers[i]),
+                  bytesToWrite,
+                  &bytesWritten,
+                  NULL);
+
+         if (!success || (bytesWritten != bytesToWrite))
+         {
+            // establish error
+            Error error = systemError(::GetLastError(), ERROR_LOCATION);
+            error.addProperty("request-uri", request_.uri());
+
+            // log the error if it wasn't connection terminated
+            if (!core::http::isConnectionTerminatedError(error))
+               LOG_ERROR(error);
+
+            // close and terminate
+            close();
+            return false;
+         }
+      }
+      return true;
+   }
+
    HANDLE hPipe_;
    core::http::Request request_;
    std::string requestId_;
@@ -366,7 +379,8 @@ private:
          return;
 
       // place the connection on the correct queue
-      if (connection::isGetEvents(ptrHttpConnection))
+      if (connection::isGetEvents(ptrHttpConnection) ||
+          connection::isStreamEvents(ptrHttpConnection))
          eventsConnectionQueue_.enqueConnection(ptrHttpConnection);
       else
          mainConnectionQueue_.enqueConnection(ptrHttpConnection);
@@ -67,6 +67,13 @@ public:
    void sendJsonRpcResponse(
                   const core::json::JsonRpcResponse& jsonRpcResponse);
 
+   // streaming responses: send the status line and headers (the response
+   // should have no content length) then write the body in pieces as it
+   // becomes available. the body ends when the connection is closed. both
+   // return false if the connection could not be written to
+   virtual bool sendResponseHeaders(const core::http::Response& response) = 0;
+   virtual bool sendResponseBody(const std::string& body) = 0;
+
 
    // close (occurs automatically after writeResponse, here in case it
    // need to be closed in other circumstances
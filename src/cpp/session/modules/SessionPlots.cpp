@@ -696,6 +696,15 @@ void enquePlotsChanged(const r::session::graphics::DisplayState& displayState,
    jsonPlotsState["activatePlots"] = activatePlots &&
                                      (displayState.plotCount > 0);
    jsonPlotsState["showManipulator"] = showManipulator;
+   json::Array jsonNeighbors;
+   for (std::size_t i = 0; i < displayState.neighborImages.size(); i++)
+   {
+      json::Object jsonNeighbor;
+      jsonNeighbor["index"] = displayState.neighborImages[i].first;
+      jsonNeighbor["filename"] = displayState.neighborImages[i].second;
+      jsonNeighbors.push_back(jsonNeighbor);
+   }
+   jsonPlotsState["neighbors"] = jsonNeighbors;
    ClientEvent plotsStateChangedEvent(client_events::kPlotsStateChanged, 
                                       jsonPlotsState);
       
@@ -18,6 +18,7 @@
 
 #include <string>
 #include <map>
+#include <vector>
 
 #include <boost/bind.hpp>
 #include <boost/foreach.hpp>
@@ -86,6 +87,35 @@ void writeDocToJson(boost::shared_ptr<SourceDocument> pDoc,
    (*pDocJson)["chunk_definitions"] = chunkDefs;
 }
 
+// documents whose contents can be left out of the session info; the client
+// fetches them (get_source_document) when the document's editor is created.
+// dirty documents always carry their contents so they can be saved without
+// a round trip, as do documents which aren't shown in a text editor
+bool canDeferContents(boost::shared_ptr<SourceDocument> pDoc)
+{
+   return !pDoc->path().empty() &&
+          !pDoc->dirty() &&
+          pDoc->collabServer().empty() &&
+          pDoc->type() != "r_dataframe" &&
+          pDoc->type() != "urlcontent" &&
+          pDoc->type() != "r_code_browser" &&
+          pDoc->type() != "r_prof";
+}
+
+// write only the document's metadata and content hash
+void writeDocMetadataToJson(boost::shared_ptr<SourceDocument> pDoc,
+                            core::json::Object* pDocJson)
+{
+   pDoc->writeToJson(pDocJson);
+   pDocJson->erase("contents");
+   pDocJson->erase("folds");
+   (*pDocJson)["contents_deferred"] = true;
+
+   (*pDocJson)["extended_type"] = module_context::events()
+                                   .onDetectSourceExtendedType(pDoc);
+   (*pDocJson)["chunk_definitions"] = json::Value();
+}
+
 void detectExtendedType(boost::shared_ptr<SourceDocument> pDoc)
 {
    // detect the extended type of the document by calling any registered
@@ -412,6 +442,64 @@ Error saveDocument(const json::JsonRpcRequest& request,
    return Success();
 }
 
+// reads the edits sent with save_document_diff: either a single
+// replacement, offset and length, or arrays of them to be applied in order
+// (each offset being relative to the contents produced by the edits before
+// it)
+Error readDocumentDiffs(const json::Value& jsonReplacement,
+                        const json::Value& jsonOffset,
+                        const json::Value& jsonLength,
+                        std::vector<std::string>* pReplacements,
+                        std::vector<int>* pOffsets,
+                        std::vector<int>* pLengths)
+{
+   if (!json::isType<json::Array>(jsonReplacement))
+   {
+      if (!json::isType<std::string>(jsonReplacement) ||
+          !json::isType<int>(jsonOffset) ||
+          !json::isType<int>(jsonLength))
+      {
+         return Error(json::errc::ParamTypeMismatch, ERROR_LOCATION);
+      }
+
+      pReplacements->push_back(jsonReplacement.get_str());
+      pOffsets->push_back(jsonOffset.get_int());
+      pLengths->push_back(jsonLength.get_int());
+      return Success();
+   }
+
+   if (!json::isType<json::Array>(jsonOffset) ||
+       !json::isType<json::Array>(jsonLength))
+   {
+      return Error(json::errc::ParamTypeMismatch, ERROR_LOCATION);
+   }
+
+   const json::Array& replacements = jsonReplacement.get_array();
+   const json::Array& offsets = jsonOffset.get_array();
+   const json::Array& lengths = jsonLength.get_array();
+   if (offsets.size() != replacements.size() ||
+       lengths.size() != replacements.size())
+   {
+      return Error(json::errc::ParamTypeMismatch, ERROR_LOCATION);
+   }
+
+   for (std::size_t i = 0; i < replacements.size(); i++)
+   {
+      if (!json::isType<std::string>(replacements[i]) ||
+          !json::isType<int>(offsets[i]) ||
+          !json::isType<int>(lengths[i]))
+      {
+         return Error(json::errc::ParamTypeMismatch, ERROR_LOCATION);
+      }
+
+      pReplacements->push_back(replacements[i].get_str());
+      pOffsets->push_back(offsets[i].get_int());
+      pLengths->push_back(lengths[i].get_int());
+   }
+
+   return Success();
+}
+
 Error saveDocumentDiff(const json::JsonRpcRequest& request,
                        json::JsonRpcResponse* pResponse)
 {
@@ -423,8 +511,8 @@ Error saveDocumentDiff(const json::JsonRpcRequest& request,
    
    // This is a chunk of text that should be inserted into the
    // current document. It replaces the subrange [offset, offset+length).
-   std::string replacement;
-   int offset, length;
+   // (Several chunks may be sent at once; see readDocumentDiffs.)
+   json::Value jsonReplacement, jsonOffset, jsonLength;
    
    // This is the expected hash of the current document. If the
    // current hash value is different than this value, then the
@@ -439,13 +527,20 @@ Error saveDocumentDiff(const json::JsonRpcRequest& request,
                                   &jsonEncoding,
                                   &jsonFoldSpec,
                                   &jsonChunkOutput,
-                                  &replacement,
-                                  &offset,
-                                  &length,
+                                  &jsonReplacement,
+                                  &jsonOffset,
+                                  &jsonLength,
                                   &hash);
    if (error)
       return error ;
    
+   std::vector<std::string> replacements;
+   std::vector<int> offsets, lengths;
+   error = readDocumentDiffs(jsonReplacement, jsonOffset, jsonLength,
+                             &replacements, &offsets, &lengths);
+   if (error)
+      return error;
+   
    // if this has no path then it is an autosave, in this case
    // suppress change detection
    bool hasPath = json::isType<std::string>(jsonPath);
@@ -463,20 +558,26 @@ Error saveDocumentDiff(const json::JsonRpcRequest& request,
    {
       std::string contents(pDoc->contents());
 
-      // Offset and length are specified in characters, but contents
-      // is in UTF8 bytes. Convert before using.
-      std::string::iterator rangeBegin = contents.begin();
-      error = utf8Advance(rangeBegin, offset, contents.end(), &rangeBegin);
-      if (error)
-         return Success(); // UTF8 decoding failed. Abort differential save.
+      for (std::size_t i = 0; i < replacements.size(); i++)
+      {
+         // Offset and length are specified in characters, but contents
+         // is in UTF8 bytes. Convert before using.
+         std::string::iterator rangeBegin = contents.begin();
+         error = utf8Advance(rangeBegin, offsets[i], contents.end(),
+                             &rangeBegin);
+         if (error)
+            return Success(); // UTF8 decoding failed. Abort differential save.
 
-      std::string::iterator rangeEnd = rangeBegin;
-      error = utf8Advance(rangeEnd, length, contents.end(), &rangeEnd);
-      if (error)
-         return Success(); // UTF8 decoding failed. Abort differential save.
+         std::string::iterator rangeEnd = rangeBegin;
+         error = utf8Advance(rangeEnd, lengths[i], contents.end(), &rangeEnd);
+         if (error)
+            return Success(); // UTF8 decoding failed. Abort differential save.
 
-      contents.erase(rangeBegin, rangeEnd);
-      contents.insert(rangeBegin, replacement.begin(), replacement.end());
+         contents.erase(rangeBegin, rangeEnd);
+         contents.insert(rangeBegin,
+                         replacements[i].begin(),
+                         replacements[i].end());
+      }
       
       error = saveDocumentCore(contents, jsonPath, jsonType, jsonEncoding,
                                jsonFoldSpec, jsonChunkOutput, pDoc);
@@ -1197,8 +1298,12 @@ Error clientInitDocuments(core::json::Array* pJsonDocs)
       if (error)
          LOG_ERROR(error);
 
+      // leave out the contents of documents the client can fetch on demand
       json::Object jsonDoc ;
-      writeDocToJson(pDoc, &jsonDoc);
+      if (canDeferContents(pDoc))
+         writeDocMetadataToJson(pDoc, &jsonDoc);
+      else
+         writeDocToJson(pDoc, &jsonDoc);
       pJsonDocs->push_back(jsonDoc);
 
       source_database::events().onDocUpdated(pDoc);
@@ -0,0 +1,97 @@
+/*
+ * DiagnosticCounters.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client;
+
+import java.util.ArrayList;
+
+import com.google.gwt.event.shared.HandlerRegistration;
+
+/**
+ * Counters kept by parts of the client about their own performance, shown
+ * by the request log visualization. Sources register under a group name
+ * and are only asked for their values when the counters are shown.
+ */
+public class DiagnosticCounters
+{
+   public interface Source
+   {
+      void collect(Collector collector);
+   }
+
+   public static class Collector
+   {
+      private Collector(String group, ArrayList<String[]> rows)
+      {
+         group_ = group;
+         rows_ = rows;
+      }
+
+      public void add(String name, long value)
+      {
+         add(name, value + "");
+      }
+
+      public void add(String name, String value)
+      {
+         rows_.add(new String[] {group_, name, value});
+      }
+
+      private final String group_;
+      private final ArrayList<String[]> rows_;
+   }
+
+   public static HandlerRegistration register(String group, Source source)
+   {
+      final Registration registration = new Registration(group, source);
+      registrations_.add(registration);
+      return new HandlerRegistration()
+      {
+         @Override
+         public void removeHandler()
+         {
+            registrations_.remove(registration);
+         }
+      };
+   }
+
+   /**
+    * Returns the current value of every counter as {group, name, value}.
+    */
+   public static ArrayList<String[]> collect()
+   {
+      ArrayList<String[]> rows = new ArrayList<String[]>();
+      for (Registration registration : registrations_)
+      {
+         registration.source_.collect(
+               new Collector(registration.group_, rows));
+      }
+      return rows;
+   }
+
+   private static class Registration
+   {
+      public Registration(String group, Source source)
+      {
+         group_ = group;
+         source_ = source;
+      }
+
+      private final String group_;
+      private final Source source_;
+   }
+
+   private static final ArrayList<Registration> registrations_ =
+                                             new ArrayList<Registration>();
+}
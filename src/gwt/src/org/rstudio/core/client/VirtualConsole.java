@@ -1,7 +1,7 @@
 /*
  * VirtualConsole.java
  *
- * Copyright (C) 2009-12 by RStudio, Inc.
+ * Copyright (C) 2009-16 by RStudio, Inc.
  *
  * Unless you have received this program directly from RStudio pursuant
  * to the terms of a commercial license agreement with RStudio, then
@@ -21,7 +21,6 @@ import org.rstudio.core.client.regex.Pattern;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
 
-import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.SpanElement;
@@ -31,27 +30,34 @@ import com.google.inject.Inject;
 /**
  * Simulates a console that behaves like the R console, specifically with
  * regard to \r (carriage return) and \b (backspace) characters.
+ *
+ * Output is stored line by line, with the classes applied to each line
+ * kept as runs rather than per character, so control characters only cost
+ * time proportional to the line they affect. When rendering into an
+ * element, each line gets its own node and only lines that changed since
+ * the last render are redrawn.
  */
 public class VirtualConsole
 {
    public VirtualConsole()
    {
       RStudioGinjector.INSTANCE.injectMembers(this);
+      formfeed();
    }
-   
+
    @Inject
    private void initialize(UIPrefs prefs)
    {
       prefs_ = prefs;
    }
-   
+
    public boolean submit(String data)
    {
       return submit(data, null);
    }
 
-   // Adds the given data to the console. Returns true if the data can be 
-   // processed as an append-only operation, false if characters were 
+   // Adds the given data to the console. Returns true if the data can be
+   // processed as an append-only operation, false if characters were
    // overwritten.
    public boolean submit(String data, String className)
    {
@@ -61,7 +67,16 @@ public class VirtualConsole
 
       if (CONTROL_SPECIAL.match(data, 0) == null)
       {
-         text(data, className);
+         // fast path: no control characters other than newlines
+         int tail = 0;
+         int newline;
+         while ((newline = data.indexOf('\n', tail)) != -1)
+         {
+            text(data.substring(tail, newline), className);
+            newline();
+            tail = newline + 1;
+         }
+         text(data.substring(tail), className);
          return true;
       }
 
@@ -83,7 +98,7 @@ public class VirtualConsole
                carriageReturn();
                // the sequence \r\n or \n\r can be represented in an append-only
                // way, so treat these cases as an append
-               appendOnly = 
+               appendOnly =
                      ((pos > 0 && data.charAt(pos - 1) == '\n') ||
                       (tail < data.length() && data.charAt(tail) == '\n'));
                break;
@@ -114,121 +129,110 @@ public class VirtualConsole
 
    private void backspace()
    {
-      if (pos_ == 0)
-         return;
-      o.deleteCharAt(--pos_);
+      Line line = lines_.get(line_);
+      if (pos_ > 0)
+      {
+         line.delete(--pos_);
+         invalidate(line_);
+      }
+      else if (line_ > 0)
+      {
+         // backing over the start of a line deletes the newline, joining
+         // this line onto the end of the previous one
+         Line previous = lines_.get(line_ - 1);
+         pos_ = previous.length();
+         previous.append(line);
+         line.detach();
+         lines_.remove(line_);
+         line_--;
+         invalidate(line_);
+      }
    }
 
    private void carriageReturn()
    {
-      if (pos_ == 0)
-         return;
-      while (pos_ > 0 && o.charAt(pos_ - 1) != '\n')
-         pos_--;
-      // Now we're either at the beginning of the buffer, or just past a '\n'
+      pos_ = 0;
    }
 
    private void newline()
    {
-      while (pos_ < o.length() && o.charAt(pos_) != '\n')
-         pos_++;
-      // Now we're either at the end of the buffer, or on top of a '\n'
-      text("\n", null);
+      // the line we're leaving now needs a trailing newline when rendered
+      invalidate(line_);
+
+      line_++;
+      pos_ = 0;
+      if (line_ == lines_.size())
+         lines_.add(new Line());
    }
 
    private void formfeed()
    {
-      o.setLength(0);
+      for (Line line : lines_)
+         line.detach();
+      lines_.clear();
+      lines_.add(new Line());
+      line_ = 0;
       pos_ = 0;
-      charClass.clear();
+
+      // anything previously rendered needs to go
+      renderedParent_ = null;
+      firstDirtyLine_ = 0;
    }
 
    private void text(String text, String className)
    {
       assert text.indexOf('\r') < 0 && text.indexOf('\b') < 0;
+      if (text.length() == 0)
+         return;
 
-      int endPos = pos_ + text.length();
-      
-      o.replace(pos_, endPos, text);
-      
-      // record the class of each character emitted
-      if (className != null) 
-      {
-         padCharClass(endPos);
-         for (int i = pos_; i < endPos; i++)
-         {
-            charClass.set(i, className);
-         }
-      }
+      lines_.get(line_).write(pos_, text, className);
+      pos_ += text.length();
+      invalidate(line_);
+   }
 
-      pos_ = endPos;
+   private void invalidate(int line)
+   {
+      firstDirtyLine_ = Math.min(firstDirtyLine_, line);
    }
-   
-   // ensures that the character class mapping buffer is at least 'len' 
-   // characters long (note that ensureCapacity just reallocs the underlying
-   // JavaScript array if necessary)
-   private void padCharClass(int len)
+
+   private int getMaxLineLength()
    {
-      int curSize = charClass.size();
-      if (curSize >= len)
-         return;
-      charClass.ensureCapacity(len);
-      for (int i = 0; i < (len - curSize); i++)
-         charClass.add(null);
+      return prefs_.truncateLongLinesInConsoleHistory().getGlobalValue();
    }
-   
+
    @Override
    public String toString()
    {
-      String output = o.toString();
-      
-      int maxLength = prefs_.truncateLongLinesInConsoleHistory().getGlobalValue();
-      if (maxLength == 0)
-         return output;
-      
-      JsArrayString splat = StringUtil.split(output, "\n");
-      for (int i = 0; i < splat.length(); i++)
+      int maxLength = getMaxLineLength();
+      StringBuilder output = new StringBuilder();
+      for (int i = 0; i < lines_.size(); i++)
       {
-         String string = splat.get(i);
-         String trimmed = StringUtil.trimRight(string);
-         if (trimmed.length() > maxLength)
-            splat.set(i, trimmed.substring(0, maxLength) + "... <truncated>");
-         else if (string.length() > maxLength)
-            splat.set(i, string.substring(0, maxLength));
+         if (i > 0)
+            output.append('\n');
+         output.append(lines_.get(i).getDisplayText(maxLength));
       }
-      
-      String joined = splat.join("\n");
-      return joined;
+      return output.toString();
    }
-   
+
    public int getLength()
    {
-      return o.length();
+      int length = lines_.size() - 1;
+      for (Line line : lines_)
+         length += line.length();
+      return length;
    }
-   
+
    public void submitAndRender(String data, String clazz, Element parent)
    {
-      if (!submit(data, clazz))
-      {
-         // output isn't append-only; redraw the whole thing
-         // (note that even this isn't technically necessary but control 
-         // characters are relatively infrequent and additional bookkeeping
-         // would be required to determine the invalidated range when 
-         // control characters are used)
-         redraw(parent);
-      }
-      else
-      {
-         // consolify just the data to be rendered
-         emitRange(consolify(data), clazz, parent);
-      }
+      submit(data, clazz);
+      render(parent);
    }
-   
+
    public void clear()
    {
       formfeed();
    }
-   
+
    public static String consolify(String text)
    {
       VirtualConsole console = new VirtualConsole();
@@ -236,7 +240,7 @@ public class VirtualConsole
       return console.toString();
    }
 
-   private void emitRange(String text, String clazz, Element parent)
+   private static void emitRange(String text, String clazz, Element parent)
    {
       if (StringUtil.isNullOrEmpty(text))
          return;
@@ -250,53 +254,224 @@ public class VirtualConsole
       }
       parent.appendChild(textNode);
    }
-   
+
    public void redraw(Element parent)
    {
-      // convert to a plain-text string
-      String plainText = toString();
-      int len = plainText.length();
-      String lastClass = null;
-      padCharClass(len);
-      
-      // clean existing content
-      parent.setInnerHTML("");
-      
-      // for performance reasons, we don't emit one character at a time;
-      // instead, we keep track of the string indices that correspond to
-      // contiguous runs of characters to emit into the stream
-      int accumulateBegin = 0;
-      int accumulateEnd = 0;
-
-      // iterate in lockstep over the plain-text string and character class
-      // assignment list; emit the appropriate tags when switching classes
-      for (int i = 0; i < len; i++)
+      renderedParent_ = null;
+      render(parent);
+   }
+
+   // brings the rendered representation of the console in the given
+   // element up to date, redrawing only lines changed since the last render
+   private void render(Element parent)
+   {
+      int maxLength = getMaxLineLength();
+      if (parent != renderedParent_ || maxLength != renderedMaxLength_)
       {
-         if (!charClass.get(i).equals(lastClass))
+         for (Line line : lines_)
+            line.detach();
+         parent.setInnerHTML("");
+         renderedParent_ = parent;
+         renderedMaxLength_ = maxLength;
+         firstDirtyLine_ = 0;
+      }
+
+      for (int i = firstDirtyLine_; i < lines_.size(); i++)
+      {
+         lines_.get(i).render(parent,
+                              maxLength,
+                              i < lines_.size() - 1);
+      }
+      firstDirtyLine_ = lines_.size();
+   }
+
+   // a run of characters within a line sharing a class
+   private static class ClassRun
+   {
+      public ClassRun(int start, int end, String className)
+      {
+         this.start = start;
+         this.end = end;
+         this.className = className;
+      }
+
+      public int start;
+      public int end;
+      public final String className;
+   }
+
+   private static class Line
+   {
+      public int length()
+      {
+         return text_.length();
+      }
+
+      // writes text at the given position, overwriting any existing
+      // characters (and their classes)
+      public void write(int pos, String text, String className)
+      {
+         int end = pos + text.length();
+         text_.replace(pos, Math.min(end, text_.length()), text);
+
+         // carve out the range from any runs which overlap it
+         ArrayList<ClassRun> runs = new ArrayList<ClassRun>();
+         for (ClassRun run : runs_)
          {
-            emitRange(
-                  plainText.substring(accumulateBegin, accumulateEnd),
-                  lastClass, parent);
-            
-            // begin accumulating from the emitted point
-            accumulateBegin = accumulateEnd;
+            if (run.end <= pos || run.start >= end)
+            {
+               runs.add(run);
+               continue;
+            }
+            if (run.start < pos)
+               runs.add(new ClassRun(run.start, pos, run.className));
+            if (run.end > end)
+               runs.add(new ClassRun(end, run.end, run.className));
          }
-         lastClass = charClass.get(i);
-         accumulateEnd = i;
+
+         if (className != null)
+         {
+            // insert the new run in order, merging with its neighbors
+            int index = 0;
+            while (index < runs.size() && runs.get(index).start < pos)
+               index++;
+
+            ClassRun run = new ClassRun(pos, end, className);
+            if (index > 0)
+            {
+               ClassRun previous = runs.get(index - 1);
+               if (previous.end == pos &&
+                   previous.className.equals(className))
+               {
+                  run.start = previous.start;
+                  runs.remove(--index);
+               }
+            }
+            if (index < runs.size())
+            {
+               ClassRun next = runs.get(index);
+               if (next.start == end && next.className.equals(className))
+               {
+                  run.end = next.end;
+                  runs.remove(index);
+               }
+            }
+            runs.add(index, run);
+         }
+
+         runs_ = runs;
+         displayText_ = null;
       }
 
-      // finishing up--emit accumulated text into stream
-      emitRange(
-            plainText.substring(accumulateBegin),
-            lastClass, parent);
-      return;
+      public void delete(int pos)
+      {
+         text_.deleteCharAt(pos);
+
+         ArrayList<ClassRun> runs = new ArrayList<ClassRun>();
+         for (ClassRun run : runs_)
+         {
+            if (run.start > pos)
+               run.start--;
+            if (run.end > pos)
+               run.end--;
+            if (run.end > run.start)
+               runs.add(run);
+         }
+         runs_ = runs;
+         displayText_ = null;
+      }
+
+      public void append(Line other)
+      {
+         int offset = text_.length();
+         text_.append(other.text_);
+         for (ClassRun run : other.runs_)
+         {
+            runs_.add(new ClassRun(run.start + offset,
+                                   run.end + offset,
+                                   run.className));
+         }
+         displayText_ = null;
+      }
+
+      // the text of the line, truncated if it exceeds the maximum length
+      public String getDisplayText(int maxLength)
+      {
+         if (displayText_ != null && displayMaxLength_ == maxLength)
+            return displayText_;
+
+         String text = text_.toString();
+         if (maxLength > 0 && text.length() > maxLength)
+         {
+            String trimmed = StringUtil.trimRight(text);
+            if (trimmed.length() > maxLength)
+               text = trimmed.substring(0, maxLength) + "... <truncated>";
+            else
+               text = text.substring(0, maxLength);
+         }
+
+         displayText_ = text;
+         displayMaxLength_ = maxLength;
+         return displayText_;
+      }
+
+      public void render(Element parent, int maxLength, boolean newline)
+      {
+         if (element_ == null)
+         {
+            element_ = Document.get().createSpanElement();
+            parent.appendChild(element_);
+         }
+         else
+         {
+            element_.setInnerHTML("");
+         }
+
+         String text = getDisplayText(maxLength);
+         int visible = Math.min(text_.length(), maxLength > 0 ? maxLength :
+                                                   text_.length());
+         int pos = 0;
+         for (ClassRun run : runs_)
+         {
+            if (run.start >= visible)
+               break;
+            emitRange(text.substring(pos, run.start), null, element_);
+            int end = Math.min(run.end, visible);
+            emitRange(text.substring(run.start, end), run.className, element_);
+            pos = end;
+         }
+         emitRange(text.substring(pos), null, element_);
+
+         if (newline)
+            emitRange("\n", null, element_);
+      }
+
+      public void detach()
+      {
+         if (element_ != null)
+         {
+            element_.removeFromParent();
+            element_ = null;
+         }
+      }
+
+      private final StringBuilder text_ = new StringBuilder();
+      private ArrayList<ClassRun> runs_ = new ArrayList<ClassRun>();
+      private String displayText_ = null;
+      private int displayMaxLength_ = 0;
+      private SpanElement element_ = null;
    }
-   private final StringBuilder o = new StringBuilder();
-   private final ArrayList<String> charClass = new ArrayList<String>();
+
+   private final ArrayList<Line> lines_ = new ArrayList<Line>();
+   private int line_ = 0;
    private int pos_ = 0;
+   private int firstDirtyLine_ = 0;
+   private Element renderedParent_ = null;
+   private int renderedMaxLength_ = 0;
+
    private static final Pattern CONTROL = Pattern.create("[\r\b\f\n]");
    private static final Pattern CONTROL_SPECIAL = Pattern.create("[\r\b\f]");
-   
+
    // Injected ----
    private UIPrefs prefs_;
 }
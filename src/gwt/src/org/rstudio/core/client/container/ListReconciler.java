@@ -0,0 +1,105 @@
+/*
+ * ListReconciler.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Brings a list up to date with a newer version of itself by removing,
+ * inserting and replacing only the items which changed. Items are matched
+ * by key, so a list backing a display (such as a ListDataProvider's) only
+ * redraws the affected rows.
+ *
+ * Both lists are expected to hold unique keys in a consistent order; if
+ * the surviving items have been reordered the list is replaced wholesale.
+ */
+public class ListReconciler
+{
+   public interface Adapter<T>
+   {
+      String getKey(T item);
+      boolean isSame(T item1, T item2);
+   }
+
+   /**
+    * Updates target to match source, returning the number of items which
+    * were removed, inserted or replaced.
+    */
+   public static <T> int reconcile(List<T> target,
+                                   List<T> source,
+                                   Adapter<T> adapter)
+   {
+      HashSet<String> sourceKeys = new HashSet<String>();
+      for (T item : source)
+         sourceKeys.add(adapter.getKey(item));
+
+      // the items we keep must appear in the same order in the source
+      int sourceIndex = 0;
+      for (T item : target)
+      {
+         String key = adapter.getKey(item);
+         if (!sourceKeys.contains(key))
+            continue;
+
+         while (sourceIndex < source.size() &&
+                !adapter.getKey(source.get(sourceIndex)).equals(key))
+         {
+            sourceIndex++;
+         }
+         if (sourceIndex == source.size())
+            return replace(target, source);
+         sourceIndex++;
+      }
+
+      int changes = 0;
+      for (int i = target.size() - 1; i >= 0; i--)
+      {
+         if (!sourceKeys.contains(adapter.getKey(target.get(i))))
+         {
+            target.remove(i);
+            changes++;
+         }
+      }
+
+      for (int i = 0; i < source.size(); i++)
+      {
+         T item = source.get(i);
+         if (i < target.size() &&
+             adapter.getKey(target.get(i)).equals(adapter.getKey(item)))
+         {
+            if (!adapter.isSame(target.get(i), item))
+            {
+               target.set(i, item);
+               changes++;
+            }
+         }
+         else
+         {
+            target.add(i, item);
+            changes++;
+         }
+      }
+
+      return changes;
+   }
+
+   private static <T> int replace(List<T> target, List<T> source)
+   {
+      target.clear();
+      target.addAll(source);
+      return source.size();
+   }
+}
@@ -0,0 +1,56 @@
+/*
+ * LruCache.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map holding at most a fixed number of entries; when full, adding an
+ * entry evicts the least recently used one (reads count as use).
+ */
+public class LruCache<K, V> extends LinkedHashMap<K, V>
+{
+   public LruCache(int capacity)
+   {
+      super(16, 0.75f, true);
+      capacity_ = capacity;
+   }
+
+   public int getCapacity()
+   {
+      return capacity_;
+   }
+
+   public int getEvictionCount()
+   {
+      return evictions_;
+   }
+
+   @Override
+   protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+   {
+      if (size() <= capacity_)
+         return false;
+
+      evictions_++;
+      return true;
+   }
+
+   private final int capacity_;
+   private int evictions_ = 0;
+
+   private static final long serialVersionUID = 1L;
+}
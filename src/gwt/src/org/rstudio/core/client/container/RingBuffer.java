@@ -0,0 +1,114 @@
+/*
+ * RingBuffer.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+// A growable circular FIFO queue. Unlike ArrayList.remove(0), removing
+// from the head is O(1) (GWT doesn't emulate java.util.ArrayDeque).
+public class RingBuffer<T>
+{
+   public RingBuffer()
+   {
+      this(16);
+   }
+   
+   public RingBuffer(int initialCapacity)
+   {
+      data_ = new Object[Math.max(initialCapacity, 1)];
+   }
+   
+   public void add(T value)
+   {
+      if (size_ == data_.length)
+         grow();
+      
+      data_[(head_ + size_) % data_.length] = value;
+      size_++;
+   }
+   
+   public T peek()
+   {
+      if (size_ == 0)
+         return null;
+      return get(0);
+   }
+   
+   public T poll()
+   {
+      if (size_ == 0)
+         return null;
+      
+      T value = get(0);
+      data_[head_] = null;
+      head_ = (head_ + 1) % data_.length;
+      size_--;
+      return value;
+   }
+   
+   public T peekLast()
+   {
+      if (size_ == 0)
+         return null;
+      return get(size_ - 1);
+   }
+   
+   // returns the i'th element counting from the head of the queue
+   @SuppressWarnings("unchecked")
+   public T get(int i)
+   {
+      if (i < 0 || i >= size_)
+         throw new IndexOutOfBoundsException("Index: " + i + 
+                                             ", Size: " + size_);
+      return (T) data_[(head_ + i) % data_.length];
+   }
+   
+   public void set(int i, T value)
+   {
+      if (i < 0 || i >= size_)
+         throw new IndexOutOfBoundsException("Index: " + i + 
+                                             ", Size: " + size_);
+      data_[(head_ + i) % data_.length] = value;
+   }
+   
+   public int size()
+   {
+      return size_;
+   }
+   
+   public boolean isEmpty()
+   {
+      return size_ == 0;
+   }
+   
+   public void clear()
+   {
+      for (int i = 0; i < data_.length; i++)
+         data_[i] = null;
+      head_ = 0;
+      size_ = 0;
+   }
+   
+   private void grow()
+   {
+      Object[] data = new Object[data_.length * 2];
+      for (int i = 0; i < size_; i++)
+         data[i] = data_[(head_ + i) % data_.length];
+      data_ = data;
+      head_ = 0;
+   }
+   
+   private Object[] data_;
+   private int head_ = 0;
+   private int size_ = 0;
+}
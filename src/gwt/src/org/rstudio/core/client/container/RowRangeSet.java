@@ -0,0 +1,181 @@
+/*
+ * RowRangeSet.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+import java.util.ArrayList;
+
+/**
+ * A set of document rows, stored as a sorted list of disjoint ranges so
+ * that marking an entire document costs the same as marking a single row.
+ * The set follows edits to the document: rows after an edit move with it.
+ */
+public class RowRangeSet
+{
+   public RowRangeSet()
+   {
+   }
+
+   public boolean isEmpty()
+   {
+      return ranges_.isEmpty();
+   }
+
+   public int getRowCount()
+   {
+      int count = 0;
+      for (int[] range : ranges_)
+         count += range[1] - range[0];
+      return count;
+   }
+
+   public boolean contains(int row)
+   {
+      for (int[] range : ranges_)
+      {
+         if (row < range[0])
+            return false;
+         if (row < range[1])
+            return true;
+      }
+      return false;
+   }
+
+   public void clear()
+   {
+      ranges_.clear();
+   }
+
+   /**
+    * Adds the rows [start, start + count) to the set.
+    */
+   public void add(int start, int count)
+   {
+      if (count <= 0)
+         return;
+
+      int end = start + count;
+      int index = 0;
+      while (index < ranges_.size() && ranges_.get(index)[1] < start)
+         index++;
+
+      // absorb any ranges overlapping or adjacent to the new one
+      while (index < ranges_.size() && ranges_.get(index)[0] <= end)
+      {
+         int[] range = ranges_.remove(index);
+         start = Math.min(start, range[0]);
+         end = Math.max(end, range[1]);
+      }
+
+      ranges_.add(index, new int[] {start, end});
+   }
+
+   /**
+    * Adds all the rows in the other set to this one.
+    */
+   public void addAll(RowRangeSet other)
+   {
+      for (int[] range : other.ranges_)
+         add(range[0], range[1] - range[0]);
+   }
+
+   /**
+    * Removes the rows [start, start + count) from the set.
+    */
+   public void remove(int start, int count)
+   {
+      if (count <= 0)
+         return;
+
+      int end = start + count;
+      ArrayList<int[]> ranges = new ArrayList<int[]>();
+      for (int[] range : ranges_)
+      {
+         if (range[1] <= start || range[0] >= end)
+         {
+            ranges.add(range);
+            continue;
+         }
+         if (range[0] < start)
+            ranges.add(new int[] {range[0], start});
+         if (range[1] > end)
+            ranges.add(new int[] {end, range[1]});
+      }
+      ranges_ = ranges;
+   }
+
+   /**
+    * Updates the set for an edit which replaced removedRows rows starting
+    * at startRow with insertedRows rows. Rows after the edit are moved
+    * accordingly; the inserted rows are added to the set.
+    */
+   public void onChange(int startRow, int removedRows, int insertedRows)
+   {
+      int removedEnd = startRow + removedRows;
+      int delta = insertedRows - removedRows;
+
+      ArrayList<int[]> ranges = new ArrayList<int[]>();
+      for (int[] range : ranges_)
+      {
+         if (range[0] < startRow)
+            ranges.add(new int[] {range[0], Math.min(range[1], startRow)});
+         if (range[1] > removedEnd)
+         {
+            ranges.add(new int[] {Math.max(range[0], removedEnd) + delta,
+                                  range[1] + delta});
+         }
+      }
+      ranges_ = ranges;
+
+      add(startRow, insertedRows);
+   }
+
+   /**
+    * Returns the first row in the set at or after the given row, wrapping
+    * around to the start of the set if there is none; -1 if the set is
+    * empty.
+    */
+   public int nextRow(int row)
+   {
+      if (ranges_.isEmpty())
+         return -1;
+
+      for (int[] range : ranges_)
+      {
+         if (row < range[1])
+            return Math.max(row, range[0]);
+      }
+      return ranges_.get(0)[0];
+   }
+
+   /**
+    * Returns the number of consecutive rows in the set starting at the
+    * given row (0 if the row isn't in the set).
+    */
+   public int runLength(int row)
+   {
+      for (int[] range : ranges_)
+      {
+         if (row < range[0])
+            return 0;
+         if (row < range[1])
+            return range[1] - row;
+      }
+      return 0;
+   }
+
+   // each range is {start, end}, end exclusive; ranges are sorted, disjoint
+   // and non-adjacent
+   private ArrayList<int[]> ranges_ = new ArrayList<int[]>();
+}
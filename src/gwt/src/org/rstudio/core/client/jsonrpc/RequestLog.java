@@ -14,26 +14,57 @@
  */
 package org.rstudio.core.client.jsonrpc;
 
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+
+import org.rstudio.core.client.container.RingBuffer;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 
 public class RequestLog
 {
    public static RequestLogEntry log(String requestId, String requestData)
+   {
+      return log(requestId, null, requestData, requestData.length());
+   }
+   
+   // requestBytes is the size of the request as sent (requestData may have
+   // been redacted)
+   public static RequestLogEntry log(String requestId, 
+                                     String method,
+                                     String requestData,
+                                     int requestBytes)
+   {
+      return log(requestId, method, requestData, requestBytes,
+                 !UNTIMED_METHODS.contains(method));
+   }
+   
+   public static RequestLogEntry log(String requestId, 
+                                     String method,
+                                     String requestData,
+                                     int requestBytes,
+                                     boolean recordStats)
    {
       RequestLogEntry entry = new RequestLogEntry(System.currentTimeMillis(),
-                                                  requestId, requestData);
+                                                  requestId, 
+                                                  method,
+                                                  requestData,
+                                                  requestBytes,
+                                                  recordStats);
+      
+      // the log is a fixed size ring; the oldest entry makes way for the
+      // new one (entries which are still alive are unaffected, they just
+      // won't appear in the log)
+      if (entries_.size() == MAX_ENTRIES)
+         entries_.poll();
       entries_.add(entry);
 
-      for (int i = 0; entries_.size() > MAX_ENTRIES && i < entries_.size(); i++)
-      {
-         RequestLogEntry oldEntry = entries_.get(i);
-         if (!oldEntry.isAlive())
-         {
-            entries_.remove(i);
-            i--;
-         }
-      }
-
       return entry;
    }
 
@@ -44,9 +75,89 @@ public class RequestLog
          entries[i] = entries_.get(i).clone();
       return entries;
    }
+   
+   // called by RequestLogEntry when the response for a request arrives
+   static void recordResponse(RequestLogEntry entry)
+   {
+      if (!entry.getRecordStats())
+         return;
+      
+      String responseData = entry.getResponseData();
+      recordStats(entry.getRequestMethodName(),
+                  entry.getResponseTime() - entry.getRequestTime(),
+                  entry.getRequestBytes(),
+                  responseData != null ? responseData.length() : 0,
+                  entry.getResponseType() != 
+                     RequestLogEntry.ResponseType.Normal);
+   }
+   
+   // records a completed request in the statistics for its method (used 
+   // directly for requests which share an http request, e.g. in a batch)
+   public static void recordStats(String method,
+                                  long latencyMillis,
+                                  int requestBytes,
+                                  int responseBytes,
+                                  boolean error)
+   {
+      if (method == null)
+         method = "[unknown]";
+      
+      RequestStats stats = stats_.get(method);
+      if (stats == null)
+      {
+         stats = new RequestStats(method);
+         stats_.put(method, stats);
+      }
+      stats.record(latencyMillis, requestBytes, responseBytes, error);
+   }
+   
+   // per-method statistics, ordered by the total time spent waiting on
+   // each method (so the methods dominating session latency come first)
+   public static ArrayList<RequestStats> getStats()
+   {
+      ArrayList<RequestStats> stats = 
+            new ArrayList<RequestStats>(stats_.values());
+      Collections.sort(stats, new Comparator<RequestStats>()
+      {
+         @Override
+         public int compare(RequestStats a, RequestStats b)
+         {
+            if (a.getTotalMillis() == b.getTotalMillis())
+               return a.getMethod().compareTo(b.getMethod());
+            return a.getTotalMillis() > b.getTotalMillis() ? -1 : 1;
+         }
+      });
+      return stats;
+   }
+   
+   public static void clearStats()
+   {
+      stats_.clear();
+   }
+   
+   public static String getStatsSnapshot()
+   {
+      JSONArray methods = new JSONArray();
+      ArrayList<RequestStats> stats = getStats();
+      for (int i = 0; i < stats.size(); i++)
+         methods.set(i, stats.get(i).toJSONObject());
+      
+      JSONObject snapshot = new JSONObject();
+      snapshot.put("time", new JSONNumber(System.currentTimeMillis()));
+      snapshot.put("methods", methods);
+      return snapshot.toString();
+   }
 
-   private static final ArrayList<RequestLogEntry> entries_ =
-         new ArrayList<RequestLogEntry>();
-
-   private static final int MAX_ENTRIES = 50;
+   private static final int MAX_ENTRIES = 100;
+   
+   // long polls spend most of their time waiting for something to happen
+   // rather than on the server, so their "latency" isn't meaningful
+   private static final List<String> UNTIMED_METHODS = Arrays.asList(
+         "get_events");
+   
+   private static final RingBuffer<RequestLogEntry> entries_ =
+         new RingBuffer<RequestLogEntry>(MAX_ENTRIES);
+   
+   private static final HashMap<String, RequestStats> stats_ =
+         new HashMap<String, RequestStats>();
 }
@@ -32,10 +32,24 @@ public class RequestLogEntry
    public RequestLogEntry(long requestTime,
                           String requestId,
                           String requestData)
+   {
+      this(requestTime, requestId, null, requestData, requestData.length(),
+           false);
+   }
+   
+   public RequestLogEntry(long requestTime,
+                          String requestId,
+                          String method,
+                          String requestData,
+                          int requestBytes,
+                          boolean recordStats)
    {
       requestTime_ = requestTime;
       requestId_ = requestId;
+      method_ = method;
       requestData_ = requestData;
+      requestBytes_ = requestBytes;
+      recordStats_ = recordStats;
    }
 
    public long getRequestTime()
@@ -53,6 +67,17 @@ public class RequestLogEntry
       return requestData_;
    }
 
+   public int getRequestBytes()
+   {
+      return requestBytes_;
+   }
+   
+   // whether the response counts towards the method's statistics
+   public boolean getRecordStats()
+   {
+      return recordStats_;
+   }
+
    public Long getResponseTime()
    {
       return responseTime_;
@@ -65,9 +90,16 @@ public class RequestLogEntry
 
    public void logResponse(int responseType, String data)
    {
+      boolean firstResponse = responseType_ == ResponseType.None;
+      
       responseType_ = responseType;
       responseTime_ = System.currentTimeMillis();
       responseData_ = data;
+      
+      // only the first response counts towards the method's statistics
+      // (e.g. a request cancelled after it completed)
+      if (firstResponse && responseType != ResponseType.Cancelled)
+         RequestLog.recordResponse(this);
    }
 
    public int getResponseType()
@@ -82,6 +114,9 @@ public class RequestLogEntry
 
    public String getRequestMethodName()
    {
+      if (method_ != null)
+         return method_;
+      
       if (requestData_.equals("[REDACTED]"))
          return requestData_;
 
@@ -96,7 +131,10 @@ public class RequestLogEntry
    {
       RequestLogEntry clone = new RequestLogEntry(requestTime_,
                                                   requestId_,
-                                                  requestData_);
+                                                  method_,
+                                                  requestData_,
+                                                  requestBytes_,
+                                                  recordStats_);
       clone.responseType_ = responseType_;
       clone.responseData_ = responseData_;
       clone.responseTime_ = responseTime_;
@@ -142,7 +180,10 @@ public class RequestLogEntry
 
    private final long requestTime_;
    private final String requestId_;
+   private final String method_;
    private final String requestData_;
+   private final int requestBytes_;
+   private final boolean recordStats_;
    private Long responseTime_;
    private String responseData_;
    private int responseType_ = ResponseType.None;
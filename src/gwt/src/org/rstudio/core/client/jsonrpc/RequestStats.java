@@ -0,0 +1,135 @@
+/*
+ * RequestStats.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.jsonrpc;
+
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+
+// Aggregate statistics for all requests made to a single rpc method.
+// Latencies are kept in a fixed set of exponential buckets so that we can
+// report approximate percentiles without retaining every sample.
+public class RequestStats
+{
+   public RequestStats(String method)
+   {
+      method_ = method;
+   }
+   
+   public void record(long latencyMillis, 
+                      int requestBytes, 
+                      int responseBytes,
+                      boolean error)
+   {
+      count_++;
+      if (error)
+         errorCount_++;
+      totalMillis_ += latencyMillis;
+      maxMillis_ = Math.max(maxMillis_, latencyMillis);
+      requestBytes_ += requestBytes;
+      responseBytes_ += responseBytes;
+      
+      int bucket = 0;
+      while (bucket < BUCKET_LIMITS.length - 1 && 
+             latencyMillis > BUCKET_LIMITS[bucket])
+      {
+         bucket++;
+      }
+      buckets_[bucket]++;
+   }
+   
+   public String getMethod()
+   {
+      return method_;
+   }
+   
+   public int getCount()
+   {
+      return count_;
+   }
+   
+   public int getErrorCount()
+   {
+      return errorCount_;
+   }
+   
+   public long getTotalMillis()
+   {
+      return totalMillis_;
+   }
+   
+   public long getMaxMillis()
+   {
+      return maxMillis_;
+   }
+   
+   public long getRequestBytes()
+   {
+      return requestBytes_;
+   }
+   
+   public long getResponseBytes()
+   {
+      return responseBytes_;
+   }
+   
+   // returns the upper bound of the latency bucket containing the given
+   // percentile (e.g. 0.95)
+   public long getPercentileMillis(double percentile)
+   {
+      if (count_ == 0)
+         return 0;
+      
+      int target = (int) Math.ceil(count_ * percentile);
+      int seen = 0;
+      for (int i = 0; i < buckets_.length; i++)
+      {
+         seen += buckets_[i];
+         if (seen >= target)
+            return Math.min(BUCKET_LIMITS[i], maxMillis_);
+      }
+      return maxMillis_;
+   }
+   
+   public JSONObject toJSONObject()
+   {
+      JSONObject stats = new JSONObject();
+      stats.put("method", new JSONString(method_));
+      stats.put("count", new JSONNumber(count_));
+      stats.put("errors", new JSONNumber(errorCount_));
+      stats.put("total_ms", new JSONNumber(totalMillis_));
+      stats.put("max_ms", new JSONNumber(maxMillis_));
+      stats.put("p50_ms", new JSONNumber(getPercentileMillis(0.50)));
+      stats.put("p95_ms", new JSONNumber(getPercentileMillis(0.95)));
+      stats.put("p99_ms", new JSONNumber(getPercentileMillis(0.99)));
+      stats.put("request_bytes", new JSONNumber(requestBytes_));
+      stats.put("response_bytes", new JSONNumber(responseBytes_));
+      return stats;
+   }
+   
+   private final String method_;
+   private int count_ = 0;
+   private int errorCount_ = 0;
+   private long totalMillis_ = 0;
+   private long maxMillis_ = 0;
+   private long requestBytes_ = 0;
+   private long responseBytes_ = 0;
+   private final int[] buckets_ = new int[BUCKET_LIMITS.length];
+   
+   private static final long[] BUCKET_LIMITS = new long[] {
+      5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000,
+      Long.MAX_VALUE
+   };
+}
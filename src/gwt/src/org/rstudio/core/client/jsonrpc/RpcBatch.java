@@ -0,0 +1,243 @@
+/*
+ * RpcBatch.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.jsonrpc;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.http.client.*;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.user.client.Random;
+import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
+
+import java.util.ArrayList;
+
+// Sends several RpcRequests to the server as a single http request. The 
+// server executes the requests in order and returns an array containing
+// the raw json-rpc response of each, which we then hand to the callback
+// of the corresponding request (so per-request error handling and retries
+// behave exactly as if the requests had been sent individually).
+public class RpcBatch
+{
+   public RpcBatch(String url, String clientId, String clientVersion)
+   {
+      url_ = url;
+      clientId_ = clientId;
+      clientVersion_ = clientVersion;
+   }
+   
+   public void add(RpcRequest request, RpcRequestCallback callback)
+   {
+      entries_.add(new Entry(request, callback));
+   }
+   
+   public int size()
+   {
+      return entries_.size();
+   }
+   
+   public void send()
+   {
+      // drop requests which were cancelled before we got to send them
+      final ArrayList<Entry> entries = new ArrayList<Entry>();
+      for (Entry entry : entries_)
+      {
+         if (!entry.request.isCancelled())
+            entries.add(entry);
+      }
+      entries_.clear();
+      
+      if (entries.isEmpty())
+         return;
+      
+      // no point in batching a single request
+      if (entries.size() == 1)
+      {
+         entries.get(0).request.send(entries.get(0).callback);
+         return;
+      }
+      
+      final JSONArray requests = new JSONArray();
+      boolean redactLog = false;
+      StringBuilder methods = new StringBuilder();
+      for (int i = 0; i < entries.size(); i++)
+      {
+         RpcRequest request = entries.get(i).request;
+         requests.set(i, request.toJSONObject());
+         redactLog = redactLog || request.getRedactLog();
+         if (i > 0)
+            methods.append(",");
+         methods.append(request.getMethod());
+      }
+      
+      JSONObject batch = new JSONObject();
+      batch.put("method", new JSONString(BATCH));
+      batch.put("params", requests);
+      if (clientId_ != null)
+         batch.put("clientId", new JSONString(clientId_));
+      batch.put("clientVersion", new JSONString(clientVersion_));
+      
+      RequestBuilder builder = new RequestBuilder(RequestBuilder.POST, url_);
+      builder.setHeader("Content-Type", "application/json") ;
+      builder.setHeader("Accept", "application/json");
+      String requestId = Integer.toString(Random.nextInt());
+      builder.setHeader("X-RS-RID", requestId);
+      
+      // the batch is logged under the methods it contains; its statistics
+      // are recorded per request once the responses arrive
+      String requestString = batch.toString();
+      final RequestLogEntry logEntry = RequestLog.log(
+            requestId, 
+            methods.toString(), 
+            redactLog ? "[REDACTED]" : requestString,
+            requestString.length(),
+            false);
+      final long sendTime = System.currentTimeMillis();
+      
+      try
+      {
+         builder.sendRequest(requestString, new RequestCallback() {
+            
+            public void onError(Request request, Throwable exception)
+            {
+               logEntry.logResponse(ResponseType.Error,
+                                    exception.getLocalizedMessage());
+               recordStats(entries, requests, sendTime, null);
+               onBatchError(entries, RpcError.create(
+                                          RpcError.TRANSMISSION_ERROR,
+                                          exception.getLocalizedMessage()));
+            }
+            
+            public void onResponseReceived(Request request, 
+                                           Response response)
+            {
+               int status = response.getStatusCode();
+               if (status != 200)
+               {
+                  String message = "Status code " + 
+                                   Integer.toString(status) + 
+                                   " returned";
+                  logEntry.logResponse(ResponseType.Unknown, message);
+                  recordStats(entries, requests, sendTime, null);
+                  onBatchError(entries, RpcError.create(
+                                             RpcError.TRANSMISSION_ERROR,
+                                             message));
+                  return;
+               }
+               
+               String responseText = response.getText();
+               logEntry.logResponse(ResponseType.Normal, responseText);
+               RpcResponse rpcResponse = RpcResponse.parse(responseText);
+               if (rpcResponse == null)
+               {
+                  recordStats(entries, requests, sendTime, null);
+                  onBatchError(entries, RpcError.create(
+                                             RpcError.TRANSMISSION_ERROR,
+                                             "Unable to parse response"));
+                  return;
+               }
+               
+               // an error for the batch as a whole applies to each request
+               if (rpcResponse.getError() != null)
+               {
+                  recordStats(entries, requests, sendTime, null);
+                  onBatchError(entries, rpcResponse.getError());
+                  return;
+               }
+               
+               JsArray<RpcResponse> responses = rpcResponse.getResult();
+               recordStats(entries, requests, sendTime, responses);
+               for (int i = 0; i < entries.size(); i++)
+               {
+                  Entry entry = entries.get(i);
+                  if (entry.request.isCancelled())
+                     continue;
+                  
+                  if (responses == null || i >= responses.length())
+                  {
+                     entry.callback.onError(entry.request, RpcError.create(
+                        RpcError.TRANSMISSION_ERROR,
+                        "No response for " + entry.request.getMethod()));
+                  }
+                  else
+                  {
+                     entry.callback.onResponseReceived(entry.request, 
+                                                       responses.get(i));
+                  }
+               }
+            }
+         });
+      }
+      catch(RequestException e)
+      {
+         logEntry.logResponse(ResponseType.Unknown, e.getLocalizedMessage());
+         recordStats(entries, requests, sendTime, null);
+         onBatchError(entries, RpcError.create(RpcError.TRANSMISSION_ERROR,
+                                               e.getLocalizedMessage()));
+      }
+   }
+   
+   // record each request in the batch against its own method; a missing
+   // response (or no responses at all) counts as an error
+   private void recordStats(ArrayList<Entry> entries,
+                            JSONArray requests,
+                            long sendTime,
+                            JsArray<RpcResponse> responses)
+   {
+      long latency = System.currentTimeMillis() - sendTime;
+      for (int i = 0; i < entries.size(); i++)
+      {
+         RpcResponse response = null;
+         if (responses != null && i < responses.length())
+            response = responses.get(i);
+         
+         RequestLog.recordStats(
+               entries.get(i).request.getMethod(),
+               latency,
+               requests.get(i).toString().length(),
+               response != null ? 
+                     new JSONObject(response).toString().length() : 0,
+               response == null || response.getError() != null);
+      }
+   }
+   
+   private void onBatchError(ArrayList<Entry> entries, RpcError error)
+   {
+      for (Entry entry : entries)
+      {
+         if (!entry.request.isCancelled())
+            entry.callback.onError(entry.request, error);
+      }
+   }
+   
+   private static class Entry
+   {
+      public Entry(RpcRequest request, RpcRequestCallback callback)
+      {
+         this.request = request;
+         this.callback = callback;
+      }
+      
+      public final RpcRequest request;
+      public final RpcRequestCallback callback;
+   }
+   
+   private final String url_;
+   private final String clientId_;
+   private final String clientVersion_;
+   private final ArrayList<Entry> entries_ = new ArrayList<Entry>();
+   
+   public static final String BATCH = "batch";
+}
@@ -63,23 +63,7 @@ public class RpcRequest
       final RpcRequestCallback requestCallback = callback ;
       
       // build json request object
-      JSONObject request = new JSONObject() ;
-      request.put("method", new JSONString(method_)) ;
-      if ( params_ != null )
-         request.put("params", params_);  
-      if ( kwparams_ != null)
-         request.put("kwparams", kwparams_);
-      
-      // add src window if we have it
-      if (sourceWindow_ != null)
-         request.put("sourceWnd", sourceWindow_);
-      
-      // add client id if we have it
-      if (clientId_ != null)
-         request.put("clientId", clientId_);
-      
-      // add client version
-      request.put("clientVersion", clientVersion_);
+      JSONObject request = toJSONObject();
       
       // configure request builder
       RequestBuilder builder = new RequestBuilder(RequestBuilder.POST, url_);
@@ -96,8 +80,10 @@ public class RpcRequest
             Debug.log("Request: " + requestString) ;
 
          requestLogEntry_ = RequestLog.log(requestId,
+                                           method_,
                                            redactLog_ ? "[REDACTED]"
-                                                      : requestString);
+                                                      : requestString,
+                                           requestString.length());
 
          request_ = builder.sendRequest(requestString, new RequestCallback() {
             
@@ -184,8 +170,50 @@ public class RpcRequest
       }
    }
    
+   public String getMethod()
+   {
+      return method_;
+   }
+   
+   public boolean getRedactLog()
+   {
+      return redactLog_;
+   }
+   
+   public boolean isCancelled()
+   {
+      return cancelled_;
+   }
+   
+   // json representation of the request (also used to embed the request
+   // within an RpcBatch)
+   public JSONObject toJSONObject()
+   {
+      JSONObject request = new JSONObject() ;
+      request.put("method", new JSONString(method_)) ;
+      if ( params_ != null )
+         request.put("params", params_);  
+      if ( kwparams_ != null)
+         request.put("kwparams", kwparams_);
+      
+      // add src window if we have it
+      if (sourceWindow_ != null)
+         request.put("sourceWnd", sourceWindow_);
+      
+      // add client id if we have it
+      if (clientId_ != null)
+         request.put("clientId", clientId_);
+      
+      // add client version
+      request.put("clientVersion", clientVersion_);
+      
+      return request;
+   }
+   
    public void cancel()
    {
+      cancelled_ = true;
+      
       if (request_ != null)
       {
          request_.cancel();
@@ -208,6 +236,7 @@ public class RpcRequest
    final private JSONString clientId_;
    final private JSONString clientVersion_;
    private Request request_ = null;
+   private boolean cancelled_ = false;
    private RequestLogEntry requestLogEntry_ = null;
    
      
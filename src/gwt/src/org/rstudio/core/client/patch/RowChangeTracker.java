@@ -0,0 +1,189 @@
+/*
+ * RowChangeTracker.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.patch;
+
+import java.util.ArrayList;
+
+/**
+ * Tracks which rows of a document have changed relative to a baseline
+ * version, as a sorted list of disjoint regions. Each region maps a range
+ * of rows in the current document to the range of baseline rows it
+ * replaced; rows outside any region are unchanged (though possibly moved).
+ *
+ * The tracking is conservative: a region may include rows that are in fact
+ * unchanged, but never omits a row that changed.
+ */
+public class RowChangeTracker
+{
+   public static class Region
+   {
+      public Region(int newStart, int newCount, int oldStart, int oldCount)
+      {
+         newStart_ = newStart;
+         newCount_ = newCount;
+         oldStart_ = oldStart;
+         oldCount_ = oldCount;
+      }
+
+      public int getNewStart()
+      {
+         return newStart_;
+      }
+
+      public int getNewCount()
+      {
+         return newCount_;
+      }
+
+      public int getOldStart()
+      {
+         return oldStart_;
+      }
+
+      public int getOldCount()
+      {
+         return oldCount_;
+      }
+
+      private final int newStart_;
+      private final int newCount_;
+      private final int oldStart_;
+      private final int oldCount_;
+   }
+
+   /**
+    * Creates a tracker with no changes relative to the baseline.
+    */
+   public RowChangeTracker()
+   {
+   }
+
+   /**
+    * Records an edit which replaced removedRows rows starting at startRow
+    * with insertedRows rows. Both counts include the (partially) edited
+    * first row, so a change within a single row is (row, 1, 1).
+    */
+   public void onChange(int startRow, int removedRows, int insertedRows)
+   {
+      if (!valid_)
+         return;
+
+      if (startRow < 0 || removedRows < 1 || insertedRows < 1)
+      {
+         invalidate();
+         return;
+      }
+
+      int lo = startRow;
+      int hi = startRow + removedRows - 1;
+
+      // find the spans overlapping or adjacent to the edited rows
+      int first = -1;
+      int last = -1;
+      int index = spans_.size();
+      int mergedStart = lo;
+      int mergedEnd = hi;
+      int mergedNewRows = 0;
+      int mergedOldRows = 0;
+      for (int i = 0; i < spans_.size(); i++)
+      {
+         Span span = spans_.get(i);
+         int spanEnd = span.newStart + span.newCount - 1;
+         if (spanEnd < lo - 1)
+            continue;
+         if (span.newStart > hi + 1)
+         {
+            index = i;
+            break;
+         }
+
+         if (first == -1)
+            first = i;
+         last = i;
+         mergedStart = Math.min(mergedStart, span.newStart);
+         mergedEnd = Math.max(mergedEnd, spanEnd);
+         mergedNewRows += span.newCount;
+         mergedOldRows += span.oldCount;
+      }
+
+      // rows in the merged range which weren't part of an existing span
+      // are unchanged, so map one-to-one onto baseline rows
+      int rows = mergedEnd - mergedStart + 1;
+      Span merged = new Span();
+      merged.newStart = mergedStart;
+      merged.newCount = rows - removedRows + insertedRows;
+      merged.oldCount = rows - mergedNewRows + mergedOldRows;
+
+      if (first != -1)
+      {
+         for (int i = last; i >= first; i--)
+            spans_.remove(i);
+         index = first;
+      }
+      spans_.add(index, merged);
+
+      int delta = insertedRows - removedRows;
+      if (delta != 0)
+      {
+         for (int i = index + 1; i < spans_.size(); i++)
+            spans_.get(i).newStart += delta;
+      }
+   }
+
+   /**
+    * Marks the changes as unknown; callers must then compare the entire
+    * document against the baseline.
+    */
+   public void invalidate()
+   {
+      valid_ = false;
+      spans_.clear();
+   }
+
+   public boolean isValid()
+   {
+      return valid_;
+   }
+
+   public boolean hasChanges()
+   {
+      return !valid_ || !spans_.isEmpty();
+   }
+
+   public ArrayList<Region> getRegions()
+   {
+      ArrayList<Region> regions = new ArrayList<Region>();
+      int offset = 0;
+      for (Span span : spans_)
+      {
+         regions.add(new Region(span.newStart,
+                                span.newCount,
+                                span.newStart - offset,
+                                span.oldCount));
+         offset += span.newCount - span.oldCount;
+      }
+      return regions;
+   }
+
+   private static class Span
+   {
+      public int newStart;
+      public int newCount;
+      public int oldCount;
+   }
+
+   private boolean valid_ = true;
+   private final ArrayList<Span> spans_ = new ArrayList<Span>();
+}
@@ -0,0 +1,216 @@
+/*
+ * RowIndexedText.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.patch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text held as rows (separated by \n) in blocks of bounded size. Finding
+ * the offset of a row and replacing rows cost time proportional to the
+ * number of blocks and the rows involved rather than to the length of the
+ * text, so a copy of a large document can be kept up to date from just
+ * the rows that changed. The rows are only joined back into a string when
+ * asked for.
+ */
+public class RowIndexedText
+{
+   public RowIndexedText(String text)
+   {
+      ArrayList<String> rows = new ArrayList<String>();
+      int start = 0;
+      int newline;
+      while ((newline = text.indexOf('\n', start)) != -1)
+      {
+         rows.add(text.substring(start, newline));
+         start = newline + 1;
+      }
+      rows.add(text.substring(start));
+
+      for (int i = 0; i < rows.size(); i += BLOCK_SIZE)
+      {
+         blocks_.add(new Block(
+               rows.subList(i, Math.min(i + BLOCK_SIZE, rows.size()))));
+      }
+      rowCount_ = rows.size();
+   }
+
+   public int getRowCount()
+   {
+      return rowCount_;
+   }
+
+   public int getLength()
+   {
+      int length = 0;
+      for (Block block : blocks_)
+         length += block.length_;
+      return length - 1;
+   }
+
+   /**
+    * Returns the offset of the start of the given row within the text.
+    */
+   public int getOffset(int row)
+   {
+      // each block's length includes a newline after each of its rows
+      int offset = 0;
+      for (Block block : blocks_)
+      {
+         if (row < block.rows_.size())
+         {
+            for (int i = 0; i < row; i++)
+               offset += block.rows_.get(i).length() + 1;
+            return offset;
+         }
+         offset += block.length_;
+         row -= block.rows_.size();
+      }
+      return offset;
+   }
+
+   /**
+    * Returns the rows [start, start + count) joined by newlines.
+    */
+   public String getRows(int start, int count)
+   {
+      StringBuilder text = new StringBuilder();
+      int blockIndex = 0;
+      for (; blockIndex < blocks_.size(); blockIndex++)
+      {
+         int size = blocks_.get(blockIndex).rows_.size();
+         if (start < size)
+            break;
+         start -= size;
+      }
+
+      for (int i = 0; i < count; i++)
+      {
+         Block block = blocks_.get(blockIndex);
+         if (i > 0)
+            text.append('\n');
+         text.append(block.rows_.get(start));
+         if (++start == block.rows_.size())
+         {
+            blockIndex++;
+            start = 0;
+         }
+      }
+      return text.toString();
+   }
+
+   public String getText()
+   {
+      return getRows(0, rowCount_);
+   }
+
+   /**
+    * Replaces the rows [start, start + count) with the given rows.
+    */
+   public void replaceRows(int start, int count, List<String> rows)
+   {
+      // find the block containing the first row (or the end of the last
+      // block if we're appending)
+      int blockIndex = 0;
+      int index = start;
+      while (blockIndex < blocks_.size() - 1 &&
+             index >= blocks_.get(blockIndex).rows_.size())
+      {
+         index -= blocks_.get(blockIndex).rows_.size();
+         blockIndex++;
+      }
+
+      // remove the replaced rows, which may span several blocks
+      int remaining = count;
+      int removeBlock = blockIndex;
+      int removeIndex = index;
+      while (remaining > 0)
+      {
+         Block block = blocks_.get(removeBlock);
+         int removed = Math.min(remaining, block.rows_.size() - removeIndex);
+         block.remove(removeIndex, removed);
+         remaining -= removed;
+         removeBlock++;
+         removeIndex = 0;
+      }
+
+      blocks_.get(blockIndex).insert(index, rows);
+      rowCount_ += rows.size() - count;
+
+      // tidy up the blocks we touched: drop empty ones, split oversized
+      // ones and merge small neighbours
+      for (int i = Math.min(removeBlock, blocks_.size() - 1);
+           i > blockIndex; i--)
+      {
+         if (blocks_.get(i).rows_.isEmpty())
+            blocks_.remove(i);
+      }
+
+      Block block = blocks_.get(blockIndex);
+      if (block.rows_.size() > 2 * BLOCK_SIZE)
+      {
+         blocks_.remove(blockIndex);
+         for (int i = 0; i < block.rows_.size(); i += BLOCK_SIZE)
+         {
+            blocks_.add(blockIndex++, new Block(block.rows_.subList(
+                  i, Math.min(i + BLOCK_SIZE, block.rows_.size()))));
+         }
+      }
+      else if (blockIndex + 1 < blocks_.size() &&
+               block.rows_.size() +
+               blocks_.get(blockIndex + 1).rows_.size() <= BLOCK_SIZE)
+      {
+         block.insert(block.rows_.size(),
+                      blocks_.remove(blockIndex + 1).rows_);
+      }
+      else if (block.rows_.isEmpty() && blocks_.size() > 1)
+      {
+         blocks_.remove(blockIndex);
+      }
+   }
+
+   private static class Block
+   {
+      public Block(List<String> rows)
+      {
+         insert(0, rows);
+      }
+
+      public void insert(int index, List<String> rows)
+      {
+         rows_.addAll(index, rows);
+         for (String row : rows)
+            length_ += row.length() + 1;
+      }
+
+      public void remove(int index, int count)
+      {
+         List<String> removed = rows_.subList(index, index + count);
+         for (String row : removed)
+            length_ -= row.length() + 1;
+         removed.clear();
+      }
+
+      private final ArrayList<String> rows_ = new ArrayList<String>();
+
+      // the length of the rows plus a newline after each
+      private int length_ = 0;
+   }
+
+   private final ArrayList<Block> blocks_ = new ArrayList<Block>();
+   private int rowCount_;
+
+   private static final int BLOCK_SIZE = 256;
+}
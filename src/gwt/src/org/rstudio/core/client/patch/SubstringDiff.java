@@ -45,6 +45,13 @@ public class SubstringDiff
       length_ = tail - head;
    }
 
+   public SubstringDiff(String replacement, int offset, int length)
+   {
+      replacement_ = replacement;
+      offset_ = offset;
+      length_ = length;
+   }
+
    public String getReplacement()
    {
       return replacement_;
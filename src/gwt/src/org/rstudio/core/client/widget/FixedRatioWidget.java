@@ -49,6 +49,7 @@ public class FixedRatioWidget extends Composite
       widgetStyle.setTop(0, Unit.PX);
       
       panel.add(widget_);
+      panel_ = panel;
       initWidget(outer);
    }
    
@@ -57,5 +58,19 @@ public class FixedRatioWidget extends Composite
       return widget_;
    }
    
+   // the wrapped widget can be taken out of the DOM (e.g. to unload a frame)
+   // without affecting the space reserved for it
+   public void detachWidget()
+   {
+      widget_.removeFromParent();
+   }
+   
+   public void attachWidget()
+   {
+      if (widget_.getParent() == null)
+         panel_.add(widget_);
+   }
+   
    private final Widget widget_;
+   private final HTMLPanel panel_;
 }
@@ -14,11 +14,14 @@
  */
 package org.rstudio.studio.client.application.events;
 
+import java.util.HashSet;
+
 import org.rstudio.core.client.dom.WindowEx;
 import org.rstudio.core.client.js.JavaScriptSerializer;
 import org.rstudio.studio.client.application.Desktop;
 import org.rstudio.studio.client.common.satellite.Satellite;
 import org.rstudio.studio.client.common.satellite.SatelliteManager;
+import org.rstudio.studio.client.server.remote.ClientEventDispatcher;
 
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.shared.GWT;
@@ -89,6 +92,30 @@ public class EventBus extends HandlerManager
       
    }
    
+   @Override
+   public <H extends EventHandler> HandlerRegistration addHandler(
+         Type<H> type, H handler)
+   {
+      HandlerRegistration registration = super.addHandler(type, handler);
+      
+      // satellites aren't sent server events which nothing in them listens 
+      // for, so tell the main window when such an event gets a listener.
+      // types are never unsubscribed; a spare event does no harm
+      if (subscribedTypes_.add(type) &&
+          Satellite.isCurrentWindowSatellite() &&
+          ClientEventDispatcher.isFilterableEventType(type))
+      {
+         pSatellite_.get().updateEventSubscriptions();
+      }
+      return registration;
+   }
+   
+   // whether a handler has ever been added for the given event type
+   public boolean isEventTypeSubscribed(Type<?> type)
+   {
+      return subscribedTypes_.contains(type);
+   }
+   
    public void fireEventToAllSatellites(CrossWindowEvent<?> event)
    {
       pManager_.get().dispatchCrossWindowEvent(event);
@@ -167,4 +194,5 @@ public class EventBus extends HandlerManager
    private Provider<Satellite> pSatellite_;
    private Provider<SatelliteManager> pManager_;
    private JavaScriptSerializer serializer_;
+   private final HashSet<Type<?>> subscribedTypes_ = new HashSet<Type<?>>();
 }
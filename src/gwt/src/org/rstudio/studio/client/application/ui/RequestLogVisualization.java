@@ -34,10 +34,12 @@ import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.*;
 import org.rstudio.core.client.CsvReader;
 import org.rstudio.core.client.CsvWriter;
+import org.rstudio.core.client.DiagnosticCounters;
 import org.rstudio.core.client.command.KeyboardShortcut;
 import org.rstudio.core.client.jsonrpc.RequestLog;
 import org.rstudio.core.client.jsonrpc.RequestLogEntry;
 import org.rstudio.core.client.jsonrpc.RequestLogEntry.ResponseType;
+import org.rstudio.core.client.jsonrpc.RequestStats;
 import org.rstudio.core.client.widget.ModalDialog;
 import org.rstudio.core.client.widget.OperationWithInput;
 import org.rstudio.core.client.widget.ScrollPanelWithClick;
@@ -114,6 +116,9 @@ public class RequestLogVisualization extends Composite
                             "<li>P: Play/pause</li>" +
                             "<li>E: Export</li>" +
                             "<li>I: Import</li>" +
+                            "<li>S: Show per-method statistics</li>" +
+                            "<li>X: Export statistics (JSON)</li>" +
+                            "<li>D: Show client counters</li>" +
                             "<li>+/-: Zoom in/out</li>" +
                             "</ul>");
       detail_.setWidget(instructions_);
@@ -245,6 +250,70 @@ public class RequestLogVisualization extends Composite
       overviewPanel_.getWidgetContainerElement(html).getStyle().setOverflow(Overflow.VISIBLE);
    }
 
+   private Widget createStatsWidget()
+   {
+      ArrayList<RequestStats> stats = RequestLog.getStats();
+      
+      String[] headers = new String[] {
+         "Method", "Count", "Errors", "Total (ms)", "p50", "p95", "p99", 
+         "Max", "Sent (KB)", "Received (KB)"
+      };
+      Grid grid = new Grid(stats.size() + 1, headers.length);
+      grid.setCellPadding(2);
+      for (int i = 0; i < headers.length; i++)
+      {
+         grid.setText(0, i, headers[i]);
+         grid.getCellFormatter().getElement(0, i).getStyle().setFontWeight(
+                                                           FontWeight.BOLD);
+      }
+      
+      for (int i = 0; i < stats.size(); i++)
+      {
+         RequestStats method = stats.get(i);
+         int row = i + 1;
+         grid.setText(row, 0, method.getMethod());
+         grid.setText(row, 1, method.getCount() + "");
+         grid.setText(row, 2, method.getErrorCount() + "");
+         grid.setText(row, 3, method.getTotalMillis() + "");
+         grid.setText(row, 4, method.getPercentileMillis(0.50) + "");
+         grid.setText(row, 5, method.getPercentileMillis(0.95) + "");
+         grid.setText(row, 6, method.getPercentileMillis(0.99) + "");
+         grid.setText(row, 7, method.getMaxMillis() + "");
+         grid.setText(row, 8, (method.getRequestBytes() / 1024) + "");
+         grid.setText(row, 9, (method.getResponseBytes() / 1024) + "");
+      }
+      
+      ScrollPanel scroller = new ScrollPanel(grid);
+      scroller.setSize("100%", "100%");
+      return scroller;
+   }
+
+   private Widget createCountersWidget()
+   {
+      ArrayList<String[]> counters = DiagnosticCounters.collect();
+      
+      String[] headers = new String[] {"Group", "Counter", "Value"};
+      Grid grid = new Grid(counters.size() + 1, headers.length);
+      grid.setCellPadding(2);
+      for (int i = 0; i < headers.length; i++)
+      {
+         grid.setText(0, i, headers[i]);
+         grid.getCellFormatter().getElement(0, i).getStyle().setFontWeight(
+                                                           FontWeight.BOLD);
+      }
+      
+      for (int i = 0; i < counters.size(); i++)
+      {
+         String[] counter = counters.get(i);
+         for (int j = 0; j < counter.length; j++)
+            grid.setText(i + 1, j, counter[j]);
+      }
+      
+      ScrollPanel scroller = new ScrollPanel(grid);
+      scroller.setSize("100%", "100%");
+      return scroller;
+   }
+
    public HandlerRegistration addCloseHandler(CloseHandler<RequestLogVisualization> handler)
    {
       return addHandler(handler, CloseEvent.getType());
@@ -290,6 +359,22 @@ public class RequestLogVisualization extends Composite
                                                      null);
             dialog.showModal();
          }
+         else if (keyCode == 'S')
+         {
+            detail_.setWidget(createStatsWidget());
+         }
+         else if (keyCode == 'D')
+         {
+            detail_.setWidget(createCountersWidget());
+         }
+         else if (keyCode == 'X')
+         {
+            TextBoxDialog dialog = new TextBoxDialog(
+                                          "Export Statistics",
+                                          RequestLog.getStatsSnapshot(),
+                                          null);
+            dialog.showModal();
+         }
          else if (keyCode == 'I')
          {
             TextBoxDialog dialog = new TextBoxDialog(
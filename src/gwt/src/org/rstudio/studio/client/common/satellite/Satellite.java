@@ -14,8 +14,11 @@
  */
 package org.rstudio.studio.client.common.satellite;
 
+import java.util.ArrayList;
+
 import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.dom.WindowEx;
+import org.rstudio.core.client.js.JsUtil;
 import org.rstudio.studio.client.application.Desktop;
 import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.common.satellite.events.SatelliteFocusedEvent;
@@ -27,6 +30,7 @@ import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.event.dom.client.FocusEvent;
 import com.google.gwt.event.dom.client.FocusHandler;
 import com.google.gwt.event.logical.shared.CloseEvent;
@@ -189,6 +193,9 @@ public class Satellite implements HasCloseHandlers<Satellite>
 
       // register (this will call the setSessionInfo back)
       $wnd.opener.registerAsRStudioSatellite(name, $wnd);
+      
+      // tell the main window which events we have no handlers for
+      satellite.@org.rstudio.studio.client.common.satellite.Satellite::updateEventSubscriptions()();
    }-*/;
    
    
@@ -230,6 +237,23 @@ public class Satellite implements HasCloseHandlers<Satellite>
       $wnd.opener.focus();
    }-*/;
    
+   // tell the main window which client events to leave out when it forwards
+   // server events to us (called again whenever the event bus gets its first
+   // handler for an event type)
+   public void updateEventSubscriptions()
+   {
+      ArrayList<String> types = 
+            ClientEventDispatcher.getUnhandledEventTypes(events_);
+      setUnhandledEventTypes(getSatelliteName(), 
+                             JsUtil.toJsArrayString(types));
+   }
+   
+   private native void setUnhandledEventTypes(String name, 
+                                              JsArrayString types) /*-{
+      if ($wnd.opener && $wnd.opener.setRStudioSatelliteUnhandledEvents)
+         $wnd.opener.setRStudioSatelliteUnhandledEvents(name, types);
+   }-*/;
+   
    // called by main window to initialize sessionInfo
    private void setSessionInfo(JavaScriptObject si)
    {
@@ -16,6 +16,7 @@ package org.rstudio.studio.client.common.satellite;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map.Entry;
 
 import com.google.inject.Provider;
@@ -40,11 +41,14 @@ import org.rstudio.studio.client.common.satellite.events.AllSatellitesClosingEve
 import org.rstudio.studio.client.common.satellite.events.SatelliteClosedEvent;
 import org.rstudio.studio.client.common.satellite.events.WindowClosedEvent;
 import org.rstudio.studio.client.common.satellite.events.WindowOpenedEvent;
+import org.rstudio.studio.client.server.remote.ClientEvent;
+import org.rstudio.studio.client.server.remote.ClientEventDispatcher;
 import org.rstudio.studio.client.workbench.model.Session;
 import org.rstudio.studio.client.workbench.model.SessionInfo;
 import org.rstudio.studio.client.workbench.views.source.SourceWindowManager;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.dom.client.Document;
 import com.google.gwt.event.logical.shared.CloseEvent;
 import com.google.gwt.event.logical.shared.CloseHandler;
@@ -180,12 +184,11 @@ public class SatelliteManager implements CloseHandler<Window>
       }
       
       // Start buffering events sent to this satellite. That way, we won't miss
-      // anything while the satellite is being loaded/reactivated
+      // anything while the satellite is being loaded/reactivated (events it
+      // reported having no handlers for aren't buffered; a new window gets
+      // everything until it reports them)
       if (!pendingEventsBySatelliteName_.containsKey(name))
-      {
-         pendingEventsBySatelliteName_.put(name,
-                                           new ArrayList<JavaScriptObject>());
-      }
+         pendingEventsBySatelliteName_.put(name, new PendingEvents());
 
       // record satellite params for subsequent setting (this value is read
       // by the satellite within the call to registerAsSatellite)
@@ -303,6 +306,9 @@ public class SatelliteManager implements CloseHandler<Window>
       } 
       satellites_.clear();
       pendingEventsBySatelliteName_.clear();
+      unhandledEventTypes_.clear();
+      reloadCounts_.clear();
+      reloadingSatellites_.clear();
    }
    
    public String getWindowAtPoint(int x, int y)
@@ -342,6 +348,8 @@ public class SatelliteManager implements CloseHandler<Window>
    // dispatch an event to all satellites
    public void dispatchClientEvent(JavaScriptObject clientEvent)
    {
+      String type = clientEvent.<ClientEvent>cast().getType();
+      
       // list of windows to remove (because they were closed)
       ArrayList<ActiveSatellite> removeWindows = null;
         
@@ -358,6 +366,10 @@ public class SatelliteManager implements CloseHandler<Window>
             // them
             if (pendingEventsBySatelliteName_.containsKey(satellite.getName()))
                continue;
+            
+            // don't send events the satellite has no handlers for
+            if (isEventTypeUnhandled(satellite.getName(), type))
+               continue;
 
             WindowEx satelliteWnd = satellite.getWindow();
             if (satelliteWnd.isClosed())
@@ -376,10 +388,11 @@ public class SatelliteManager implements CloseHandler<Window>
          }
       }
 
-      for (Entry<String, ArrayList<JavaScriptObject>> entry :
+      for (Entry<String, PendingEvents> entry :
                                        pendingEventsBySatelliteName_.entrySet())
       {
-         entry.getValue().add(clientEvent);
+         if (!isEventTypeUnhandled(entry.getKey(), type))
+            entry.getValue().add(clientEvent.<ClientEvent>cast());
       }
       
       // remove windows if necessary
@@ -388,6 +401,7 @@ public class SatelliteManager implements CloseHandler<Window>
          for (ActiveSatellite satellite : removeWindows)
          {
             satellites_.remove(satellite);
+            unhandledEventTypes_.remove(satellite.getName());
          }
       }
    }
@@ -482,6 +496,7 @@ public class SatelliteManager implements CloseHandler<Window>
          name = SatelliteUtils.getWindowNameFromSatelliteName(name);
       events_.fireEvent(new WindowClosedEvent(name));
       events_.fireEvent(new SatelliteClosedEvent(name));
+      unhandledEventTypes_.remove(name);
 
       // remove this satellite from the list of active satellites; ordinarily
       // we'd rely on the window object's isClosed() method, but it's possible
@@ -499,10 +514,29 @@ public class SatelliteManager implements CloseHandler<Window>
 
    private void flushPendingEvents(String name)
    {
-      ArrayList<JavaScriptObject> events =
-                                    pendingEventsBySatelliteName_.remove(name);
+      PendingEvents pending = pendingEventsBySatelliteName_.remove(name);
 
-      if (events == null || events.size() == 0)
+      if (pending == null)
+         return;
+      
+      if (pending.hasOverflowed())
+      {
+         // reload the satellite so that it starts over from the current
+         // state, but only once: if it overflows again while reloading
+         // (e.g. during a burst of output) then reloading again won't help,
+         // so it just misses the dropped events
+         Integer reloads = reloadCounts_.get(name);
+         int reloadCount = reloads == null ? 0 : reloads;
+         if (reloadCount < MAX_SATELLITE_RELOADS)
+         {
+            reloadCounts_.put(name, reloadCount + 1);
+            reloadSatellite(name);
+            return;
+         }
+      }
+      reloadCounts_.remove(name);
+      
+      if (pending.isEmpty())
          return;
 
       for (ActiveSatellite satellite :
@@ -511,8 +545,13 @@ public class SatelliteManager implements CloseHandler<Window>
          if (satellite.getName().equals(name)
              && !satellite.getWindow().isClosed())
          {
-            for (JavaScriptObject evt : events)
+            for (ClientEvent evt : pending.getEvents())
             {
+               // the satellite may have reported its handlers since the
+               // event was buffered
+               if (isEventTypeUnhandled(name, evt.getType()))
+                  continue;
+               
                try
                {
                   callDispatchEvent(satellite.getWindow(), evt);
@@ -526,6 +565,43 @@ public class SatelliteManager implements CloseHandler<Window>
       }
    }
    
+   // reload a satellite which missed events while it was loading, so that
+   // it starts over from the current state (events are buffered again
+   // until it has loaded)
+   private void reloadSatellite(String name)
+   {
+      WindowEx window = getSatelliteWindowObject(name);
+      if (window == null)
+         return;
+      
+      pendingEventsBySatelliteName_.put(name, new PendingEvents());
+      reloadingSatellites_.add(name);
+      callNotifyPendingReactivate(window);
+      window.reload();
+   }
+   
+   // called by satellites with the client event types they have no
+   // handlers for
+   private void setUnhandledEventTypes(String name, JsArrayString types)
+   {
+      HashSet<String> unhandled = new HashSet<String>();
+      for (int i = 0; i < types.length(); i++)
+         unhandled.add(types.get(i));
+      unhandledEventTypes_.put(name, unhandled);
+      
+      // events buffered before we knew the satellite wouldn't handle them
+      // needn't be delivered (and don't count towards an overflow)
+      PendingEvents pending = pendingEventsBySatelliteName_.get(name);
+      if (pending != null)
+         pending.removeTypes(unhandled);
+   }
+   
+   private boolean isEventTypeUnhandled(String name, String type)
+   {
+      HashSet<String> unhandled = unhandledEventTypes_.get(name);
+      return unhandled != null && unhandled.contains(type);
+   }
+   
    // export the global function required for satellites to register
    private native void exportSatelliteRegistrationCallback() /*-{
       var manager = this;     
@@ -534,6 +610,11 @@ public class SatelliteManager implements CloseHandler<Window>
             manager.@org.rstudio.studio.client.common.satellite.SatelliteManager::registerAsSatellite(Ljava/lang/String;Lcom/google/gwt/core/client/JavaScriptObject;)(name, satelliteWnd);
          }
       );
+      $wnd.setRStudioSatelliteUnhandledEvents = $entry(
+         function(name, types) {
+            manager.@org.rstudio.studio.client.common.satellite.SatelliteManager::setUnhandledEventTypes(Ljava/lang/String;Lcom/google/gwt/core/client/JsArrayString;)(name, types);
+         }
+      );
       $wnd.flushPendingEvents = $entry(
          function(name) {
             manager.@org.rstudio.studio.client.common.satellite.SatelliteManager::flushPendingEvents(Ljava/lang/String;)(name);
@@ -583,6 +664,14 @@ public class SatelliteManager implements CloseHandler<Window>
    private void notifyRStudioSatelliteClosed(String name)
    {
       events_.fireEvent(new SatelliteClosedEvent(name));
+      
+      // a satellite we reloaded is unloaded on its way back, and will have
+      // the same handlers when it returns
+      if (reloadingSatellites_.remove(name))
+         return;
+      
+      unhandledEventTypes_.remove(name);
+      reloadCounts_.remove(name);
    }
    
    // call setSessionInfo on a satellite
@@ -658,8 +747,115 @@ public class SatelliteManager implements CloseHandler<Window>
    private final HashMap<String,JavaScriptObject> satelliteParams_ = 
                                 new HashMap<String,JavaScriptObject>();
 
-   private final HashMap<String, ArrayList<JavaScriptObject>>
-         pendingEventsBySatelliteName_ = new HashMap<String, ArrayList<JavaScriptObject>>();
+   private final HashMap<String, PendingEvents>
+         pendingEventsBySatelliteName_ = new HashMap<String, PendingEvents>();
+   
+   // client event types each satellite has no handlers for; satellites
+   // which haven't reported any are sent every event
+   private final HashMap<String, HashSet<String>> unhandledEventTypes_ =
+         new HashMap<String, HashSet<String>>();
+   
+   // reloads made for each satellite since its events last fit the buffer,
+   // and the satellites currently being reloaded
+   private final HashMap<String, Integer> reloadCounts_ =
+         new HashMap<String, Integer>();
+   private final HashSet<String> reloadingSatellites_ = new HashSet<String>();
+   
+   // events held for a satellite which is still loading. runs of console
+   // output are merged and state events which are superseded by a later
+   // event of the same type are dropped. if too many events remain, the
+   // satellite can't be brought up to date by replaying them, so they're
+   // discarded (noting their types) and the satellite is reloaded once it
+   // has loaded, unless it turns out not to handle any of those types
+   private static class PendingEvents
+   {
+      public void add(ClientEvent event)
+      {
+         if (hasOverflowed())
+         {
+            droppedTypes_.add(event.getType());
+            return;
+         }
+         
+         String type = event.getType();
+         if (SUPERSEDED_EVENT_TYPES.contains(type))
+         {
+            for (int i = events_.size() - 1; i >= 0; i--)
+            {
+               if (events_.get(i).getType().equals(type))
+               {
+                  events_.remove(i);
+                  break;
+               }
+            }
+         }
+         else if (!events_.isEmpty())
+         {
+            ClientEvent merged = ClientEventDispatcher.mergeEvents(
+                  events_.get(events_.size() - 1), event);
+            if (merged != null)
+            {
+               events_.set(events_.size() - 1, merged);
+               return;
+            }
+         }
+         
+         events_.add(event);
+         if (events_.size() > MAX_PENDING_EVENTS)
+         {
+            for (ClientEvent dropped : events_)
+               droppedTypes_.add(dropped.getType());
+            events_.clear();
+         }
+      }
+      
+      public void removeTypes(HashSet<String> types)
+      {
+         ArrayList<ClientEvent> events = new ArrayList<ClientEvent>();
+         for (ClientEvent event : events_)
+         {
+            if (!types.contains(event.getType()))
+               events.add(event);
+         }
+         events_ = events;
+         droppedTypes_.removeAll(types);
+      }
+      
+      public boolean isEmpty()
+      {
+         return events_.isEmpty();
+      }
+      
+      public ArrayList<ClientEvent> getEvents()
+      {
+         return events_;
+      }
+      
+      public boolean hasOverflowed()
+      {
+         return !droppedTypes_.isEmpty();
+      }
+      
+      private ArrayList<ClientEvent> events_ = new ArrayList<ClientEvent>();
+      private final HashSet<String> droppedTypes_ = new HashSet<String>();
+   }
+   
+   // events which carry the complete state they describe, so only the most
+   // recent one of each type needs to be delivered
+   private static final HashSet<String> SUPERSEDED_EVENT_TYPES =
+         new HashSet<String>();
+   static
+   {
+      SUPERSEDED_EVENT_TYPES.add(ClientEvent.Busy);
+      SUPERSEDED_EVENT_TYPES.add(ClientEvent.WorkingDirChanged);
+      SUPERSEDED_EVENT_TYPES.add(ClientEvent.PlotsStateChanged);
+      SUPERSEDED_EVENT_TYPES.add(ClientEvent.ContextDepthChanged);
+      SUPERSEDED_EVENT_TYPES.add(ClientEvent.BrowserLineChanged);
+      SUPERSEDED_EVENT_TYPES.add(ClientEvent.EnvironmentRefresh);
+   }
+   
+   private static final int MAX_PENDING_EVENTS = 1000;
+   private static final int MAX_SATELLITE_RELOADS = 1;
 
    private class ActiveSatellite
    {
@@ -0,0 +1,379 @@
+/*
+ * ShellOutputBuffer.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.common.shell;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Node;
+import com.google.gwt.dom.client.SpanElement;
+import com.google.gwt.dom.client.Text;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.user.client.ui.ScrollPanel;
+
+import org.rstudio.core.client.dom.DomUtils;
+
+/**
+ * Holds the output of a shell as a sequence of blocks of roughly
+ * BLOCK_LINES lines each. Blocks that are scrolled well outside the
+ * viewport are retired: their content is reduced to a compact list of
+ * text/class segments and their DOM is replaced by an empty placeholder
+ * of the same height. Retired blocks are rebuilt when they are scrolled
+ * back into view, so the size of the live DOM depends on the size of the
+ * viewport rather than on the length of the scrollback.
+ */
+public class ShellOutputBuffer
+{
+   public ShellOutputBuffer(Element container, ScrollPanel scrollPanel)
+   {
+      container_ = container;
+      scrollPanel_ = scrollPanel;
+   }
+
+   public void append(Node node, int lines)
+   {
+      // blocks are laid out as separate boxes, so only start a new one
+      // where the output would start a new line anyway
+      Block block = blocks_.isEmpty() ? null : blocks_.get(blocks_.size() - 1);
+      if (block == null ||
+          (block.lines >= BLOCK_LINES &&
+           endsWithNewline(block.element.getLastChild())))
+      {
+         block = new Block();
+         container_.appendChild(block.element);
+         blocks_.add(block);
+      }
+
+      block.element.appendChild(node);
+      block.lines += lines;
+      lines_ += lines;
+   }
+
+   public void prepend(Node node, int lines)
+   {
+      Block block = blocks_.isEmpty() ? null : blocks_.get(0);
+      if (block == null ||
+          ((block.isRetired() || block.lines >= BLOCK_LINES) &&
+           endsWithNewline(node)))
+      {
+         block = new Block();
+         container_.insertFirst(block.element);
+         blocks_.add(0, block);
+      }
+      else if (block.isRetired())
+      {
+         block.materialize();
+      }
+
+      block.element.insertFirst(node);
+      block.lines += lines;
+      lines_ += lines;
+   }
+
+   // records a change in the number of lines held by a node which has
+   // already been added to the buffer (e.g. trailing output overwritten
+   // by later output)
+   public void adjustLines(Node node, int delta)
+   {
+      Block block = findBlock(node);
+      if (block != null)
+         block.lines += delta;
+      lines_ += delta;
+   }
+
+   public Node getLastNode()
+   {
+      if (blocks_.isEmpty())
+         return null;
+      return blocks_.get(blocks_.size() - 1).element.getLastChild();
+   }
+
+   public boolean isFirstNodeText()
+   {
+      if (blocks_.isEmpty())
+         return false;
+
+      Block block = blocks_.get(0);
+      if (block.isRetired())
+      {
+         return !block.segments.isEmpty() &&
+                block.segments.get(0).node == null &&
+                block.segments.get(0).className == null;
+      }
+
+      Node first = block.element.getFirstChild();
+      return first != null && first.getNodeType() == Node.TEXT_NODE;
+   }
+
+   public int getLineCount()
+   {
+      return lines_;
+   }
+
+   // removes lines from the top of the buffer until at most maxLines
+   // remain; returns true if anything was removed
+   public boolean trim(int maxLines)
+   {
+      if (maxLines <= 0 || lines_ <= maxLines)
+         return false;
+
+      // whole blocks can be dropped without looking at their content
+      while (blocks_.size() > 1 && lines_ - blocks_.get(0).lines >= maxLines)
+      {
+         Block block = blocks_.remove(0);
+         block.element.removeFromParent();
+         lines_ -= block.lines;
+      }
+
+      int linesToTrim = lines_ - maxLines;
+      if (linesToTrim > 0)
+      {
+         Block block = blocks_.get(0);
+         if (block.isRetired())
+            block.materialize();
+         int trimmed = DomUtils.trimLines(block.element, linesToTrim);
+         block.lines -= trimmed;
+         lines_ -= trimmed;
+      }
+
+      return true;
+   }
+
+   public void clear()
+   {
+      container_.setInnerHTML("");
+      blocks_.clear();
+      lines_ = 0;
+   }
+
+   /**
+    * Retires blocks that are far from the viewport and rebuilds retired
+    * blocks that are near it. Blocks holding any of the given pinned nodes
+    * (and the last block, which receives new output) are never retired.
+    */
+   public void update(Collection<? extends Node> pinned)
+   {
+      if (blocks_.size() < 2)
+         return;
+
+      int viewportHeight = scrollPanel_.getOffsetHeight();
+      if (viewportHeight <= 0)
+         return;  // not visible, so nothing can be measured
+
+      int scrollTop = scrollPanel_.getVerticalScrollPosition();
+      int viewportTop = scrollPanel_.getElement().getAbsoluteTop();
+      int materializeMargin = viewportHeight;
+      int retireMargin = viewportHeight * 2;
+
+      // measure everything before changing anything, so that layout is
+      // computed only once
+      ArrayList<Block> toRetire = new ArrayList<Block>();
+      ArrayList<Block> toMaterialize = new ArrayList<Block>();
+      int[] tops = new int[blocks_.size()];
+      for (int i = 0; i < blocks_.size(); i++)
+      {
+         Block block = blocks_.get(i);
+         int top = block.element.getAbsoluteTop() - viewportTop;
+         int height = block.element.getOffsetHeight();
+         int bottom = top + height;
+         tops[i] = top;
+
+         if (block.isRetired())
+         {
+            if (bottom > -materializeMargin &&
+                top < viewportHeight + materializeMargin)
+            {
+               toMaterialize.add(block);
+            }
+         }
+         else if (i < blocks_.size() - 1 &&
+                  (bottom < -retireMargin ||
+                   top > viewportHeight + retireMargin) &&
+                  !isPinned(block, pinned))
+         {
+            block.height = height;
+            toRetire.add(block);
+         }
+      }
+
+      for (Block block : toRetire)
+         block.retire();
+
+      if (toMaterialize.isEmpty())
+         return;
+
+      for (Block block : toMaterialize)
+         block.materialize();
+
+      // if the viewport width changed since a block above the viewport was
+      // retired its height may now differ from its placeholder; keep the
+      // visible content in place
+      int delta = 0;
+      for (int i = 0; i < blocks_.size(); i++)
+      {
+         Block block = blocks_.get(i);
+         if (tops[i] >= 0)
+            break;
+         if (toMaterialize.contains(block))
+            delta += block.element.getOffsetHeight() - block.height;
+      }
+      if (delta != 0)
+         scrollPanel_.setVerticalScrollPosition(scrollTop + delta);
+   }
+
+   private boolean isPinned(Block block, Collection<? extends Node> pinned)
+   {
+      if (pinned == null)
+         return false;
+      for (Node node : pinned)
+      {
+         if (node != null && node.getParentElement() == block.element)
+            return true;
+      }
+      return false;
+   }
+
+   private static boolean endsWithNewline(Node node)
+   {
+      if (node == null)
+         return true;
+
+      String text;
+      if (node.getNodeType() == Node.TEXT_NODE)
+         text = ((Text) node).getData();
+      else if (node.getNodeType() == Node.ELEMENT_NODE)
+         text = ((Element) node).getInnerText();
+      else
+         return false;
+
+      return text.endsWith("\n");
+   }
+
+   private Block findBlock(Node node)
+   {
+      Element parent = node.getParentElement();
+      for (int i = blocks_.size() - 1; i >= 0; i--)
+      {
+         if (blocks_.get(i).element == parent)
+            return blocks_.get(i);
+      }
+      return null;
+   }
+
+   private static class Segment
+   {
+      public Segment(String text, String className, Node node)
+      {
+         this.text = text;
+         this.className = className;
+         this.node = node;
+      }
+
+      public final String text;
+      public final String className;
+
+      // content that can't be represented as text (e.g. an extended error
+      // widget) is kept as is
+      public final Node node;
+   }
+
+   private static class Block
+   {
+      public Block()
+      {
+         element = Document.get().createDivElement();
+      }
+
+      public boolean isRetired()
+      {
+         return segments != null;
+      }
+
+      public void retire()
+      {
+         segments = new ArrayList<Segment>();
+         for (Node child = element.getFirstChild();
+              child != null;
+              child = child.getNextSibling())
+         {
+            segments.add(toSegment(child));
+         }
+
+         element.setInnerHTML("");
+         element.getStyle().setHeight(height, Unit.PX);
+      }
+
+      public void materialize()
+      {
+         Document doc = Document.get();
+         for (Segment segment : segments)
+         {
+            if (segment.node != null)
+            {
+               element.appendChild(segment.node);
+            }
+            else if (segment.className == null)
+            {
+               element.appendChild(doc.createTextNode(segment.text));
+            }
+            else
+            {
+               SpanElement span = doc.createSpanElement();
+               span.setClassName(segment.className);
+               span.setInnerText(segment.text);
+               element.appendChild(span);
+            }
+         }
+
+         segments = null;
+         element.getStyle().clearHeight();
+      }
+
+      private static Segment toSegment(Node node)
+      {
+         if (node.getNodeType() == Node.TEXT_NODE)
+            return new Segment(((Text) node).getData(), null, null);
+
+         if (node.getNodeType() == Node.ELEMENT_NODE)
+         {
+            Element el = (Element) node;
+            Node child = el.getFirstChild();
+            if (el.getTagName().equalsIgnoreCase("span") &&
+                (child == null ||
+                 (child.getNextSibling() == null &&
+                  child.getNodeType() == Node.TEXT_NODE)))
+            {
+               return new Segment(el.getInnerText(), el.getClassName(), null);
+            }
+         }
+
+         return new Segment(null, null, node);
+      }
+
+      public final Element element;
+      public int lines;
+      public int height;
+      public ArrayList<Segment> segments;
+   }
+
+   private final Element container_;
+   private final ScrollPanel scrollPanel_;
+   private final ArrayList<Block> blocks_ = new ArrayList<Block>();
+   private int lines_ = 0;
+
+   private static final int BLOCK_LINES = 100;
+}
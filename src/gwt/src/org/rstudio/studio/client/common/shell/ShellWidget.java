@@ -14,6 +14,7 @@
  */
 package org.rstudio.studio.client.common.shell;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -30,6 +31,7 @@ import com.google.gwt.event.dom.client.*;
 import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.gwt.user.client.ui.*;
 
+import org.rstudio.core.client.DiagnosticCounters;
 import org.rstudio.core.client.ElementIds;
 import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.TimeBufferedCommand;
@@ -166,9 +168,35 @@ public class ShellWidget extends Composite implements ShellDisplay,
       scrollPanel_.addStyleName("ace_scroller");
       scrollPanel_.addClickHandler(secondaryInputHandler);
       scrollPanel_.addKeyDownHandler(secondaryInputHandler);
+      scrollPanel_.addScrollHandler(new ScrollHandler()
+      {
+         @Override
+         public void onScroll(ScrollEvent event)
+         {
+            virtualizeCommand_.nudge();
+            onPlaybackScroll();
+         }
+      });
 
       secondaryInputHandler.setInput(editor);
 
+      outputBuffer_ = new ShellOutputBuffer(output_.getElement(), scrollPanel_);
+      virtualizeCommand_ = new TimeBufferedCommand(50)
+      {
+         @Override
+         protected void performAction(boolean shouldSchedulePassive)
+         {
+            // don't disturb content that the user may be selecting
+            if (DomUtils.selectionExists())
+               return;
+
+            ArrayList<Node> pinned = new ArrayList<Node>(errorNodes_.values());
+            if (trailingOutput_ != null)
+               pinned.add(trailingOutput_);
+            outputBuffer_.update(pinned);
+         }
+      };
+
       resizeCommand_ = new TimeBufferedCommand(5)
       {
          @Override
@@ -177,6 +205,7 @@ public class ShellWidget extends Composite implements ShellDisplay,
             scrollPanel_.onContentSizeChanged();
             if (!DomUtils.selectionExists() && scrollPanel_.isScrolledToBottom())
                scrollPanel_.scrollToBottom();
+            virtualizeCommand_.nudge();
          }
       };
 
@@ -246,9 +275,7 @@ public class ShellWidget extends Composite implements ShellDisplay,
       // Pick up the last element emitted to the console. If we get extended
       // information for this error, we'll need to swap out the simple error
       // element for the extended error element. 
-      Element outputElement = output_.getElement();
-      Node errorNode = outputElement.getChild(
-            outputElement.getChildCount() - 1);
+      Node errorNode = outputBuffer_.getLastNode();
       if (clearErrors_)
       {
          errorNodes_.clear();
@@ -264,6 +291,12 @@ public class ShellWidget extends Composite implements ShellDisplay,
       if (errorNodes_.containsKey(error))
       {
          Node errorNode = errorNodes_.get(error);
+         errorNodes_.remove(error);
+
+         // the error may since have been trimmed from the console
+         if (errorNode.getParentElement() == null)
+            return;
+
          clearPendingInput();
          ConsoleError errorWidget = new ConsoleError(
                traceInfo, getErrorClass(), this, command);
@@ -271,11 +304,10 @@ public class ShellWidget extends Composite implements ShellDisplay,
          if (expand)
             errorWidget.setTracebackVisible(true);
          
-         output_.getElement().replaceChild(errorWidget.getElement(), 
-                                           errorNode);
+         errorNode.getParentElement().replaceChild(errorWidget.getElement(),
+                                                   errorNode);
          
          scrollPanel_.onContentSizeChanged();
-         errorNodes_.remove(error);
       }
    }
    
@@ -361,12 +393,11 @@ public class ShellWidget extends Composite implements ShellDisplay,
          trailingOutput_.setNodeValue(
                ensureNewLine(trailingOutputConsole_.toString()));
          int newLineCount = DomUtils.countLines(trailingOutput_, true);
-         lines_ += newLineCount - oldLineCount;
+         outputBuffer_.adjustLines(trailingOutput_,
+                                   newLineCount - oldLineCount);
       }
       else
       {
-         Element outEl = output_.getElement();
-
          text = VirtualConsole.consolify(text);
          if (isOutput)
          {
@@ -388,9 +419,7 @@ public class ShellWidget extends Composite implements ShellDisplay,
             // If we're prepending output to the top of the console, then
             // it's safe to add a newline if the next chunk (which is already
             // there) is something besides output.
-            if (!addToTop ||
-                (!outEl.hasChildNodes()
-                 || outEl.getFirstChild().getNodeType() != Node.TEXT_NODE))
+            if (!addToTop || !outputBuffer_.isFirstNodeText())
             {
                consoleSnapshot = ensureNewLine(consoleSnapshot);
             }
@@ -415,12 +444,11 @@ public class ShellWidget extends Composite implements ShellDisplay,
             }
          }
 
+         int lines = DomUtils.countLines(node, true);
          if (addToTop)
-            outEl.insertFirst(node);
+            outputBuffer_.prepend(node, lines);
          else
-            outEl.appendChild(node);
-
-         lines_ += DomUtils.countLines(node, true);
+            outputBuffer_.append(node, lines);
       }
       boolean result = !trimExcess();
 
@@ -442,69 +470,215 @@ public class ShellWidget extends Composite implements ShellDisplay,
       if (maxLines_ <= 0)
          return false;  // No limit in effect
 
-      int linesToTrim = lines_ - maxLines_;
-      if (linesToTrim > 0)
+      return outputBuffer_.trim(maxLines_);
+   }
+
+   /**
+    * Replays saved console actions (e.g. on reconnect). The most recent
+    * actions are rendered first, in time-budgeted steps, until they fill
+    * the viewport; at that point the console is considered interactive.
+    * Older actions are then backfilled only as the user scrolls up towards
+    * them.
+    */
+   public void playbackActions(final RpcObjectList<ConsoleAction> actions)
+   {
+      cleared_ = false;
+      playbackStats_ = new PlaybackStats(actions.length());
+      playback_ = new Playback(actions, playbackStats_);
+      playback_.schedule();
+      
+      if (playbackCounters_ == null)
       {
-         lines_ -= DomUtils.trimLines(output_.getElement(),
-                                      lines_ - maxLines_);
-         return true;
+         playbackCounters_ = DiagnosticCounters.register("Console playback",
+               new DiagnosticCounters.Source()
+         {
+            @Override
+            public void collect(DiagnosticCounters.Collector collector)
+            {
+               PlaybackStats stats = playbackStats_;
+               collector.add("Actions", stats.getActionCount());
+               collector.add("Played", stats.getPlayedCount());
+               collector.add("Steps", stats.getStepCount());
+               collector.add("Time to interactive ms",
+                             stats.getTimeToInteractiveMillis());
+               collector.add("Total ms", stats.getTotalMillis());
+            }
+         });
       }
+   }
 
+   private boolean playbackAction(ConsoleAction action)
+   {
+      switch (action.getType())
+      {
+         case ConsoleAction.INPUT:
+            return output(action.getData() + "\n",
+                          styles_.command() + " " + KEYWORD_CLASS_NAME,
+                          true);
+         case ConsoleAction.OUTPUT:
+            return output(action.getData(),
+                          styles_.output(),
+                          true);
+         case ConsoleAction.ERROR:
+            return output(action.getData(),
+                          styles_.error(),
+                          true);
+         case ConsoleAction.PROMPT:
+            return output(action.getData(),
+                          styles_.prompt() + " " + KEYWORD_CLASS_NAME,
+                          true);
+      }
       return false;
    }
 
-   public void playbackActions(final RpcObjectList<ConsoleAction> actions)
+   private void onPlaybackScroll()
    {
-      Scheduler.get().scheduleIncremental(new RepeatingCommand()
+      if (playback_ != null &&
+          scrollPanel_.getVerticalScrollPosition() < scrollPanel_.getOffsetHeight())
       {
-         private int i = actions.length() - 1;
-         private int chunksize = 1000;
+         playback_.schedule();
+      }
+   }
 
-         public boolean execute()
-         {
-            int end = i - chunksize;
-            chunksize = 10;
-            for (; i > end && i >= 0; i--)
-            {
-               // User hit Ctrl+L at some point--we're done.
-               if (cleared_)
-                  return false;
+   private class Playback implements RepeatingCommand
+   {
+      public Playback(RpcObjectList<ConsoleAction> actions, PlaybackStats stats)
+      {
+         actions_ = actions;
+         stats_ = stats;
+         index_ = actions.length() - 1;
+         startTime_ = System.currentTimeMillis();
+      }
 
-               boolean canContinue = false;
+      public void schedule()
+      {
+         if (scheduled_)
+            return;
+         scheduled_ = true;
+         Scheduler.get().scheduleIncremental(this);
+      }
 
-               ConsoleAction action = actions.get(i);
-               switch (action.getType())
-               {
-                  case ConsoleAction.INPUT:
-                     canContinue = output(action.getData() + "\n",
-                                          styles_.command() + " " + KEYWORD_CLASS_NAME,
-                                          true);
-                     break;
-                  case ConsoleAction.OUTPUT:
-                     canContinue = output(action.getData(),
-                                          styles_.output(),
-                                          true);
-                     break;
-                  case ConsoleAction.ERROR:
-                     canContinue = output(action.getData(),
-                                          styles_.error(),
-                                          true);
-                     break;
-                  case ConsoleAction.PROMPT:
-                     canContinue = output(action.getData(),
-                                          styles_.prompt() + " " + KEYWORD_CLASS_NAME,
-                                          true);
-                     break;
-               }
-               if (!canContinue)
-                  return false;
-            }
+      public boolean execute()
+      {
+         // superseded by another playback
+         if (playback_ != this)
+            return false;
+
+         Element scroller = scrollPanel_.getElement();
+         int oldScrollHeight = scroller.getScrollHeight();
+         int oldScrollTop = scrollPanel_.getVerticalScrollPosition();
+
+         long stepStart = System.currentTimeMillis();
+         boolean done = false;
+         while (!done &&
+                System.currentTimeMillis() - stepStart < PLAYBACK_BUDGET_MILLIS)
+         {
+            // User hit Ctrl+L at some point--we're done.
+            if (index_ < 0 || cleared_)
+               done = true;
+            else if (!playbackAction(actions_.get(index_--)))
+               done = true;
+            else
+               stats_.played_++;
+         }
+         stats_.steps_++;
+
+         if (!stats_.isInteractive())
+         {
             if (!DomUtils.selectionExists())
                scrollPanel_.scrollToBottom();
+         }
+         else
+         {
+            // keep whatever the user is looking at in place as older
+            // output is added above it
+            int delta = scroller.getScrollHeight() - oldScrollHeight;
+            if (delta != 0)
+               scrollPanel_.setVerticalScrollPosition(oldScrollTop + delta);
+         }
+
+         int viewportHeight = scrollPanel_.getOffsetHeight();
+         boolean tailFilled = viewportHeight > 0 &&
+               scroller.getScrollHeight() >= viewportHeight * PLAYBACK_TAIL_SCREENS;
 
-            return i >= 0;
+         if (!stats_.isInteractive() && (done || tailFilled))
+            stats_.timeToInteractive_ = System.currentTimeMillis() - startTime_;
+
+         if (done)
+         {
+            stats_.totalMillis_ = System.currentTimeMillis() - startTime_;
+            playback_ = null;
+            scheduled_ = false;
+            return false;
          }
-      });
+
+         // once the tail is visible, only keep going while the user is
+         // near the top of the output
+         if (tailFilled &&
+             scrollPanel_.getVerticalScrollPosition() >= viewportHeight)
+         {
+            scheduled_ = false;
+            return false;
+         }
+
+         return true;
+      }
+
+      private final RpcObjectList<ConsoleAction> actions_;
+      private final PlaybackStats stats_;
+      private final long startTime_;
+      private int index_;
+      private boolean scheduled_;
+   }
+
+   /**
+    * Timings for the most recent console playback.
+    */
+   private static class PlaybackStats
+   {
+      public PlaybackStats(int actions)
+      {
+         actions_ = actions;
+      }
+
+      public int getActionCount()
+      {
+         return actions_;
+      }
+
+      public int getPlayedCount()
+      {
+         return played_;
+      }
+
+      public int getStepCount()
+      {
+         return steps_;
+      }
+
+      public boolean isInteractive()
+      {
+         return timeToInteractive_ >= 0;
+      }
+
+      // time until the most recent output filled the viewport, or -1
+      public long getTimeToInteractiveMillis()
+      {
+         return timeToInteractive_;
+      }
+
+      // time until all actions were played back, or -1 if some are still
+      // waiting to be backfilled
+      public long getTotalMillis()
+      {
+         return totalMillis_;
+      }
+
+      private final int actions_;
+      private int played_ = 0;
+      private int steps_ = 0;
+      private long timeToInteractive_ = -1;
+      private long totalMillis_ = -1;
    }
 
    public void focus()
@@ -613,8 +787,7 @@ public class ShellWidget extends Composite implements ShellDisplay,
 
    public void clearOutput()
    {
-      output_.setText("") ;
-      lines_ = 0;
+      outputBuffer_.clear();
       cleared_ = true;
       trailingOutput_ = null;
       trailingOutputConsole_ = null;
@@ -717,10 +890,15 @@ public class ShellWidget extends Composite implements ShellDisplay,
       scrollPanel_.onContentSizeChanged();
    }
    
-   private int lines_ = 0;
    private int maxLines_ = -1;
    private boolean cleared_ = false;
+   private Playback playback_;
+   private PlaybackStats playbackStats_;
+   private HandlerRegistration playbackCounters_;
    private final PreWidget output_ ;
+   // Output is held in blocks which are only rendered when near the viewport
+   private final ShellOutputBuffer outputBuffer_;
+   private final TimeBufferedCommand virtualizeCommand_;
    private PreWidget pendingInput_ ;
    // Save a reference to the most recent output text node in case the
    // next bit of output contains \b or \r control characters
@@ -741,4 +919,6 @@ public class ShellWidget extends Composite implements ShellDisplay,
    private boolean clearErrors_ = false;
 
    private static final String KEYWORD_CLASS_NAME = ConsoleResources.KEYWORD_CLASS_NAME;
+   private static final int PLAYBACK_BUDGET_MILLIS = 20;
+   private static final int PLAYBACK_TAIL_SCREENS = 2;
 }
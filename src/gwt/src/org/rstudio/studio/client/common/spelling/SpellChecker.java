@@ -159,6 +159,7 @@ public class SpellChecker
    public void addToUserDictionary(final String word)
    {
       userDictionary_.append(word);  
+      spellingService_.invalidateWord(word);
    }
    
    public void addIgnoredWord(String word)
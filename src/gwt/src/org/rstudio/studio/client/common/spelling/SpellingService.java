@@ -16,14 +16,23 @@
 package org.rstudio.studio.client.common.spelling;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import org.rstudio.core.client.container.LruCache;
+import org.rstudio.core.client.js.JsObject;
 import org.rstudio.core.client.js.JsUtil;
+import org.rstudio.studio.client.application.events.EventBus;
 import org.rstudio.studio.client.common.spelling.model.SpellCheckerResult;
 import org.rstudio.studio.client.common.spelling.model.SpellingServerOperations;
 import org.rstudio.studio.client.server.ServerError;
 import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.events.SessionInitEvent;
+import org.rstudio.studio.client.workbench.events.SessionInitHandler;
+import org.rstudio.studio.client.workbench.model.ClientState;
+import org.rstudio.studio.client.workbench.model.Session;
+import org.rstudio.studio.client.workbench.model.helper.JSObjectStateValue;
 import org.rstudio.studio.client.workbench.prefs.model.SpellingPrefsContext;
 import org.rstudio.studio.client.workbench.prefs.model.UIPrefs;
 
@@ -47,7 +56,9 @@ public class SpellingService implements HasChangeHandlers
 {
    @Inject
    public SpellingService(SpellingServerOperations server,
-                          UIPrefs uiPrefs)
+                          UIPrefs uiPrefs,
+                          final Session session,
+                          EventBus events)
    {
       server_ = server;
       uiPrefs_ = uiPrefs;
@@ -57,7 +68,7 @@ public class SpellingService implements HasChangeHandlers
          @Override
          public void onValueChange(ValueChangeEvent<String> event)
          {
-            invalidateCache();
+            onDictionariesChanged();
          }
       });
       
@@ -66,9 +77,27 @@ public class SpellingService implements HasChangeHandlers
          @Override
          public void onValueChange(ValueChangeEvent<JsArrayString> event)
          {
-            invalidateCache();
+            onDictionariesChanged();
          }
       });
+      
+      // restore results from previous sessions (we're usually created
+      // lazily, after the session has been initialized)
+      if (session.getSessionInfo() != null)
+      {
+         initPersistentCache(session);
+      }
+      else
+      {
+         events.addHandler(SessionInitEvent.TYPE, new SessionInitHandler()
+         {
+            @Override
+            public void onSessionInit(SessionInitEvent sie)
+            {
+               initPersistentCache(session);
+            }
+         });
+      }
    }
 
    public void checkSpelling(
@@ -83,7 +112,7 @@ public class SpellingService implements HasChangeHandlers
       for (int i = 0; i<words.size(); i++)
       {
          String word = words.get(i);
-         Boolean isCorrect = previousResults_.get(word);
+         Boolean isCorrect = getResults().get(word);
          if (isCorrect != null)
          {
             if (isCorrect)
@@ -104,33 +133,40 @@ public class SpellingService implements HasChangeHandlers
          return;
       }
       
-      // hit the server
+      // hit the server (results are cached for the dictionaries in use
+      // when the request was made)
+      final LruCache<String, Boolean> results = getResults();
       server_.checkSpelling(JsUtil.toJsArrayString(wordsToCheck), 
                             new ServerRequestCallback<JsArrayInteger>() {
 
          @Override
          public void onResponseReceived(JsArrayInteger result)
          {
-            // get misspelled indexes
-            ArrayList<Integer> misspelledIndexes = new ArrayList<Integer>();
+            // mark misspelled indexes
+            boolean[] misspelled = new boolean[wordsToCheck.size()];
             for (int i=0; i<result.length(); i++)
-               misspelledIndexes.add(result.get(i));
+            {
+               int index = result.get(i);
+               if (index >= 0 && index < misspelled.length)
+                  misspelled[index] = true;
+            }
             
             // determine correct/incorrect status and populate result & cache
             for (int i=0; i<wordsToCheck.size(); i++)
             {
                String word = wordsToCheck.get(i);
-               if (misspelledIndexes.contains(i))
+               if (misspelled[i])
                {
                   spellCheckerResult.getIncorrect().add(word);
-                  previousResults_.put(word, false);
+                  results.put(word, false);
                }
                else
                {
                   spellCheckerResult.getCorrect().add(word);
-                  previousResults_.put(word,  true);
+                  results.put(word,  true);
                }
             }
+            resultsDirty_ = true;
             
             // return result
             callback.onResponseReceived(spellCheckerResult);     
@@ -165,18 +201,175 @@ public class SpellingService implements HasChangeHandlers
    }
    
    public void installAllDictionaries(
-                  ServerRequestCallback<SpellingPrefsContext> requestCallback)
+         final ServerRequestCallback<SpellingPrefsContext> requestCallback)
    {
-      server_.installAllDictionaries(requestCallback);
+      server_.installAllDictionaries(
+                     new ServerRequestCallback<SpellingPrefsContext>() {
+         @Override
+         public void onResponseReceived(SpellingPrefsContext context)
+         {
+            // the language dictionaries may have been updated
+            invalidateCache();
+            requestCallback.onResponseReceived(context);
+         }
+         
+         @Override
+         public void onError(ServerError error)
+         {
+            requestCallback.onError(error);
+         }
+      });
    }
    
    public void invalidateCache()
    {
-      previousResults_.clear();
+      resultsByDictionary_.clear();
+      resultsDirty_ = true;
+      fireChanged();
+   }
+   
+   // forget the verdicts for a word whose status has changed (e.g. it
+   // was added to the user's dictionary)
+   public void invalidateWord(String word)
+   {
+      for (LruCache<String, Boolean> results : resultsByDictionary_.values())
+      {
+         if (results.remove(word) != null)
+            resultsDirty_ = true;
+      }
+   }
+   
+   private void onDictionariesChanged()
+   {
+      // a custom dictionary can be replaced by another of the same name,
+      // so results which depend on custom dictionaries can't be reused.
+      // results for the language dictionaries alone are kept (they're
+      // still valid should the user switch back)
+      Iterator<String> keys = resultsByDictionary_.keySet().iterator();
+      while (keys.hasNext())
+      {
+         if (usesCustomDictionaries(keys.next()))
+            keys.remove();
+      }
+      resultsDirty_ = true;
+      fireChanged();
+   }
+   
+   private void fireChanged()
+   {
       DomEvent.fireNativeEvent(Document.get().createChangeEvent(),
                                handlerManager_);
    }
    
+   // the results for the current dictionary language and custom
+   // dictionaries
+   private LruCache<String, Boolean> getResults()
+   {
+      String key = getDictionaryKey();
+      LruCache<String, Boolean> results = resultsByDictionary_.get(key);
+      if (results == null)
+      {
+         results = new LruCache<String, Boolean>(MAX_CACHED_WORDS);
+         resultsByDictionary_.put(key, results);
+      }
+      return results;
+   }
+   
+   private String getDictionaryKey()
+   {
+      StringBuilder key = new StringBuilder();
+      key.append(uiPrefs_.spellingDictionaryLanguage().getValue());
+      JsArrayString customDicts =
+                     uiPrefs_.spellingCustomDictionaries().getValue();
+      if (customDicts != null)
+      {
+         for (int i = 0; i < customDicts.length(); i++)
+         {
+            key.append(CUSTOM_DICTIONARY_SEPARATOR);
+            key.append(customDicts.get(i));
+         }
+      }
+      return key.toString();
+   }
+   
+   private static boolean usesCustomDictionaries(String key)
+   {
+      return key.indexOf(CUSTOM_DICTIONARY_SEPARATOR) != -1;
+   }
+   
+   private void initPersistentCache(Session session)
+   {
+      new JSObjectStateValue(
+            "spelling",
+            "spellingResults",
+            ClientState.PERSISTENT,
+            session.getSessionInfo().getClientState(),
+            false)
+      {
+         @Override
+         protected void onInit(JsObject value)
+         {
+            if (value == null || !value.hasKey("dictionary"))
+               return;
+            
+            // custom dictionaries may have changed since the results were
+            // saved (e.g. from another session)
+            String key = value.getString("dictionary");
+            if (usesCustomDictionaries(key))
+               return;
+            
+            LruCache<String, Boolean> results =
+                  new LruCache<String, Boolean>(MAX_CACHED_WORDS);
+            JsArrayString correct = value.getObject("correct");
+            JsArrayString incorrect = value.getObject("incorrect");
+            for (int i = 0; correct != null && i < correct.length(); i++)
+               results.put(correct.get(i), true);
+            for (int i = 0; incorrect != null && i < incorrect.length(); i++)
+               results.put(incorrect.get(i), false);
+            
+            // anything checked since we were created is more recent
+            LruCache<String, Boolean> current = resultsByDictionary_.get(key);
+            if (current != null)
+               results.putAll(current);
+            resultsByDictionary_.put(key, results);
+         }
+         
+         @Override
+         protected JsObject getValue()
+         {
+            resultsDirty_ = false;
+            
+            // persist the most recently used results for the current
+            // dictionaries
+            LruCache<String, Boolean> results = getResults();
+            int skip = Math.max(0, results.size() - MAX_PERSISTED_WORDS);
+            JsArrayString correct = JsArrayString.createArray().cast();
+            JsArrayString incorrect = JsArrayString.createArray().cast();
+            for (Map.Entry<String, Boolean> entry : results.entrySet())
+            {
+               if (skip-- > 0)
+                  continue;
+               if (entry.getValue())
+                  correct.push(entry.getKey());
+               else
+                  incorrect.push(entry.getKey());
+            }
+            
+            JsObject value = JsObject.createJsObject();
+            value.setString("dictionary", getDictionaryKey());
+            value.setObject("correct", correct);
+            value.setObject("incorrect", incorrect);
+            return value;
+         }
+         
+         @Override
+         protected boolean hasChanged()
+         {
+            return resultsDirty_;
+         }
+      };
+   }
+   
    @Override
    public HandlerRegistration addChangeHandler(ChangeHandler handler)
    {
@@ -225,8 +418,16 @@ public class SpellingService implements HasChangeHandlers
    private final SpellingServerOperations server_;
    private final UIPrefs uiPrefs_;
    
-   private HashMap<String,Boolean> previousResults_ = 
-                                             new HashMap<String,Boolean>();
+   // word verdicts, keyed by dictionary language and custom dictionaries
+   private final LruCache<String, LruCache<String, Boolean>>
+         resultsByDictionary_ =
+            new LruCache<String, LruCache<String, Boolean>>(MAX_DICTIONARIES);
+   private boolean resultsDirty_ = false;
+   
+   private static final char CUSTOM_DICTIONARY_SEPARATOR = '|';
+   private static final int MAX_DICTIONARIES = 4;
+   private static final int MAX_CACHED_WORDS = 20000;
+   private static final int MAX_PERSISTED_WORDS = 5000;
    
    HandlerManager handlerManager_ = new HandlerManager(this);
    
@@ -20,7 +20,11 @@ import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.event.shared.GwtEvent;
 
+import org.rstudio.core.client.DiagnosticCounters;
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.container.RingBuffer;
 import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.js.JsObject;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
@@ -159,12 +163,150 @@ import org.rstudio.studio.client.workbench.views.vcs.common.events.VcsRefreshEve
 import org.rstudio.studio.client.workbench.views.viewer.events.ViewerNavigateEvent;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 
 public class ClientEventDispatcher 
 {
+   public interface Handler
+   {
+      void dispatch(EventBus eventBus, ClientEvent event);
+   }
+   
+   // time spent dispatching each client event type, shown in the client
+   // counters (see DiagnosticCounters)
+   private static class DispatchStats
+   {
+      private DispatchStats(String type)
+      {
+         type_ = type;
+      }
+      
+      public String getType()
+      {
+         return type_;
+      }
+      
+      public int getCount()
+      {
+         return count_;
+      }
+      
+      public long getTotalMillis()
+      {
+         return totalMillis_;
+      }
+      
+      public long getMaxMillis()
+      {
+         return maxMillis_;
+      }
+      
+      private void record(long millis)
+      {
+         count_++;
+         totalMillis_ += millis;
+         maxMillis_ = Math.max(maxMillis_, millis);
+      }
+      
+      private final String type_;
+      private int count_ = 0;
+      private long totalMillis_ = 0;
+      private long maxMillis_ = 0;
+   }
+   
    public ClientEventDispatcher(EventBus eventBus)
    {
       eventBus_ = eventBus;
+      
+      DiagnosticCounters.register("Client event queue",
+                                  new DiagnosticCounters.Source()
+      {
+         @Override
+         public void collect(DiagnosticCounters.Collector collector)
+         {
+            collector.add("Queued events", pendingEvents_.size());
+            collector.add("Max queued events", maxQueueDepth_);
+            collector.add("Last drain ms", lastDrainMillis_);
+            collector.add("Max drain ms", maxDrainMillis_);
+            collector.add("Coalesced console events", coalescedEvents_);
+         }
+      });
+   }
+   
+   // register a handler for a client event type; modules which introduce
+   // their own server events call this rather than extending the dispatcher
+   public static void registerHandler(String type, Handler handler)
+   {
+      registerHandler(type, null, handler);
+   }
+   
+   // register a handler which fires events of a single type on the event
+   // bus; satellite windows with no handlers for that type are not sent
+   // events of this client event type (see getUnhandledEventTypes)
+   public static void registerHandler(String type,
+                                      GwtEvent.Type<?> eventType,
+                                      Handler handler)
+   {
+      Registration registration = registry_.get(type);
+      if (registration == null)
+      {
+         registry_.put(type, new Registration(type, eventType, handler));
+      }
+      else
+      {
+         GWT.log("WARNING: Replacing handler for server event: " + type, null);
+         registration.handler = handler;
+         registration.eventType = eventType;
+      }
+      
+      if (eventType != null)
+         filterableEventTypes_.add(eventType);
+   }
+   
+   public static boolean isFilterableEventType(GwtEvent.Type<?> eventType)
+   {
+      return filterableEventTypes_.contains(eventType);
+   }
+   
+   // the client event types whose dispatch would fire events that nothing
+   // on the given event bus listens for
+   public static ArrayList<String> getUnhandledEventTypes(EventBus eventBus)
+   {
+      ArrayList<String> types = new ArrayList<String>();
+      for (Registration registration : registry_.values())
+      {
+         if (registration.eventType != null &&
+             !eventBus.isEventTypeSubscribed(registration.eventType))
+         {
+            types.add(registration.stats.getType());
+         }
+      }
+      return types;
+   }
+   
+   // merges two runs of console text of the same type into a single event;
+   // returns null if the events can't be merged
+   public static ClientEvent mergeEvents(ClientEvent last, ClientEvent event)
+   {
+      if (!isCoalescable(event) || !last.getType().equals(event.getType()))
+         return null;
+      
+      ConsoleText lastText = last.getData();
+      ConsoleText text = event.getData();
+      if (!StringUtil.notNull(lastText.getConsole()).equals(
+             StringUtil.notNull(text.getConsole())) ||
+          lastText.getText().length() + text.getText().length() > 
+             MAX_COALESCED_CHARS)
+      {
+         return null;
+      }
+      
+      // create a new event (rather than modify the last one), since the
+      // original events may also have been handed to other listeners
+      ConsoleText merged = ConsoleText.create(
+            lastText.getText() + text.getText(), text.getConsole());
+      return ClientEvent.create(event.getId(), event.getType(), merged);
    }
    
    public void enqueEventAsJso(JavaScriptObject event)
@@ -175,22 +317,35 @@ public class ClientEventDispatcher
 
    public void enqueEvent(ClientEvent event)
    {
+      // merge runs of console text into a single event where possible, so
+      // that chatty output is written to the console in larger chunks
+      if (coalesceEvent(event))
+         return;
+      
       pendingEvents_.add(event);
+      maxQueueDepth_ = Math.max(maxQueueDepth_, pendingEvents_.size());
       if (pendingEvents_.size() == 1)
       {
          Scheduler.get().scheduleIncremental(new RepeatingCommand()
          {
             public boolean execute()
             {
-               final int MAX_EVENTS_AT_ONCE = 200;
-               for (int i = 0;
-                    i < MAX_EVENTS_AT_ONCE && pendingEvents_.size() > 0;
-                    i++)
+               // dispatch events until we exhaust our time slice, then
+               // yield to the browser so that it can render and process
+               // input (always dispatch at least one event per slice)
+               long startTime = System.currentTimeMillis();
+               long elapsed = 0;
+               do
                {
-                  ClientEvent currentEvent = pendingEvents_.remove(0);
-                  dispatchEvent(currentEvent);
+                  dispatchEvent(pendingEvents_.poll());
+                  elapsed = System.currentTimeMillis() - startTime;
                }
-               return pendingEvents_.size() > 0;
+               while (!pendingEvents_.isEmpty() && 
+                      elapsed < MAX_DRAIN_MILLIS);
+               
+               lastDrainMillis_ = elapsed;
+               maxDrainMillis_ = Math.max(maxDrainMillis_, elapsed);
+               return !pendingEvents_.isEmpty();
             }
          });
       }
@@ -199,645 +354,1370 @@ public class ClientEventDispatcher
    private void dispatchEvent(ClientEvent event) 
    { 
       String type = event.getType();
+      Registration registration = registry_.get(type);
+      if (registration == null)
+      {
+         GWT.log("WARNING: Server event not dispatched: " + type, null);
+         return;
+      }
+      
+      long startTime = System.currentTimeMillis();
       try
       {
-         if (type.equals(ClientEvent.Busy))
+         registration.handler.dispatch(eventBus_, event);
+      }
+      catch(Throwable e)
+      {
+         GWT.log("WARNING: Exception occured dispatching event: " + type, e);
+      }
+      registration.stats.record(System.currentTimeMillis() - startTime);
+   }
+   
+   private boolean coalesceEvent(ClientEvent event)
+   {
+      // we can only merge with an event that hasn't been dispatched yet
+      ClientEvent last = pendingEvents_.peekLast();
+      if (last == null)
+         return false;
+      
+      ClientEvent merged = mergeEvents(last, event);
+      if (merged == null)
+         return false;
+      
+      pendingEvents_.set(pendingEvents_.size() - 1, merged);
+      coalescedEvents_++;
+      return true;
+   }
+   
+   private static boolean isCoalescable(ClientEvent event)
+   {
+      String type = event.getType();
+      return type.equals(ClientEvent.ConsoleOutput) ||
+             type.equals(ClientEvent.ConsoleError);
+   }
+   
+   private static class Registration
+   {
+      public Registration(String type, 
+                          GwtEvent.Type<?> eventType, 
+                          Handler handler)
+      {
+         this.handler = handler;
+         this.eventType = eventType;
+         this.stats = new DispatchStats(type);
+      }
+      
+      public Handler handler;
+      public GwtEvent.Type<?> eventType;
+      public final DispatchStats stats;
+   }
+   
+   private static void registerDefaultHandlers()
+   {
+      registerHandler(ClientEvent.Busy, BusyEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             boolean busy = event.<Bool>getData().getValue();
-            eventBus_.fireEvent(new BusyEvent(busy));
+            eventBus.fireEvent(new BusyEvent(busy));
          }
-         else if (type.equals(ClientEvent.ConsoleOutput))
+      });
+
+      registerHandler(ClientEvent.ConsoleOutput,
+                      ConsoleWriteOutputEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ConsoleText output = event.getData();
-            eventBus_.fireEvent(new ConsoleWriteOutputEvent(output));
+            eventBus.fireEvent(new ConsoleWriteOutputEvent(output));
          }
-         else if (type.equals(ClientEvent.ConsoleError))
+      });
+
+      registerHandler(ClientEvent.ConsoleError,
+                      ConsoleWriteErrorEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ConsoleText error = event.getData();
-            eventBus_.fireEvent(new ConsoleWriteErrorEvent(error));
+            eventBus.fireEvent(new ConsoleWriteErrorEvent(error));
          }
-         else if (type.equals(ClientEvent.ConsoleWritePrompt))
+      });
+
+      registerHandler(ClientEvent.ConsoleWritePrompt,
+                      ConsoleWritePromptEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String prompt = event.getData();
-            eventBus_.fireEvent(new ConsoleWritePromptEvent(prompt));
+            eventBus.fireEvent(new ConsoleWritePromptEvent(prompt));
          }
-         else if (type.equals(ClientEvent.ConsoleWriteInput))
+      });
+
+      registerHandler(ClientEvent.ConsoleWriteInput,
+                      ConsoleWriteInputEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ConsoleText input = event.getData();
-            eventBus_.fireEvent(new ConsoleWriteInputEvent(input));
+            eventBus.fireEvent(new ConsoleWriteInputEvent(input));
          }
-         else if (type.equals(ClientEvent.ConsolePrompt))
+      });
+
+      registerHandler(ClientEvent.ConsolePrompt,
+                      ConsolePromptEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ConsolePrompt prompt = event.getData();
-            eventBus_.fireEvent(new ConsolePromptEvent(prompt));
+            eventBus.fireEvent(new ConsolePromptEvent(prompt));
          }
-         else if (type.equals(ClientEvent.ShowEditor))
+      });
+
+      registerHandler(ClientEvent.ShowEditor, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ShowEditorData data = event.getData();
-            eventBus_.fireEvent(new ShowEditorEvent(data));
+            eventBus.fireEvent(new ShowEditorEvent(data));
          }
-         else if (type.equals(ClientEvent.FileChanged))
+      });
+
+      registerHandler(ClientEvent.FileChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             FileChange fileChange = event.getData();
-            eventBus_.fireEvent(new FileChangeEvent(fileChange));
+            eventBus.fireEvent(new FileChangeEvent(fileChange));
          }
-         else if (type.equals(ClientEvent.WorkingDirChanged))
+      });
+
+      registerHandler(ClientEvent.WorkingDirChanged,
+                      WorkingDirChangedEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String path = event.getData();
-            eventBus_.fireEvent(new WorkingDirChangedEvent(path));
+            eventBus.fireEvent(new WorkingDirChangedEvent(path));
          }
-         else if (type.equals(ClientEvent.ShowHelp))
+      });
+
+      registerHandler(ClientEvent.ShowHelp, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String helpUrl = event.getData();
-            eventBus_.fireEvent(new ShowHelpEvent(helpUrl));
+            eventBus.fireEvent(new ShowHelpEvent(helpUrl));
          }
-         else if (type.equals(ClientEvent.ShowErrorMessage))
+      });
+
+      registerHandler(ClientEvent.ShowErrorMessage, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ErrorMessage errorMessage = event.getData();
-            eventBus_.fireEvent(new ShowErrorMessageEvent(errorMessage));
+            eventBus.fireEvent(new ShowErrorMessageEvent(errorMessage));
          }
-         else if (type.equals(ClientEvent.ChooseFile))
+      });
+
+      registerHandler(ClientEvent.ChooseFile, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             boolean newFile = event.<Bool>getData().getValue();
-            eventBus_.fireEvent(new ChooseFileEvent(newFile));
+            eventBus.fireEvent(new ChooseFileEvent(newFile));
          }
-         else if (type.equals(ClientEvent.BrowseUrl))
+      });
+
+      registerHandler(ClientEvent.BrowseUrl, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             BrowseUrlInfo urlInfo = event.getData();
-            eventBus_.fireEvent(new BrowseUrlEvent(urlInfo));
+            eventBus.fireEvent(new BrowseUrlEvent(urlInfo));
          }
-         else if (type.equals(ClientEvent.PlotsStateChanged))
+      });
+
+      registerHandler(ClientEvent.PlotsStateChanged,
+                      PlotsChangedEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             PlotsState plotsState = event.getData();
-            eventBus_.fireEvent(new PlotsChangedEvent(plotsState));
+            eventBus.fireEvent(new PlotsChangedEvent(plotsState));
          }
-         else if (type.equals(ClientEvent.ViewData))
+      });
+
+      registerHandler(ClientEvent.ViewData, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             DataView dataView = event.getData();
-            eventBus_.fireEvent(new ViewDataEvent(dataView));
+            eventBus.fireEvent(new ViewDataEvent(dataView));
          }
-         else if (type.equals(ClientEvent.PackageStateChanged))
+      });
+
+      registerHandler(ClientEvent.PackageStateChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             PackageState newState = event.getData();
-            eventBus_.fireEvent(new PackageStateChangedEvent(newState));
+            eventBus.fireEvent(new PackageStateChangedEvent(newState));
          }
-         else if (type.equals(ClientEvent.PackageStatusChanged))
+      });
+
+      registerHandler(ClientEvent.PackageStatusChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             PackageStatus status = event.getData();
-            eventBus_.fireEvent(new PackageStatusChangedEvent(status));
+            eventBus.fireEvent(new PackageStatusChangedEvent(status));
          }
-         else if (type.equals(ClientEvent.Locator))
+      });
+
+      registerHandler(ClientEvent.Locator, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new LocatorEvent());
+            eventBus.fireEvent(new LocatorEvent());
          }
-         else if (type.equals(ClientEvent.ConsoleResetHistory))
+      });
+
+      registerHandler(ClientEvent.ConsoleResetHistory, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ConsoleResetHistory reset = event.getData();
-            eventBus_.fireEvent(new ConsoleResetHistoryEvent(reset));
+            eventBus.fireEvent(new ConsoleResetHistoryEvent(reset));
          }
-         else if (type.equals(ClientEvent.SessionSerialization))
+      });
+
+      registerHandler(ClientEvent.SessionSerialization, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SessionSerializationAction action = event.getData();
-            eventBus_.fireEvent(new SessionSerializationEvent(action));
+            eventBus.fireEvent(new SessionSerializationEvent(action));
          }
-         else if (type.equals(ClientEvent.HistoryEntriesAdded))
+      });
+
+      registerHandler(ClientEvent.HistoryEntriesAdded, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RpcObjectList<HistoryEntry> entries = event.getData();
-            eventBus_.fireEvent(new HistoryEntriesAddedEvent(entries));
+            eventBus.fireEvent(new HistoryEntriesAddedEvent(entries));
          }
-         else if (type.equals(ClientEvent.QuotaStatus))
+      });
+
+      registerHandler(ClientEvent.QuotaStatus, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             QuotaStatus quotaStatus = event.getData();
-            eventBus_.fireEvent(new QuotaStatusEvent(quotaStatus));
+            eventBus.fireEvent(new QuotaStatusEvent(quotaStatus));
          }
-         else if (type.equals(ClientEvent.FileEdit))
+      });
+
+      registerHandler(ClientEvent.FileEdit, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             FileSystemItem file = event.getData();
-            eventBus_.fireEvent(new FileEditEvent(file));
+            eventBus.fireEvent(new FileEditEvent(file));
          }
-         else if (type.equals(ClientEvent.ShowContent))
+      });
+
+      registerHandler(ClientEvent.ShowContent, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ContentItem content = event.getData();
-            eventBus_.fireEvent(new ShowContentEvent(content));
+            eventBus.fireEvent(new ShowContentEvent(content));
          }
-         else if (type.equals(ClientEvent.ShowData))
+      });
+
+      registerHandler(ClientEvent.ShowData, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             DataItem data = event.getData();
-            eventBus_.fireEvent(new ShowDataEvent(data));
+            eventBus.fireEvent(new ShowDataEvent(data));
          }
-         else if (type.equals(ClientEvent.AbendWarning))
-         {            
-            eventBus_.fireEvent(new SessionAbendWarningEvent());
+      });
+
+      registerHandler(ClientEvent.AbendWarning, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
+         {
+            eventBus.fireEvent(new SessionAbendWarningEvent());
          }
-         else if (type.equals(ClientEvent.ShowWarningBar))
+      });
+
+      registerHandler(ClientEvent.ShowWarningBar, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             WarningBarMessage message = event.getData();
-            eventBus_.fireEvent(new ShowWarningBarEvent(message));
+            eventBus.fireEvent(new ShowWarningBarEvent(message));
          }
-         else if (type.equals(ClientEvent.OpenProjectError))
+      });
+
+      registerHandler(ClientEvent.OpenProjectError, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             OpenProjectError error = event.getData();
-            eventBus_.fireEvent(new OpenProjectErrorEvent(error));
+            eventBus.fireEvent(new OpenProjectErrorEvent(error));
          }
-         else if (type.equals(ClientEvent.VcsRefresh))
+      });
+
+      registerHandler(ClientEvent.VcsRefresh, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             JsObject data = event.getData();
-            eventBus_.fireEvent(new VcsRefreshEvent(Reason.NA,
+            eventBus.fireEvent(new VcsRefreshEvent(Reason.NA,
                                                     data.getInteger("delay")));
          }
-         else if (type.equals(ClientEvent.AskPass))
+      });
+
+      registerHandler(ClientEvent.AskPass, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             AskPassEvent.Data data = event.getData();
-            eventBus_.fireEvent(new AskPassEvent(data));
+            eventBus.fireEvent(new AskPassEvent(data));
          }
-         else if (type.equals(ClientEvent.ConsoleProcessOutput))
+      });
+
+      registerHandler(ClientEvent.ConsoleProcessOutput, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ServerConsoleOutputEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ServerConsoleOutputEvent(data.getHandle(),
+            eventBus.fireEvent(new ServerConsoleOutputEvent(data.getHandle(),
                                                             data.getOutput(),
                                                             data.isError()));
          }
-         else if (type.equals(ClientEvent.ConsoleProcessPrompt))
+      });
+
+      registerHandler(ClientEvent.ConsoleProcessPrompt, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ServerConsolePromptEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ServerConsolePromptEvent(data.getHandle(),
+            eventBus.fireEvent(new ServerConsolePromptEvent(data.getHandle(),
                                                              data.getPrompt()));
          }
-         else if (type.equals(ClientEvent.ConsoleProcessCreated))
+      });
+
+      registerHandler(ClientEvent.ConsoleProcessCreated, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ConsoleProcessCreatedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ConsoleProcessCreatedEvent(data));
+            eventBus.fireEvent(new ConsoleProcessCreatedEvent(data));
          }
-         else if (type.equals(ClientEvent.ConsoleProcessExit))
+      });
+
+      registerHandler(ClientEvent.ConsoleProcessExit, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ServerProcessExitEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ServerProcessExitEvent(data.getHandle(),
+            eventBus.fireEvent(new ServerProcessExitEvent(data.getHandle(),
                                                           data.getExitCode()));
          }
-         else if (type.equals(ClientEvent.HTMLPreviewStartedEvent))
+      });
+
+      registerHandler(ClientEvent.HTMLPreviewStartedEvent, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             HTMLPreviewStartedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new HTMLPreviewStartedEvent(data));
+            eventBus.fireEvent(new HTMLPreviewStartedEvent(data));
          }
-         else if (type.equals(ClientEvent.HTMLPreviewOutputEvent))
+      });
+
+      registerHandler(ClientEvent.HTMLPreviewOutputEvent, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String output = event.getData();
-            eventBus_.fireEvent(new HTMLPreviewOutputEvent(output));
+            eventBus.fireEvent(new HTMLPreviewOutputEvent(output));
          }
-         else if (type.equals(ClientEvent.HTMLPreviewCompletedEvent))
+      });
+
+      registerHandler(ClientEvent.HTMLPreviewCompletedEvent, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             HTMLPreviewResult result = event.getData();
-            eventBus_.fireEvent(new HTMLPreviewCompletedEvent(result));
+            eventBus.fireEvent(new HTMLPreviewCompletedEvent(result));
          }
-         else if (type.equals(ClientEvent.CompilePdfStartedEvent))
+      });
+
+      registerHandler(ClientEvent.CompilePdfStartedEvent, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             CompilePdfStartedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new CompilePdfStartedEvent(data));
+            eventBus.fireEvent(new CompilePdfStartedEvent(data));
          }
-         else if (type.equals(ClientEvent.CompilePdfOutputEvent))
+      });
+
+      registerHandler(ClientEvent.CompilePdfOutputEvent, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             CompileOutput output = event.getData();
-            eventBus_.fireEvent(new CompilePdfOutputEvent(output));
+            eventBus.fireEvent(new CompilePdfOutputEvent(output));
          }
-         else if (type.equals(ClientEvent.CompilePdfErrorsEvent))
+      });
+
+      registerHandler(ClientEvent.CompilePdfErrorsEvent, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             JsArray<SourceMarker> data = event.getData();
-            eventBus_.fireEvent(new CompilePdfErrorsEvent(data));
+            eventBus.fireEvent(new CompilePdfErrorsEvent(data));
          }
-         else if (type.equals(ClientEvent.CompilePdfCompletedEvent))
+      });
+
+      registerHandler(ClientEvent.CompilePdfCompletedEvent, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             CompilePdfResult result = event.getData();
-            eventBus_.fireEvent(new CompilePdfCompletedEvent(result));
+            eventBus.fireEvent(new CompilePdfCompletedEvent(result));
          }
-         else if (type.equals(ClientEvent.SynctexEditFile))
+      });
+
+      registerHandler(ClientEvent.SynctexEditFile, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SourceLocation sourceLocation = event.getData();
-            eventBus_.fireEvent(new SynctexEditFileEvent(sourceLocation));
+            eventBus.fireEvent(new SynctexEditFileEvent(sourceLocation));
          }
-         else if (type.equals(ClientEvent.FindResult))
+      });
+
+      registerHandler(ClientEvent.FindResult, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             FindResultEvent.Data data = event.getData();
-            eventBus_.fireEvent(new FindResultEvent(
+            eventBus.fireEvent(new FindResultEvent(
                   data.getHandle(), data.getResults().toArrayList()));
          }
-         else if (type.equals(ClientEvent.FindOperationEnded))
+      });
+
+      registerHandler(ClientEvent.FindOperationEnded, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String data = event.getData();
-            eventBus_.fireEvent(new FindOperationEndedEvent(data));
+            eventBus.fireEvent(new FindOperationEndedEvent(data));
          }
-         else if (type.equals(ClientEvent.RPubsUploadStatus))
+      });
+
+      registerHandler(ClientEvent.RPubsUploadStatus, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RPubsUploadStatusEvent.Status status = event.getData();
-            eventBus_.fireEvent(new RPubsUploadStatusEvent(status));
+            eventBus.fireEvent(new RPubsUploadStatusEvent(status));
          }
-         else if (type.equals(ClientEvent.BuildStarted))
+      });
+
+      registerHandler(ClientEvent.BuildStarted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new BuildStartedEvent());
+            eventBus.fireEvent(new BuildStartedEvent());
          }
-         else if (type.equals(ClientEvent.BuildOutput))
+      });
+
+      registerHandler(ClientEvent.BuildOutput, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             CompileOutput data = event.getData();
-            eventBus_.fireEvent(new BuildOutputEvent(data));
+            eventBus.fireEvent(new BuildOutputEvent(data));
          }
-         else if (type.equals(ClientEvent.BuildCompleted))
+      });
+
+      registerHandler(ClientEvent.BuildCompleted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             BuildCompletedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new BuildCompletedEvent(data));
+            eventBus.fireEvent(new BuildCompletedEvent(data));
          }
-         else if (type.equals(ClientEvent.BuildErrors))
+      });
+
+      registerHandler(ClientEvent.BuildErrors, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             BuildErrorsEvent.Data data = event.getData();
-            eventBus_.fireEvent(new BuildErrorsEvent(data));
+            eventBus.fireEvent(new BuildErrorsEvent(data));
          }
-         else if (type.equals(ClientEvent.DirectoryNavigate))
+      });
+
+      registerHandler(ClientEvent.DirectoryNavigate, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             DirectoryNavigateEvent.Data data = event.getData();
-            eventBus_.fireEvent(new DirectoryNavigateEvent(data));
+            eventBus.fireEvent(new DirectoryNavigateEvent(data));
          }
-         else if (type.equals(ClientEvent.DeferredInitCompleted))
+      });
+
+      registerHandler(ClientEvent.DeferredInitCompleted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new DeferredInitCompletedEvent());
+            eventBus.fireEvent(new DeferredInitCompletedEvent());
          }
-         else if (type.equals(ClientEvent.PlotsZoomSizeChanged))
+      });
+
+      registerHandler(ClientEvent.PlotsZoomSizeChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             PlotsZoomSizeChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new PlotsZoomSizeChangedEvent(data));
+            eventBus.fireEvent(new PlotsZoomSizeChangedEvent(data));
          }
-         else if (type.equals(ClientEvent.SourceCppStarted))
+      });
+
+      registerHandler(ClientEvent.SourceCppStarted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new SourceCppStartedEvent());
+            eventBus.fireEvent(new SourceCppStartedEvent());
          }
-         else if (type.equals(ClientEvent.SourceCppCompleted))
+      });
+
+      registerHandler(ClientEvent.SourceCppCompleted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SourceCppState state = event.getData();
-            eventBus_.fireEvent(new SourceCppCompletedEvent(state));
+            eventBus.fireEvent(new SourceCppCompletedEvent(state));
          }
-         else if (type.equals(ClientEvent.LoadedPackageUpdates))
+      });
+
+      registerHandler(ClientEvent.LoadedPackageUpdates, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String installCmd = event.getData();
-            eventBus_.fireEvent(new LoadedPackageUpdatesEvent(installCmd));
+            eventBus.fireEvent(new LoadedPackageUpdatesEvent(installCmd));
          }
-         else if (type.equals(ClientEvent.ActivatePane))
+      });
+
+      registerHandler(ClientEvent.ActivatePane, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String pane = event.getData();
-            eventBus_.fireEvent(new ActivatePaneEvent(pane));
+            eventBus.fireEvent(new ActivatePaneEvent(pane));
          }
-         else if (type.equals(ClientEvent.ShowPresentationPane))
+      });
+
+      registerHandler(ClientEvent.ShowPresentationPane, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             PresentationState state = event.getData();
-            eventBus_.fireEvent(new ShowPresentationPaneEvent(state));
+            eventBus.fireEvent(new ShowPresentationPaneEvent(state));
          }
-         else if (type.equals(ClientEvent.EnvironmentRefresh))
+      });
+
+      registerHandler(ClientEvent.EnvironmentRefresh,
+                      EnvironmentRefreshEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new EnvironmentRefreshEvent());
+            eventBus.fireEvent(new EnvironmentRefreshEvent());
          }
-         else if (type.equals(ClientEvent.ListChanged))
+      });
+
+      registerHandler(ClientEvent.ListChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new ListChangedEvent(event.<JsObject>getData()));
+            eventBus.fireEvent(new ListChangedEvent(event.<JsObject>getData()));
          }
-         else if (type.equals(ClientEvent.UiPrefsChanged))
+      });
+
+      registerHandler(ClientEvent.UiPrefsChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             UiPrefsChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new UiPrefsChangedEvent(data));
+            eventBus.fireEvent(new UiPrefsChangedEvent(data));
          }
-         else if (type.equals(ClientEvent.ContextDepthChanged)) {
+      });
+
+      registerHandler(ClientEvent.ContextDepthChanged,
+                      ContextDepthChangedEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
+         {
             EnvironmentContextData data = event.getData();
-            eventBus_.fireEvent(new ContextDepthChangedEvent(data, true));
+            eventBus.fireEvent(new ContextDepthChangedEvent(data, true));
          }
-         else if (type.equals(ClientEvent.HandleUnsavedChanges))
+      });
+
+      registerHandler(ClientEvent.HandleUnsavedChanges, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new HandleUnsavedChangesEvent());
+            eventBus.fireEvent(new HandleUnsavedChangesEvent());
          }
-         else if (type.equals(ClientEvent.Quit))
+      });
+
+      registerHandler(ClientEvent.Quit, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             QuitEvent.Data data = event.getData();
-            eventBus_.fireEvent(new QuitEvent(data));
+            eventBus.fireEvent(new QuitEvent(data));
          }
-         else if (type.equals(ClientEvent.Suicide))
+      });
+
+      registerHandler(ClientEvent.Suicide, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             // NOTE: we don't explicitly stop listening for events here
             // for the reasons cited above in ClientEvent.Quit
-            
+
             // fire event
             String message = event.getData();
-            eventBus_.fireEvent(new SuicideEvent(message));
+            eventBus.fireEvent(new SuicideEvent(message));
          }
-         else if (type.equals(ClientEvent.SaveActionChanged))
+      });
+
+      registerHandler(ClientEvent.SaveActionChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SaveAction action = event.getData();
-            eventBus_.fireEvent(new SaveActionChangedEvent(action));
+            eventBus.fireEvent(new SaveActionChangedEvent(action));
          }
-         else if (type.equals(ClientEvent.EnvironmentAssigned))
+      });
+
+      registerHandler(ClientEvent.EnvironmentAssigned,
+                      EnvironmentObjectAssignedEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RObject objectInfo = event.getData();
-            eventBus_.fireEvent(new EnvironmentObjectAssignedEvent(objectInfo));
+            eventBus.fireEvent(new EnvironmentObjectAssignedEvent(objectInfo));
          }
-         else if (type.equals(ClientEvent.EnvironmentRemoved))
+      });
+
+      registerHandler(ClientEvent.EnvironmentRemoved,
+                      EnvironmentObjectRemovedEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String objectName = event.getData();
-            eventBus_.fireEvent(new EnvironmentObjectRemovedEvent(objectName));
+            eventBus.fireEvent(new EnvironmentObjectRemovedEvent(objectName));
          }
-         else if (type.equals(ClientEvent.BrowserLineChanged))
+      });
+
+      registerHandler(ClientEvent.BrowserLineChanged,
+                      BrowserLineChangedEvent.TYPE, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             LineData lineData = event.getData();
-            eventBus_.fireEvent(new BrowserLineChangedEvent(lineData));
+            eventBus.fireEvent(new BrowserLineChangedEvent(lineData));
          }
-         else if (type.equals(ClientEvent.PackageLoaded))
+      });
+
+      registerHandler(ClientEvent.PackageLoaded, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new PackageLoadedEvent(
+            eventBus.fireEvent(new PackageLoadedEvent(
                   (String)event.getData()));
          }
-         else if (type.equals(ClientEvent.PackageUnloaded))
+      });
+
+      registerHandler(ClientEvent.PackageUnloaded, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new PackageUnloadedEvent(
+            eventBus.fireEvent(new PackageUnloadedEvent(
                   (String)event.getData()));
          }
-         else if (type.equals(ClientEvent.PresentationPaneRequestCompleted))
+      });
+
+      registerHandler(ClientEvent.PresentationPaneRequestCompleted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new PresentationPaneRequestCompletedEvent());
+            eventBus.fireEvent(new PresentationPaneRequestCompletedEvent());
          }
-         else if (type.equals(ClientEvent.UnhandledError))
+      });
+
+      registerHandler(ClientEvent.UnhandledError, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             UnhandledError err = event.getData();
-            eventBus_.fireEvent(new UnhandledErrorEvent(err));
+            eventBus.fireEvent(new UnhandledErrorEvent(err));
          }
-         else if (type.equals(ClientEvent.ErrorHandlerChanged))
+      });
+
+      registerHandler(ClientEvent.ErrorHandlerChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ErrorHandlerType handlerType = event.getData();
-            eventBus_.fireEvent(new ErrorHandlerChangedEvent(handlerType));
+            eventBus.fireEvent(new ErrorHandlerChangedEvent(handlerType));
          }
-         else if (type.equals(ClientEvent.ViewerNavigate))
+      });
+
+      registerHandler(ClientEvent.ViewerNavigate, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ViewerNavigateEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ViewerNavigateEvent(data));
+            eventBus.fireEvent(new ViewerNavigateEvent(data));
          }
-         else if (type.equals(ClientEvent.SourceExtendedTypeDetected))
+      });
+
+      registerHandler(ClientEvent.SourceExtendedTypeDetected, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SourceExtendedTypeDetectedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new SourceExtendedTypeDetectedEvent(data));
+            eventBus.fireEvent(new SourceExtendedTypeDetectedEvent(data));
          }
-         else if (type.equals(ClientEvent.ShinyViewer))
+      });
+
+      registerHandler(ClientEvent.ShinyViewer, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ShinyApplicationParams data = event.getData();
-            eventBus_.fireEvent(new ShinyApplicationStatusEvent(data, true));
+            eventBus.fireEvent(new ShinyApplicationStatusEvent(data, true));
          }
-         else if (type.equals(ClientEvent.DebugSourceCompleted))
+      });
+
+      registerHandler(ClientEvent.DebugSourceCompleted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             DebugSourceResult result = (DebugSourceResult)event.getData();
-            eventBus_.fireEvent(new DebugSourceCompletedEvent(result));
+            eventBus.fireEvent(new DebugSourceCompletedEvent(result));
          }
-         else if (type.equals(ClientEvent.RmdRenderStarted))
+      });
+
+      registerHandler(ClientEvent.RmdRenderStarted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RmdRenderStartedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new RmdRenderStartedEvent(data));
+            eventBus.fireEvent(new RmdRenderStartedEvent(data));
          }
-         else if (type.equals(ClientEvent.RmdRenderOutput))
+      });
+
+      registerHandler(ClientEvent.RmdRenderOutput, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             CompileOutput data = event.getData();
-            eventBus_.fireEvent(new RmdRenderOutputEvent(data));
+            eventBus.fireEvent(new RmdRenderOutputEvent(data));
          }
-         else if (type.equals(ClientEvent.RmdRenderCompleted))
+      });
+
+      registerHandler(ClientEvent.RmdRenderCompleted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RmdRenderResult result = event.getData();
-            eventBus_.fireEvent(new RmdRenderCompletedEvent(result));
+            eventBus.fireEvent(new RmdRenderCompletedEvent(result));
          }
-         else if (type.equals(ClientEvent.RmdTemplateDiscovered))
+      });
+
+      registerHandler(ClientEvent.RmdTemplateDiscovered, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RmdDiscoveredTemplate template = event.getData();
-            eventBus_.fireEvent(new RmdTemplateDiscoveredEvent(template));
+            eventBus.fireEvent(new RmdTemplateDiscoveredEvent(template));
          }
-         else if (type.equals(ClientEvent.RmdTemplateDiscoveryCompleted))
+      });
+
+      registerHandler(ClientEvent.RmdTemplateDiscoveryCompleted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new RmdTemplateDiscoveryCompletedEvent());
+            eventBus.fireEvent(new RmdTemplateDiscoveryCompletedEvent());
          }
-         else if (type.equals(ClientEvent.RmdShinyDocStarted))
+      });
+
+      registerHandler(ClientEvent.RmdShinyDocStarted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RmdShinyDocInfo docInfo = event.getData();
-            eventBus_.fireEvent(new RmdShinyDocStartedEvent(docInfo));
+            eventBus.fireEvent(new RmdShinyDocStartedEvent(docInfo));
          }
-         else if (type.equals(ClientEvent.RSConnectDeploymentOutput))
+      });
+
+      registerHandler(ClientEvent.RSConnectDeploymentOutput, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             CompileOutput output = event.getData();
-            eventBus_.fireEvent(new RSConnectDeploymentOutputEvent(output));
+            eventBus.fireEvent(new RSConnectDeploymentOutputEvent(output));
          }
-         else if (type.equals(ClientEvent.RSConnectDeploymentCompleted))
+      });
+
+      registerHandler(ClientEvent.RSConnectDeploymentCompleted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String url = event.getData();
-            eventBus_.fireEvent(new RSConnectDeploymentCompletedEvent(url));
+            eventBus.fireEvent(new RSConnectDeploymentCompletedEvent(url));
          }
-         else if (type.equals(ClientEvent.RSConnectDeploymentFailed))
+      });
+
+      registerHandler(ClientEvent.RSConnectDeploymentFailed, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RSConnectDeploymentFailedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new RSConnectDeploymentFailedEvent(data));
+            eventBus.fireEvent(new RSConnectDeploymentFailedEvent(data));
          }
-         else if (type.equals(ClientEvent.UserPrompt))
+      });
+
+      registerHandler(ClientEvent.UserPrompt, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             UserPrompt prompt = event.getData();
-            eventBus_.fireEvent(new UserPromptEvent(prompt));
+            eventBus.fireEvent(new UserPromptEvent(prompt));
          }
-         else if (type.equals(ClientEvent.InstallRtools))
+      });
+
+      registerHandler(ClientEvent.InstallRtools, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             InstallRtoolsEvent.Data data = event.getData();
-            eventBus_.fireEvent(new InstallRtoolsEvent(data));
+            eventBus.fireEvent(new InstallRtoolsEvent(data));
          }
-         else if (type.equals(ClientEvent.InstallShiny))
+      });
+
+      registerHandler(ClientEvent.InstallShiny, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String userAction = event.getData();
-            eventBus_.fireEvent(new InstallShinyEvent(userAction));
+            eventBus.fireEvent(new InstallShinyEvent(userAction));
          }
-         else if (type.equals(ClientEvent.SuspendAndRestart))
+      });
+
+      registerHandler(ClientEvent.SuspendAndRestart, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SuspendAndRestartEvent.Data data = event.getData();
-            eventBus_.fireEvent(new SuspendAndRestartEvent(data));
+            eventBus.fireEvent(new SuspendAndRestartEvent(data));
          }
-         else if (type.equals(ClientEvent.DataViewChanged))
+      });
+
+      registerHandler(ClientEvent.DataViewChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             DataViewChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new DataViewChangedEvent(data));
+            eventBus.fireEvent(new DataViewChangedEvent(data));
          }
-         else if (type.equals(ClientEvent.ViewFunction))
+      });
+
+      registerHandler(ClientEvent.ViewFunction, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SearchPathFunctionDefinition data = event.getData();
-            eventBus_.fireEvent(new CodeBrowserNavigationEvent(
+            eventBus.fireEvent(new CodeBrowserNavigationEvent(
                   data, null, false, true));
          }
-         else if (type.equals(ClientEvent.MarkersChanged))
+      });
+
+      registerHandler(ClientEvent.MarkersChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             MarkersChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new MarkersChangedEvent(data));
+            eventBus.fireEvent(new MarkersChangedEvent(data));
          }
-         else if (type.equals(ClientEvent.EnableRStudioConnect))
+      });
+
+      registerHandler(ClientEvent.EnableRStudioConnect, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             EnableRStudioConnectUIEvent.Data data = event.getData();
-            eventBus_.fireEvent(new EnableRStudioConnectUIEvent(data));
+            eventBus.fireEvent(new EnableRStudioConnectUIEvent(data));
          }
-         else if (type.equals(ClientEvent.UpdateGutterMarkers))
+      });
+
+      registerHandler(ClientEvent.UpdateGutterMarkers, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             LintEvent.Data data = event.getData();
-            eventBus_.fireEvent(new LintEvent(data));
+            eventBus.fireEvent(new LintEvent(data));
          }
-         else if (type.equals(ClientEvent.SnippetsChanged))
+      });
+
+      registerHandler(ClientEvent.SnippetsChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SnippetsChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new SnippetsChangedEvent(data));
+            eventBus.fireEvent(new SnippetsChangedEvent(data));
          }
-         else if (type.equals(ClientEvent.JumpToFunction))
+      });
+
+      registerHandler(ClientEvent.JumpToFunction, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             JumpToFunctionEvent.Data data = event.getData();
-            eventBus_.fireEvent(new JumpToFunctionEvent(data));
+            eventBus.fireEvent(new JumpToFunctionEvent(data));
          }
-         else if (type.equals(ClientEvent.CollabEditStarted))
+      });
+
+      registerHandler(ClientEvent.CollabEditStarted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             CollabEditStartParams params = event.getData();
-            eventBus_.fireEvent(new CollabEditStartedEvent(params));
+            eventBus.fireEvent(new CollabEditStartedEvent(params));
          }
-         else if (type.equals(ClientEvent.SessionCountChanged))
+      });
+
+      registerHandler(ClientEvent.SessionCountChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SessionCountChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new SessionCountChangedEvent(data));
+            eventBus.fireEvent(new SessionCountChangedEvent(data));
          }
-         else if (type.equals(ClientEvent.CollabEditEnded))
+      });
+
+      registerHandler(ClientEvent.CollabEditEnded, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             CollabEditEndedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new CollabEditEndedEvent(data));
+            eventBus.fireEvent(new CollabEditEndedEvent(data));
          }
-         else if (type.equals(ClientEvent.ProjectUsersChanged))
+      });
+
+      registerHandler(ClientEvent.ProjectUsersChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ProjectUserChangedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ProjectUserChangedEvent(data));
+            eventBus.fireEvent(new ProjectUserChangedEvent(data));
          }
-         else if (type.equals(ClientEvent.RVersionsChanged))
+      });
+
+      registerHandler(ClientEvent.RVersionsChanged, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RVersionsInfo versions = event.getData();
-            eventBus_.fireEvent(new RVersionsChangedEvent(versions));
+            eventBus.fireEvent(new RVersionsChangedEvent(versions));
          }
-         else if (type.equals(ClientEvent.ShinyGadgetDialog))
+      });
+
+      registerHandler(ClientEvent.ShinyGadgetDialog, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ShinyGadgetDialogEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ShinyGadgetDialogEvent(data));
+            eventBus.fireEvent(new ShinyGadgetDialogEvent(data));
          }
-         else if (type.equals(ClientEvent.RmdParamsReady))
+      });
+
+      registerHandler(ClientEvent.RmdParamsReady, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             String paramsFile = event.getData();
-            eventBus_.fireEvent(new RmdParamsReadyEvent(paramsFile));
+            eventBus.fireEvent(new RmdParamsReadyEvent(paramsFile));
          }
-         else if (type.equals(ClientEvent.RegisterUserCommand))
+      });
+
+      registerHandler(ClientEvent.RegisterUserCommand, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RegisterUserCommandEvent.Data data = event.getData();
-            eventBus_.fireEvent(new RegisterUserCommandEvent(data));
+            eventBus.fireEvent(new RegisterUserCommandEvent(data));
          }
-         else if (type.equals(ClientEvent.SendToConsole))
+      });
+
+      registerHandler(ClientEvent.SendToConsole, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             SendToConsoleEvent.Data data = event.getData();
-            eventBus_.fireEvent(new SendToConsoleEvent(data));
+            eventBus.fireEvent(new SendToConsoleEvent(data));
          }
-         else if (type.equals(ClientEvent.UserFollowStarted))
+      });
+
+      registerHandler(ClientEvent.UserFollowStarted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ProjectUser user = event.getData();
-            eventBus_.fireEvent(new FollowUserEvent(user, true));
+            eventBus.fireEvent(new FollowUserEvent(user, true));
          }
-         else if (type.equals(ClientEvent.UserFollowEnded))
+      });
+
+      registerHandler(ClientEvent.UserFollowEnded, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ProjectUser user = event.getData();
-            eventBus_.fireEvent(new FollowUserEvent(user, false));
+            eventBus.fireEvent(new FollowUserEvent(user, false));
          }
-         else if (type.equals(ClientEvent.ProjectAccessRevoked))
+      });
+
+      registerHandler(ClientEvent.ProjectAccessRevoked, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new ProjectAccessRevokedEvent());
+            eventBus.fireEvent(new ProjectAccessRevokedEvent());
          }
-         else if (type.equals(ClientEvent.CollabEditSaved))
+      });
+
+      registerHandler(ClientEvent.CollabEditSaved, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             CollabEditSavedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new CollabEditSavedEvent(data));
+            eventBus.fireEvent(new CollabEditSavedEvent(data));
          }
-         else if (type.equals(ClientEvent.AddinRegistryUpdated))
+      });
+
+      registerHandler(ClientEvent.AddinRegistryUpdated, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RAddins data = event.getData();
-            eventBus_.fireEvent(new AddinRegistryUpdatedEvent(data));
+            eventBus.fireEvent(new AddinRegistryUpdatedEvent(data));
          }
-         else if (type.equals(ClientEvent.ChunkOutput))
+      });
+
+      registerHandler(ClientEvent.ChunkOutput, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RmdChunkOutput data = event.getData();
-            eventBus_.fireEvent(new RmdChunkOutputEvent(data));
+            eventBus.fireEvent(new RmdChunkOutputEvent(data));
          }
-         else if (type.equals(ClientEvent.ChunkOutputFinished))
+      });
+
+      registerHandler(ClientEvent.ChunkOutputFinished, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RmdChunkOutputFinishedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new RmdChunkOutputFinishedEvent(data));
+            eventBus.fireEvent(new RmdChunkOutputFinishedEvent(data));
          }
-         else if (type.equals(ClientEvent.RprofStarted))
+      });
+
+      registerHandler(ClientEvent.RprofStarted, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new RprofEvent(RprofEvent.RprofEventType.START, null));
+            eventBus.fireEvent(new RprofEvent(RprofEvent.RprofEventType.START, null));
          }
-         else if (type.equals(ClientEvent.RprofStopped))
+      });
+
+      registerHandler(ClientEvent.RprofStopped, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new RprofEvent(RprofEvent.RprofEventType.STOP, null));
+            eventBus.fireEvent(new RprofEvent(RprofEvent.RprofEventType.STOP, null));
          }
-         else if (type.equals(ClientEvent.RprofCreated))
+      });
+
+      registerHandler(ClientEvent.RprofCreated, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             RprofEvent.Data data = event.getData();
-            eventBus_.fireEvent(new RprofEvent(RprofEvent.RprofEventType.CREATE, data));
+            eventBus.fireEvent(new RprofEvent(RprofEvent.RprofEventType.CREATE, data));
          }
-         else if (type.equals(ClientEvent.EditorCommand))
+      });
+
+      registerHandler(ClientEvent.EditorCommand, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             EditorCommandEvent.Data data = event.getData();
             EditorCommandEvent payload = new EditorCommandEvent(data);
-            eventBus_.fireEvent(new EditorCommandDispatchEvent(payload));
+            eventBus.fireEvent(new EditorCommandDispatchEvent(payload));
          }
-         else if (type.equals(ClientEvent.PreviewRmd))
+      });
+
+      registerHandler(ClientEvent.PreviewRmd, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             PreviewRmdEvent.Data data = event.getData();
-            eventBus_.fireEvent(new PreviewRmdEvent(data));
+            eventBus.fireEvent(new PreviewRmdEvent(data));
          }
-         else if (type.equals(ClientEvent.WebsiteFileSaved))
+      });
+
+      registerHandler(ClientEvent.WebsiteFileSaved, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             FileSystemItem fsi = event.getData();
-            eventBus_.fireEvent(new WebsiteFileSavedEvent(fsi));
+            eventBus.fireEvent(new WebsiteFileSavedEvent(fsi));
          }
-         else if (type.equals(ClientEvent.ChunkPlotRefreshed))
+      });
+
+      registerHandler(ClientEvent.ChunkPlotRefreshed, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ChunkPlotRefreshedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ChunkPlotRefreshedEvent(data));
+            eventBus.fireEvent(new ChunkPlotRefreshedEvent(data));
          }
-         else if (type.equals(ClientEvent.ChunkPlotRefreshFinished))
+      });
+
+      registerHandler(ClientEvent.ChunkPlotRefreshFinished, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ChunkPlotRefreshFinishedEvent.Data data = event.getData();
-            eventBus_.fireEvent(new ChunkPlotRefreshFinishedEvent(data));
+            eventBus.fireEvent(new ChunkPlotRefreshFinishedEvent(data));
          }
-         else if (type.equals(ClientEvent.ReloadWithLastChanceSave))
+      });
+
+      registerHandler(ClientEvent.ReloadWithLastChanceSave, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
-            eventBus_.fireEvent(new ReloadWithLastChanceSaveEvent());
+            eventBus.fireEvent(new ReloadWithLastChanceSaveEvent());
          }
-         else if (type.equals(ClientEvent.ConnectionOpened))
+      });
+
+      registerHandler(ClientEvent.ConnectionOpened, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             Connection connection = event.getData();
-            eventBus_.fireEvent(new ConnectionOpenedEvent(connection));
+            eventBus.fireEvent(new ConnectionOpenedEvent(connection));
          }
-         else if (type.equals(ClientEvent.ConnectionClosed))
+      });
+
+      registerHandler(ClientEvent.ConnectionClosed, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ConnectionId connectionId = event.getData();
-            eventBus_.fireEvent(new ConnectionClosedEvent(connectionId));
+            eventBus.fireEvent(new ConnectionClosedEvent(connectionId));
          }
-         else if (type.equals(ClientEvent.ConnectionUpdated))
+      });
+
+      registerHandler(ClientEvent.ConnectionUpdated, new Handler()
+      {
+         @Override
+         public void dispatch(EventBus eventBus, ClientEvent event)
          {
             ConnectionId connectionId = event.getData();
-            eventBus_.fireEvent(new ConnectionUpdatedEvent(connectionId));
+            eventBus.fireEvent(new ConnectionUpdatedEvent(connectionId));
          }
-         else
+      });
+   }
+   
+   private static final HashMap<String, Registration> registry_ =
+         new HashMap<String, Registration>();
+   private static final HashSet<GwtEvent.Type<?>> filterableEventTypes_ =
+         new HashSet<GwtEvent.Type<?>>();
+   
+   static
+   {
+      registerDefaultHandlers();
+      
+      DiagnosticCounters.register("Client event dispatch",
+                                  new DiagnosticCounters.Source()
+      {
+         @Override
+         public void collect(DiagnosticCounters.Collector collector)
          {
-            GWT.log("WARNING: Server event not dispatched: " + type, null);
+            for (Registration registration : registry_.values())
+            {
+               DispatchStats stats = registration.stats;
+               if (stats.getCount() == 0)
+                  continue;
+               collector.add(stats.getType(),
+                             stats.getCount() + " events, " +
+                             stats.getTotalMillis() + "ms total, " +
+                             stats.getMaxMillis() + "ms max");
+            }
          }
-      }
-      catch(Throwable e)
-      {
-         GWT.log("WARNING: Exception occured dispatching event: " + type, e);
-      }
+      });
    }
-   
 
    private final EventBus eventBus_;
 
-   private final ArrayList<ClientEvent> pendingEvents_ = new ArrayList<ClientEvent>();
+   private final RingBuffer<ClientEvent> pendingEvents_ =
+         new RingBuffer<ClientEvent>(256);
+   
+   private int coalescedEvents_ = 0;
+   private int maxQueueDepth_ = 0;
+   // duration of the most recent (and longest) time slice spent draining
+   // the event queue
+   private long lastDrainMillis_ = 0;
+   private long maxDrainMillis_ = 0;
+   
+   private static final int MAX_DRAIN_MILLIS = 40;
+   private static final int MAX_COALESCED_CHARS = 65536;
    
 
 }
@@ -0,0 +1,70 @@
+/*
+ * EventStreamParser.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Splits the text of a streaming event response into frames as it arrives.
+// The server writes one frame (a JSON array of client events) per line; 
+// since the response text only ever grows we remember how much of it we
+// have already consumed and only scan the new portion on each call.
+class EventStreamParser
+{
+   public List<String> parse(String responseText)
+   {
+      ArrayList<String> frames = new ArrayList<String>();
+      if (responseText == null)
+         return frames;
+      
+      int newline;
+      while ((newline = responseText.indexOf('\n', offset_)) != -1)
+      {
+         String frame = responseText.substring(offset_, newline).trim();
+         offset_ = newline + 1;
+         
+         // empty lines are keep-alives
+         if (frame.length() > 0)
+         {
+            frames.add(frame);
+            frameCount_++;
+         }
+      }
+      
+      partialFrame_ = responseText.substring(offset_).trim().length() > 0;
+      return frames;
+   }
+   
+   public boolean hasPartialFrame()
+   {
+      return partialFrame_;
+   }
+   
+   public int getFrameCount()
+   {
+      return frameCount_;
+   }
+   
+   public void reset()
+   {
+      offset_ = 0;
+      frameCount_ = 0;
+      partialFrame_ = false;
+   }
+   
+   private int offset_ = 0;
+   private int frameCount_ = 0;
+   private boolean partialFrame_ = false;
+}
@@ -16,6 +16,7 @@
 package org.rstudio.studio.client.server.remote;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,12 +28,14 @@ import org.rstudio.core.client.files.FileSystemItem;
 import org.rstudio.core.client.js.JsArrayEx;
 import org.rstudio.core.client.js.JsObject;
 import org.rstudio.core.client.js.JsUtil;
+import org.rstudio.core.client.jsonrpc.RpcBatch;
 import org.rstudio.core.client.jsonrpc.RpcError;
 import org.rstudio.core.client.jsonrpc.RpcObjectList;
 import org.rstudio.core.client.jsonrpc.RpcRequest;
 import org.rstudio.core.client.jsonrpc.RpcRequestCallback;
 import org.rstudio.core.client.jsonrpc.RpcResponse;
 import org.rstudio.core.client.jsonrpc.RpcResponseHandler;
+import org.rstudio.core.client.patch.SubstringDiff;
 import org.rstudio.studio.client.application.Desktop;
 import org.rstudio.studio.client.application.events.ClientDisconnectedEvent;
 import org.rstudio.studio.client.application.events.EventBus;
@@ -181,6 +184,8 @@ import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayInteger;
 import com.google.gwt.core.client.JsArrayNumber;
 import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.http.client.URL;
 import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONBoolean;
@@ -1572,12 +1577,21 @@ public class RemoteServer implements Server
                                 String encoding,
                                 String foldSpec,
                                 JsArray<ChunkDefinition> chunkDefs,
-                                String replacement,
-                                int offset,
-                                int length,
+                                List<SubstringDiff> diffs,
                                 String hash,
                                 ServerRequestCallback<String> requestCallback)
    {
+      JSONArray replacements = new JSONArray();
+      JSONArray offsets = new JSONArray();
+      JSONArray lengths = new JSONArray();
+      for (int i = 0; i < diffs.size(); i++)
+      {
+         SubstringDiff diff = diffs.get(i);
+         replacements.set(i, new JSONString(diff.getReplacement()));
+         offsets.set(i, new JSONNumber(diff.getOffset()));
+         lengths.set(i, new JSONNumber(diff.getLength()));
+      }
+
       JSONArray params = new JSONArray();
       params.set(0, new JSONString(id));
       params.set(1, path == null ? JSONNull.getInstance() : new JSONString(path));
@@ -1585,9 +1599,9 @@ public class RemoteServer implements Server
       params.set(3, encoding == null ? JSONNull.getInstance() : new JSONString(encoding));
       params.set(4, new JSONString(StringUtil.notNull(foldSpec)));
       params.set(5, chunkDefs == null ? JSONNull.getInstance() : new JSONObject(chunkDefs));
-      params.set(6, new JSONString(replacement));
-      params.set(7, new JSONNumber(offset));
-      params.set(8, new JSONNumber(length));
+      params.set(6, replacements);
+      params.set(7, offsets);
+      params.set(8, lengths);
       params.set(9, new JSONString(hash));
       sendRequest(RPC_SCOPE, SAVE_DOCUMENT_DIFF, params, requestCallback);
    }
@@ -2330,6 +2344,44 @@ public class RemoteServer implements Server
                          retryHandler);
    }
 
+   boolean isEventStreamSupported()
+   {
+      SessionInfo sessionInfo = session_.getSessionInfo();
+      return sessionInfo != null && sessionInfo.getEventStreamSupported();
+   }
+   
+   RemoteServerEventStream createEventStream()
+   {
+      // satellite windows should never stream events directly!
+      if (Satellite.isCurrentWindowSatellite())
+      {
+         Debug.log("Satellite window should not stream events!");
+         assert false;
+      }
+      
+      // NOTE: we don't call getApplicationURL here since it will in turn
+      // try to ensure that we are listening for events
+      return new RemoteServerEventStream(
+            GWT.getHostPageBaseURL() + EVENTS_SCOPE + "/" + 
+               RemoteServerEventStream.STREAM_EVENTS,
+            clientId_,
+            clientVersion_);
+   }
+
+   // gives an error reported by the event stream the same treatment as an
+   // error returned by get_events (e.g. refreshing credentials and then
+   // retrying when unauthorized); returns true if the error was handled
+   boolean handleEventStreamError(RpcError error, RetryHandler retryHandler)
+   {
+      if (isDisconnected())
+         return true;
+
+      if (resolveRpcErrorAndRetry(error, retryHandler))
+         return true;
+
+      return handleRpcErrorInternally(error);
+   }
+
    void handleUnauthorizedError()
    {
       // disconnect
@@ -2559,7 +2611,7 @@ public class RemoteServer implements Server
          return rpcRequest;
 
       // send the request
-      rpcRequest.send(new RpcRequestCallback() {
+      sendOrBatch(scope, rpcRequest, new RpcRequestCallback() {
          public void onError(RpcRequest request, RpcError error)
          {
             // ignore errors if we are disconnected
@@ -2629,6 +2681,49 @@ public class RemoteServer implements Server
       return rpcRequest;
    }
    
+   // requests for state which panes commonly refresh together are batched:
+   // those issued in the same event loop tick are sent to the server in a
+   // single http request (assuming the server supports it)
+   private void sendOrBatch(String scope,
+                            RpcRequest rpcRequest,
+                            RpcRequestCallback callback)
+   {
+      if (!isBatchable(scope, rpcRequest.getMethod()))
+      {
+         rpcRequest.send(callback);
+         return;
+      }
+      
+      if (pendingBatch_ == null)
+      {
+         pendingBatch_ = new RpcBatch(
+               GWT.getHostPageBaseURL() + RPC_SCOPE + "/" + RpcBatch.BATCH,
+               clientId_,
+               clientVersion_);
+         
+         Scheduler.get().scheduleFinally(new ScheduledCommand()
+         {
+            @Override
+            public void execute()
+            {
+               RpcBatch batch = pendingBatch_;
+               pendingBatch_ = null;
+               batch.send();
+            }
+         });
+      }
+      pendingBatch_.add(rpcRequest, callback);
+   }
+   
+   private boolean isBatchable(String scope, String method)
+   {
+      if (!RPC_SCOPE.equals(scope) || !BATCHABLE_METHODS.contains(method))
+         return false;
+      
+      SessionInfo sessionInfo = session_.getSessionInfo();
+      return sessionInfo != null && sessionInfo.getRpcBatchSupported();
+   }
+   
    private void ensureListeningForEvents()
    {
       // don't do this if we are disconnected
@@ -4655,6 +4750,7 @@ public class RemoteServer implements Server
 
    private String clientId_;
    private String clientVersion_ = "";
+   private RpcBatch pendingBatch_ = null;
    private boolean listeningForEvents_;
    private boolean disconnected_;
 
@@ -5015,4 +5111,15 @@ public class RemoteServer implements Server
    private static final String COPY_PROFILE = "copy_profile";
    private static final String CLEAR_PROFILE = "clear_profile";
    private static final String PROFILE_SOURCES = "profile_sources";
+   
+   // read-only methods which are safe to send as part of an rpc batch
+   private static final List<String> BATCHABLE_METHODS = Arrays.asList(
+         GET_PACKAGE_STATE,
+         LIST_ENVIRONMENT,
+         GET_ENVIRONMENT_NAMES,
+         GET_ENVIRONMENT_STATE,
+         LIST_FILES,
+         GIT_ALL_STATUS,
+         SVN_STATUS,
+         GET_RECENT_HISTORY);
 }
@@ -139,6 +139,12 @@ class RemoteServerEventListener
          activeRequest_.cancel();
          activeRequest_ = null;
       }
+      if (activeStream_ != null)
+      {
+         activeStream_.cancel();
+         activeStream_ = null;
+      }
+      streamReconnectTimer_.cancel();
    }
    
    // ensure that we are actively listening for events (used to make 
@@ -246,6 +252,14 @@ class RemoteServerEventListener
       // abort if we are no longer running
       if (!isListening_)
          return;
+      
+      // use a streaming response if the server supports it (and it hasn't
+      // failed us before), otherwise fall back to long-polling
+      if (!eventStreamFailed_ && server_.isEventStreamSupported())
+      {
+         doStream();
+         return;
+      }
           
       // setup request callback (save reference for cancellation)
       activeRequestCallback_ = new ServerRequestCallback<JsArray<ClientEvent>>() 
@@ -259,23 +273,8 @@ class RemoteServerEventListener
             try
             {
                // only processs events if we are still listening
-               if (isListening_ && (events != null))
-               {
-                  for (int i=0; i<events.length(); i++)
-                  {
-                     // we can stop listening in the middle of dispatching
-                     // events (e.g. if we dispatch a Suicide event) so we 
-                     // need to check the listening_ flag before each event
-                     // is dispatched
-                     if (!isListening_)
-                        return;
-                     
-                     // disppatch event
-                     ClientEvent event = events.get(i);
-                     dispatchEvent(event);
-                     lastEventId_ = event.getId();
-                  }   
-               }
+               if (!processEvents(events))
+                  return;
             }
             // catch all here to make sure that in all cases we call
             // listen() again after processing
@@ -328,33 +327,118 @@ class RemoteServerEventListener
          }
       };
       
-      // retry handler (restart listener)
-      RetryHandler retryHandler = new RetryHandler() {
-
-         public void onRetry()
+      // send request
+      activeRequest_ = server_.getEvents(lastEventId_, 
+                                         activeRequestCallback_,
+                                         retryHandler_);                             
+   }
+   
+   
+   private void doStream()
+   {
+      final RemoteServerEventStream stream = server_.createEventStream();
+      activeStream_ = stream;
+      stream.start(lastEventId_, new RemoteServerEventStream.Callback()
+      {
+         @Override
+         public void onEvents(JsArray<ClientEvent> events)
          {
-            // need to do a full restart to ensure that the existing
-            // activeRequest_ and activeRequestCallback_ are cleaned up
-            // and all state is reset correctly
-            restart();
+            // keep watchdog appraised of successful receipt of events
+            watchdog_.notifyResponseReceived();
+            
+            // the stream is working, so any later error starts a new backoff
+            streamErrorCount_ = 0;
+            
+            try
+            {
+               processEvents(events);
+            }
+            catch(Throwable e)
+            {
+               GWT.log("ERROR: Processing client events", e);
+            }
          }
          
-         public void onError(RpcError error)
+         @Override
+         public void onEnded(boolean buffered)
          {
-            // error while attempting to recover, to be on the safe side
-            // we simply stop listening for events. if rather than stopping 
-            // we restarted we would open ourselves up to a situation
-            // where we keep hitting the same error over and over again.
-            stop();
+            // the server periodically ends the stream; pick up where we
+            // left off with a new one
+            watchdog_.notifyResponseReceived();
+            if (activeStream_ == stream)
+               activeStream_ = null;
+            streamErrorCount_ = 0;
+            
+            // a buffered stream only delivers its events when it ends, which
+            // is worse than polling
+            if (buffered)
+               eventStreamFailed_ = true;
+            
+            listen();
          }
-      };
-      
-      // send request
-      activeRequest_ = server_.getEvents(lastEventId_, 
-                                         activeRequestCallback_,
-                                         retryHandler);                             
+         
+         @Override
+         public void onError(RpcError error, boolean receivedEvents)
+         {
+            if (activeStream_ == stream)
+               activeStream_ = null;
+            
+            // errors such as unauthorized or an invalid client id are
+            // handled the same way as they are for get_events
+            if (server_.handleEventStreamError(error, retryHandler_))
+               return;
+            
+            if (error.getCode() == RpcError.UNAVAILABLE)
+            {
+               stop();
+               server_.getEventBus().fireEvent(new ServerUnavailableEvent());
+               return;
+            }
+            
+            // if the stream keeps failing without delivering anything (e.g.
+            // something between us and the server doesn't allow it) then
+            // fall back to polling
+            if (++streamErrorCount_ > MAX_STREAM_RETRIES)
+            {
+               eventStreamFailed_ = true;
+               listen();
+               return;
+            }
+            
+            // otherwise reconnect, backing off exponentially while the
+            // errors continue
+            streamReconnectTimer_.schedule(Math.min(
+                  STREAM_RETRY_MAX_DELAY_MS,
+                  STREAM_RETRY_DELAY_MS << (streamErrorCount_ - 1)));
+         }
+      });
    }
    
+   // returns false if we stopped listening while processing the events
+   private boolean processEvents(JsArray<ClientEvent> events)
+   {
+      if (!isListening_)
+         return false;
+      
+      if (events == null)
+         return true;
+      
+      for (int i=0; i<events.length(); i++)
+      {
+         // we can stop listening in the middle of dispatching
+         // events (e.g. if we dispatch a Suicide event) so we 
+         // need to check the listening_ flag before each event
+         // is dispatched
+         if (!isListening_)
+            return false;
+         
+         // disppatch event
+         ClientEvent event = events.get(i);
+         dispatchEvent(event);
+         lastEventId_ = event.getId();
+      }
+      return true;
+   }
    
    private void dispatchEvent(ClientEvent event)
    {
@@ -480,6 +564,11 @@ class RemoteServerEventListener
    // unnecessarily during a listen delay
    private final int kWatchdogIntervalMs = 1000;
    private final int kSecondListenBounceMs = 250;
+   
+   // stream reconnects back off from 500ms up to 8s, after which we poll
+   private static final int STREAM_RETRY_DELAY_MS = 500;
+   private static final int STREAM_RETRY_MAX_DELAY_MS = 8000;
+   private static final int MAX_STREAM_RETRIES = 5;
        
    private boolean isListening_;
    private int lastEventId_ ;
@@ -487,7 +576,43 @@ class RemoteServerEventListener
    private int listenErrorCount_ ;
    private boolean sessionWasQuit_ ;
    
+   private boolean eventStreamFailed_ = false;
+   private int streamErrorCount_ = 0;
+   
+   private final Timer streamReconnectTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         // only reconnect if we haven't been stopped or restarted since
+         if (isListening_ && activeStream_ == null)
+            listen();
+      }
+   };
+   
+   // retry handler (restart listener)
+   private final RetryHandler retryHandler_ = new RetryHandler() {
+
+      public void onRetry()
+      {
+         // need to do a full restart to ensure that the existing
+         // activeRequest_ and activeRequestCallback_ are cleaned up
+         // and all state is reset correctly
+         restart();
+      }
+      
+      public void onError(RpcError error)
+      {
+         // error while attempting to recover, to be on the safe side
+         // we simply stop listening for events. if rather than stopping 
+         // we restarted we would open ourselves up to a situation
+         // where we keep hitting the same error over and over again.
+         stop();
+      }
+   };
+   
    private RpcRequest activeRequest_ ;
+   private RemoteServerEventStream activeStream_;
    private ServerRequestCallback<JsArray<ClientEvent>> activeRequestCallback_;
 
    private final ClientEventDispatcher eventDispatcher_;
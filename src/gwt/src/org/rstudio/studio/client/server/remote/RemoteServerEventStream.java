@@ -0,0 +1,224 @@
+/*
+ * RemoteServerEventStream.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONNumber;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONParser;
+import com.google.gwt.json.client.JSONString;
+import com.google.gwt.xhr.client.ReadyStateChangeHandler;
+import com.google.gwt.xhr.client.XMLHttpRequest;
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.jsonrpc.RpcError;
+import org.rstudio.core.client.jsonrpc.RpcResponse;
+
+// Streaming alternative to the get_events long poll. A single request is
+// held open and the server writes event batches to it as they occur, so
+// we avoid a round trip (and request overhead) for every batch. The server
+// ends the response periodically, at which point the listener simply 
+// opens another stream from the last event id it has seen.
+class RemoteServerEventStream
+{
+   public interface Callback
+   {
+      void onEvents(JsArray<ClientEvent> events);
+      
+      // buffered is true if the stream only reached us once it was complete
+      // (e.g. a proxy between us and the server is buffering responses)
+      void onEnded(boolean buffered);
+      
+      void onError(RpcError error, boolean receivedEvents);
+   }
+   
+   public RemoteServerEventStream(String url, 
+                                  String clientId, 
+                                  String clientVersion)
+   {
+      url_ = url;
+      clientId_ = clientId;
+      clientVersion_ = clientVersion;
+   }
+   
+   public void start(int lastEventId, final Callback callback)
+   {
+      cancel();
+      parser_.reset();
+      startTime_ = System.currentTimeMillis();
+      firstDataTime_ = -1;
+      
+      JSONArray params = new JSONArray();
+      params.set(0, new JSONNumber(lastEventId));
+      JSONObject request = new JSONObject();
+      request.put("method", new JSONString(STREAM_EVENTS));
+      request.put("params", params);
+      if (clientId_ != null)
+         request.put("clientId", new JSONString(clientId_));
+      request.put("clientVersion", new JSONString(clientVersion_));
+      
+      xhr_ = XMLHttpRequest.create();
+      xhr_.open("POST", url_);
+      xhr_.setRequestHeader("Content-Type", "application/json");
+      xhr_.setRequestHeader("Accept", 
+                            STREAM_CONTENT_TYPE + ", application/json");
+      xhr_.setOnReadyStateChange(new ReadyStateChangeHandler()
+      {
+         @Override
+         public void onReadyStateChange(XMLHttpRequest xhr)
+         {
+            int state = xhr.getReadyState();
+            if (state == XMLHttpRequest.LOADING)
+            {
+               if (xhr.getStatus() == 200 && isStream(xhr))
+               {
+                  if (firstDataTime_ == -1 && 
+                      !StringUtil.isNullOrEmpty(xhr.getResponseText()))
+                  {
+                     firstDataTime_ = System.currentTimeMillis();
+                  }
+                  processFrames(xhr, callback);
+               }
+            }
+            else if (state == XMLHttpRequest.DONE)
+            {
+               xhr.clearOnReadyStateChange();
+               if (xhr != xhr_)
+                  return;
+               
+               if (xhr.getStatus() != 200 || !isStream(xhr))
+               {
+                  xhr_ = null;
+                  callback.onError(getResponseError(xhr), 
+                                   parser_.getFrameCount() > 0);
+                  return;
+               }
+               
+               if (!processFrames(xhr, callback))
+                  return;
+               
+               xhr_ = null;
+               if (parser_.hasPartialFrame())
+               {
+                  callback.onError(
+                        RpcError.create(RpcError.TRANSMISSION_ERROR,
+                                        "Event stream ended mid-frame"), 
+                        parser_.getFrameCount() > 0);
+               }
+               else
+               {
+                  callback.onEnded(isBuffered());
+               }
+            }
+         }
+      });
+      xhr_.send(request.toString());
+   }
+   
+   public void cancel()
+   {
+      if (xhr_ != null)
+      {
+         xhr_.clearOnReadyStateChange();
+         xhr_.abort();
+         xhr_ = null;
+      }
+   }
+   
+   // returns false if the stream was stopped while processing frames
+   private boolean processFrames(XMLHttpRequest xhr, Callback callback)
+   {
+      for (String frame : parser_.parse(xhr.getResponseText()))
+      {
+         JsArray<ClientEvent> events;
+         try
+         {
+            JSONArray array = JSONParser.parseStrict(frame).isArray();
+            if (array == null)
+               throw new IllegalArgumentException("Expected event array");
+            events = array.getJavaScriptObject().cast();
+         }
+         catch(Exception e)
+         {
+            cancel();
+            callback.onError(RpcError.create(RpcError.TRANSMISSION_ERROR,
+                                             e.getMessage()),
+                             parser_.getFrameCount() > 1);
+            return false;
+         }
+         
+         callback.onEvents(events);
+         
+         // the callback may have stopped the stream
+         if (xhr != xhr_)
+            return false;
+      }
+      return true;
+   }
+   
+   private boolean isStream(XMLHttpRequest xhr)
+   {
+      String contentType = xhr.getResponseHeader("Content-Type");
+      return contentType != null && 
+             contentType.startsWith(STREAM_CONTENT_TYPE);
+   }
+   
+   // the server starts every stream with a keep-alive, so if the first
+   // data of a long-running stream only showed up as it completed then
+   // something along the way is holding on to the response
+   private boolean isBuffered()
+   {
+      long now = System.currentTimeMillis();
+      if (now - startTime_ < BUFFERING_CHECK_MS)
+         return false;
+      return firstDataTime_ == -1 || 
+             now - firstDataTime_ < BUFFERING_CHECK_MS / 10;
+   }
+   
+   // errors come back the same way they do for other rpc requests: as a
+   // non-200 status or as a json-rpc error response (e.g. unauthorized
+   // from the server, or an invalid client id from the session)
+   private RpcError getResponseError(XMLHttpRequest xhr)
+   {
+      int status = xhr.getStatus();
+      if (status != 200)
+      {
+         String message = status == 0 ?
+               "Unable to establish connection with R session" :
+               "Status code " + status + " returned";
+         return RpcError.create(RpcError.TRANSMISSION_ERROR, message);
+      }
+      
+      RpcResponse response = RpcResponse.parse(xhr.getResponseText());
+      if (response != null && response.getError() != null)
+         return response.getError();
+      
+      return RpcError.create(RpcError.TRANSMISSION_ERROR,
+                             "Unexpected event stream response");
+   }
+   
+   private final String url_;
+   private final String clientId_;
+   private final String clientVersion_;
+   private final EventStreamParser parser_ = new EventStreamParser();
+   private XMLHttpRequest xhr_ = null;
+   private long startTime_ = -1;
+   private long firstDataTime_ = -1;
+   
+   private static final String STREAM_CONTENT_TYPE = "application/x-ndjson";
+   private static final long BUFFERING_CHECK_MS = 10000;
+   
+   public static final String STREAM_EVENTS = "stream_events";
+}
@@ -132,6 +132,7 @@ public abstract class
    public abstract AppCommand notebookExpandAllOutput();
    public abstract AppCommand notebookCollapseAllOutput();
    public abstract AppCommand notebookClearAllOutput();
+   public abstract AppCommand notebookClearChunkCache();
    public abstract AppCommand renameInScope();
    public abstract AppCommand insertRoxygenSkeleton();
    public abstract AppCommand insertSnippet();
@@ -384,6 +384,18 @@ public class SessionInfo extends JavaScriptObject
       return this.disable_check_for_updates;
    }-*/;
    
+   // whether the session can deliver client events over a streaming
+   // response (otherwise we long-poll get_events)
+   public final native boolean getEventStreamSupported() /*-{
+      return !!this.event_stream_supported;
+   }-*/;
+   
+   // whether the session accepts several rpc requests in a single
+   // rpc/batch call
+   public final native boolean getRpcBatchSupported() /*-{
+      return !!this.rpc_batch_supported;
+   }-*/;
+   
    public final native boolean getShowIdentity() /*-{
       return this.show_identity;
    }-*/;
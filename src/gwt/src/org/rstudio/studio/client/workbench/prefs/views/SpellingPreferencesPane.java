@@ -59,6 +59,9 @@ public class SpellingPreferencesPane extends PreferencesPane
       
       add(checkboxPref("Ignore words with numbers",
                        prefs.ignoreWordsInUppercase()));
+      
+      add(checkboxPref("Mark misspelled words while editing",
+                       prefs.realTimeSpellChecking()));
    }
 
    
@@ -31,6 +31,7 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 
 import org.rstudio.core.client.BrowseCap;
+import org.rstudio.core.client.DiagnosticCounters;
 import org.rstudio.core.client.SerializedCommand;
 import org.rstudio.core.client.SerializedCommandQueue;
 import org.rstudio.core.client.Size;
@@ -140,6 +141,16 @@ public class WorkbenchScreen extends Composite
          }
       };
 
+      DiagnosticCounters.register("Plots", new DiagnosticCounters.Source()
+      {
+         @Override
+         public void collect(DiagnosticCounters.Collector collector)
+         {
+            collector.add("Renders avoided while resizing",
+                          avoidedPlotRenders_);
+         }
+      });
+
       eventBus.addHandler(SessionInitEvent.TYPE, new SessionInitHandler()
       {
          public void onSessionInit(SessionInitEvent sie)
@@ -263,9 +274,9 @@ public class WorkbenchScreen extends Composite
             plotPanel.getOffsetWidth(),
             plotPanel.getOffsetHeight() - ModuleTabLayoutPanel.BAR_HEIGHT);
 
-      Size plotsSize = new Size(
+      Size plotsSize = scheduledPlotsSize(bucketPlotsSize(new Size(
                Math.max(deckPanelSize.width, 0),
-               Math.max(deckPanelSize.height - Toolbar.DEFAULT_HEIGHT, 0));
+               Math.max(deckPanelSize.height - Toolbar.DEFAULT_HEIGHT, 0))));
       
       double devicePixelRatio = 1.0;
       if (BrowseCap.isMacintoshDesktop())
@@ -286,6 +297,45 @@ public class WorkbenchScreen extends Composite
       session_.persistClientState();
    }
 
+   // the server re-renders the active plot for every new plots size; round
+   // sizes down so that small changes (e.g. a pixel of splitter jitter) 
+   // don't cause a render (the plot image is scaled to fill the pane)
+   private static Size bucketPlotsSize(Size size)
+   {
+      return new Size(size.width - size.width % PLOTS_SIZE_BUCKET,
+                      size.height - size.height % PLOTS_SIZE_BUCKET);
+   }
+   
+   // returns the plots size to report to the server. while the plots pane 
+   // is being resized (e.g. by dragging a splitter) the size last reported
+   // is kept, so the current plot is just scaled; the new size is reported
+   // once it has stopped changing
+   private Size scheduledPlotsSize(Size size)
+   {
+      Size reported = new Size(lastMetrics_.getGraphicsWidth(),
+                               lastMetrics_.getGraphicsHeight());
+      boolean settled = plotsResizeSettled_;
+      plotsResizeSettled_ = false;
+      
+      // report the first size, and any size once resizing has settled, 
+      // right away
+      if (size.equals(reported) || settled ||
+          (reported.width == 0 && reported.height == 0))
+      {
+         plotsResizeTimer_.cancel();
+         deferredPlotsSize_ = null;
+         return size;
+      }
+      
+      // each distinct size we pass through without reporting is a render
+      // the server doesn't have to do
+      if (deferredPlotsSize_ != null && !deferredPlotsSize_.equals(size))
+         avoidedPlotRenders_++;
+      deferredPlotsSize_ = size;
+      plotsResizeTimer_.schedule(PLOTS_RESIZE_SETTLE_MILLIS);
+      return reported;
+   }
+   
    public void onSelection(SelectionEvent<Integer> integerSelectionEvent)
    {
       eventBus_.fireEvent(new PushClientStateEvent());
@@ -390,6 +440,22 @@ public class WorkbenchScreen extends Composite
 
    private WorkbenchMetrics lastMetrics_ = WorkbenchMetrics.create(0,0,0,1.0);
    
+   private Size deferredPlotsSize_ = null;
+   private boolean plotsResizeSettled_ = false;
+   private int avoidedPlotRenders_ = 0;
+   private final Timer plotsResizeTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         plotsResizeSettled_ = true;
+         doOnPaneSizesChanged();
+      }
+   };
+   
+   private static final int PLOTS_SIZE_BUCKET = 4;
+   private static final int PLOTS_RESIZE_SETTLE_MILLIS = 400;
+   
    private final GlobalDisplay globalDisplay_;
    private final EventBus eventBus_;
    private final Session session_;
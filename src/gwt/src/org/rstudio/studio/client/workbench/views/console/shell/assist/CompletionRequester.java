@@ -24,6 +24,7 @@ import com.google.inject.Inject;
 
 import org.rstudio.core.client.SafeHtmlUtil;
 import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.container.LruCache;
 import org.rstudio.core.client.js.JsUtil;
 import org.rstudio.core.client.regex.Pattern;
 import org.rstudio.studio.client.RStudioGinjector;
@@ -54,8 +55,6 @@ import org.rstudio.studio.client.workbench.views.source.model.RnwCompletionConte
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -69,8 +68,10 @@ public class CompletionRequester
    private final SnippetHelper snippets_ ;
 
    private String cachedLinePrefix_ ;
-   private HashMap<String, CompletionResult> cachedCompletions_ =
-         new HashMap<String, CompletionResult>();
+   // keyed by the text typed since the completions were requested; the
+   // full result is stored under ""
+   private LruCache<String, CompletionResult> cachedCompletions_ =
+         new LruCache<String, CompletionResult>(MAX_CACHED_COMPLETIONS);
    private RnwCompletionContext rnwContext_ ;
    
    public CompletionRequester(RnwCompletionContext rnwContext,
@@ -155,9 +156,25 @@ public class CompletionRequester
                                    final String diff,
                                    CompletionResult cachedResult)
    {
-      ArrayList<QualifiedName> newCompletions = new ArrayList<QualifiedName>();
-      newCompletions.ensureCapacity(cachedResult.completions.size());
-      
+      // Anything that didn't match a shorter query can't match this one, so
+      // start from the result for the longest one we have. (This doesn't
+      // hold if a '/' was typed, as file completions match only the text
+      // after the last '/'.)
+      CompletionResult source = cachedResult;
+      if (diff.indexOf('/') == -1)
+      {
+         for (int i = diff.length() - 1; i > 0; i--)
+         {
+            CompletionResult previous =
+                  cachedCompletions_.get(diff.substring(0, i));
+            if (previous != null)
+            {
+               source = previous;
+               break;
+            }
+         }
+      }
+
       // For completions that are files or directories, we need to post-process
       // the token and the qualified name to strip out just the basename (filename).
       // Note that we normalize the paths such that files will have no trailing slash,
@@ -168,52 +185,41 @@ public class CompletionRequester
       final String tokenSub   = token.substring(token.lastIndexOf('/') + 1);
       final String tokenFuzzy = fuzzy(tokenSub);
       
-      for (QualifiedName qname : cachedResult.completions)
+      // Score each match once up front, rather than on every comparison
+      ArrayList<ScoredName> matches = new ArrayList<ScoredName>();
+      for (QualifiedName qname : source.completions)
       {
+         int score;
+         
          // File types are narrowed only by the file name
          if (RCompletionType.isFileType(qname.type))
          {
-            if (StringUtil.isSubsequence(basename(qname.name), tokenFuzzy, true))
-               newCompletions.add(qname);
+            String basename = basename(qname.name);
+            if (!StringUtil.isSubsequence(basename, tokenFuzzy, true))
+               continue;
+            score = CodeSearchOracle.scoreMatch(basename, tokenSub, true);
          }
          else
          {
-            if (StringUtil.isSubsequence(qname.name, tokenFuzzy, true) &&
-                filterStartsWithDot(qname.name, token))
-               newCompletions.add(qname) ;
+            if (!StringUtil.isSubsequence(qname.name, tokenFuzzy, true) ||
+                !filterStartsWithDot(qname.name, token))
+               continue;
+            score = CodeSearchOracle.scoreMatch(qname.name, token, false);
          }
+         
+         // Place arguments higher (give less penalty)
+         if (qname.type == RCompletionType.ARGUMENT)
+            score -= 3;
+         
+         matches.add(new ScoredName(qname, score));
       }
       
-      java.util.Collections.sort(newCompletions, new Comparator<QualifiedName>() {
-         
-         @Override
-         public int compare(QualifiedName lhs,
-                            QualifiedName rhs)
-         {
-            int lhsScore;
-            if (RCompletionType.isFileType(lhs.type))
-               lhsScore = CodeSearchOracle.scoreMatch(
-                     basename(lhs.name), tokenSub, true);
-            else
-               lhsScore = CodeSearchOracle.scoreMatch(lhs.name, token, false);
-            
-            int rhsScore;
-            if (RCompletionType.isFileType(rhs.type))
-               rhsScore = CodeSearchOracle.scoreMatch(
-                     basename(rhs.name), tokenSub, true);
-            else
-               rhsScore = CodeSearchOracle.scoreMatch(rhs.name, token, false);
-            
-            // Place arguments higher (give less penalty)
-            if (lhs.type == RCompletionType.ARGUMENT) lhsScore -= 3;
-            if (rhs.type == RCompletionType.ARGUMENT) rhsScore -= 3;
-
-            if (lhsScore == rhsScore)
-               return lhs.name.length() - rhs.name.length();
-            else
-               return lhsScore < rhsScore ? -1 : 1;
-         }
-      });
+      java.util.Collections.sort(matches);
+      
+      ArrayList<QualifiedName> newCompletions = new ArrayList<QualifiedName>();
+      newCompletions.ensureCapacity(matches.size());
+      for (ScoredName match : matches)
+         newCompletions.add(match.name);
       
       CompletionResult result = new CompletionResult(
             token,
@@ -226,6 +232,27 @@ public class CompletionRequester
       return result;
    }
    
+   private static class ScoredName implements Comparable<ScoredName>
+   {
+      public ScoredName(QualifiedName name, int score)
+      {
+         this.name = name;
+         this.score = score;
+      }
+      
+      @Override
+      public int compareTo(ScoredName other)
+      {
+         if (score == other.score)
+            return name.name.length() - other.name.name.length();
+         else
+            return score < other.score ? -1 : 1;
+      }
+      
+      public final QualifiedName name;
+      public final int score;
+   }
+   
    public void getDplyrJoinCompletionsString(
          final String token,
          final String string,
@@ -978,6 +1005,8 @@ public class CompletionRequester
    
    private static final CodeIcons ICONS = CodeIcons.INSTANCE;
    
+   private static final int MAX_CACHED_COMPLETIONS = 64;
+   
    static {
       RES.styles().ensureInjected();
    }
@@ -21,11 +21,22 @@ import org.rstudio.core.client.cellview.ScrollingDataGrid;
 import org.rstudio.studio.client.workbench.views.environment.EnvironmentPane;
 
 import com.google.gwt.cell.client.FieldUpdater;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Style.Unit;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
 import com.google.gwt.safehtml.shared.SafeHtml;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import com.google.gwt.text.shared.AbstractSafeHtmlRenderer;
 import com.google.gwt.user.cellview.client.Column;
+import com.google.gwt.user.client.ui.ScrollPanel;
+import com.google.gwt.view.client.Range;
 
+// Only the entries in and near the viewport are rendered; the space taken
+// by the rest is reserved with margins above and below the table, sized
+// from an estimate of each entry's height in rows.
 public abstract class EnvironmentObjectDisplay 
                       extends ScrollingDataGrid<RObjectEntry>
 {
@@ -42,14 +53,15 @@ public abstract class EnvironmentObjectDisplay
       void setShowInternalFunctions(boolean hide);
       public void fillEntryContents(RObjectEntry entry, int idx, 
                                     boolean drawProgress);
+      // the entries matching the current filter, in display order
+      public List<RObjectEntry> getFilteredObjects();
    }
 
    public EnvironmentObjectDisplay(Host host, 
                                    EnvironmentObjectsObserver observer,
                                    String environmentName)
    {
-      super(EnvironmentObjects.MAX_ENVIRONMENT_OBJECTS, 
-            RObjectEntry.KEY_PROVIDER);
+      super(WINDOW_OVERSCAN * 2, RObjectEntry.KEY_PROVIDER);
 
       observer_ = observer;
       host_ = host;
@@ -87,6 +99,15 @@ public abstract class EnvironmentObjectDisplay
             return sb.toSafeHtml();
          }
       };
+
+      getScrollPanel().addScrollHandler(new ScrollHandler()
+      {
+         @Override
+         public void onScroll(ScrollEvent event)
+         {
+            updateWindow();
+         }
+      });
    }
    
    public abstract List<String> getSelectedObjects();
@@ -96,6 +117,161 @@ public abstract class EnvironmentObjectDisplay
    {
       environmentName_ = environmentName;
    }
+
+   @Override
+   public void onResize()
+   {
+      super.onResize();
+      onLayoutChanged();
+   }
+
+   // called when entries were added, removed, expanded or collapsed; the
+   // rendered window is brought up to date once the changes are complete
+   public void onLayoutChanged()
+   {
+      offsets_ = null;
+      if (layoutPending_)
+         return;
+
+      layoutPending_ = true;
+      Scheduler.get().scheduleDeferred(new ScheduledCommand()
+      {
+         @Override
+         public void execute()
+         {
+            layoutPending_ = false;
+            updateWindow();
+            measureRowHeight();
+         }
+      });
+   }
+
+   // redraws the entry at the given index if it's currently rendered
+   public void redrawEntry(int idx)
+   {
+      Range range = getVisibleRange();
+      if (idx >= range.getStart() &&
+          idx < range.getStart() + range.getLength() &&
+          idx < getRowCount())
+      {
+         redrawRow(idx);
+      }
+   }
+
+   // scrolls the least distance needed to bring the given entry into view
+   public void scrollToEntry(int idx)
+   {
+      int[] offsets = getOffsets();
+      if (idx < 0 || idx >= offsets.length - 1)
+         return;
+
+      ScrollPanel scrollPanel = getScrollPanel();
+      int top = offsets[idx] * rowHeight_;
+      int bottom = offsets[idx + 1] * rowHeight_;
+      int scrollTop = scrollPanel.getVerticalScrollPosition();
+      int viewportHeight = scrollPanel.getOffsetHeight();
+      if (top < scrollTop)
+         scrollPanel.setVerticalScrollPosition(top);
+      else if (bottom > scrollTop + viewportHeight)
+         scrollPanel.setVerticalScrollPosition(
+               Math.min(top, bottom - viewportHeight));
+      updateWindow();
+   }
+
+   // the number of table rows the given entry renders as
+   protected abstract int getRowUnits(RObjectEntry entry);
+
+   @Override
+   protected void onLoad()
+   {
+      super.onLoad();
+      onLayoutChanged();
+   }
+   
+   private void updateWindow()
+   {
+      int[] offsets = getOffsets();
+      int count = offsets.length - 1;
+
+      int viewportHeight = getScrollPanel().getOffsetHeight();
+      if (viewportHeight <= 0)
+         viewportHeight = DEFAULT_VIEWPORT_HEIGHT;
+      int top = getScrollPanel().getVerticalScrollPosition();
+      int first = entryAt(offsets, top / rowHeight_);
+      int last = entryAt(offsets, (top + viewportHeight) / rowHeight_);
+
+      // keep the current window while it still covers the viewport with
+      // some margin to spare, so that small scrolls don't re-render
+      Range range = getVisibleRange();
+      int start = range.getStart();
+      int end = range.getStart() + range.getLength();
+      if (start > Math.max(0, first - WINDOW_OVERSCAN / 2) ||
+          end < Math.min(count, last + 1 + WINDOW_OVERSCAN / 2) ||
+          end > count + WINDOW_OVERSCAN * 2)
+      {
+         start = Math.max(0, first - WINDOW_OVERSCAN);
+         end = Math.min(count, last + 1 + WINDOW_OVERSCAN);
+         setVisibleRange(start, Math.max(end - start, WINDOW_OVERSCAN));
+      }
+
+      // reserve the space taken by the entries outside the window
+      end = Math.min(end, count);
+      Element table = getTableBodyElement().getParentElement();
+      table.getStyle().setMarginTop(offsets[start] * rowHeight_, Unit.PX);
+      table.getStyle().setMarginBottom(
+            (offsets[count] - offsets[end]) * rowHeight_, Unit.PX);
+   }
+
+   // refines the estimated row height from the rows actually rendered
+   private void measureRowHeight()
+   {
+      int[] offsets = getOffsets();
+      Range range = getVisibleRange();
+      int start = Math.min(range.getStart(), offsets.length - 1);
+      int end = Math.min(range.getStart() + range.getLength(),
+                         offsets.length - 1);
+      int rows = offsets[end] - offsets[start];
+      int height = getTableBodyElement().getOffsetHeight();
+      if (rows < MIN_MEASURED_ROWS || height <= 0)
+         return;
+
+      int rowHeight = Math.max(1, Math.round((float) height / rows));
+      if (rowHeight != rowHeight_)
+      {
+         rowHeight_ = rowHeight;
+         updateWindow();
+      }
+   }
+
+   // the index of the entry containing the given row
+   private static int entryAt(int[] offsets, int row)
+   {
+      int lo = 0;
+      int hi = offsets.length - 1;
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         if (offsets[mid + 1] <= row)
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+      return lo;
+   }
+
+   // offsets_[i] is the number of table rows before entry i; the final
+   // element is the total
+   private int[] getOffsets()
+   {
+      if (offsets_ != null)
+         return offsets_;
+
+      List<RObjectEntry> entries = host_.getFilteredObjects();
+      offsets_ = new int[entries.size() + 1];
+      for (int i = 0; i < entries.size(); i++)
+         offsets_[i + 1] = offsets_[i] + getRowUnits(entries.get(i));
+      return offsets_;
+   }
    
    // attaches a handler to a column that invokes the associated object
    protected void attachClickToInvoke(Column<RObjectEntry, String> column)
@@ -125,4 +301,14 @@ public abstract class EnvironmentObjectDisplay
    protected Host host_;
    protected EnvironmentStyle environmentStyle_;
    protected String environmentName_ = "";
+
+   private int[] offsets_ = null;
+   private int rowHeight_ = DEFAULT_ROW_HEIGHT;
+   private boolean layoutPending_ = false;
+
+   // the number of entries rendered beyond each edge of the viewport
+   private static final int WINDOW_OVERSCAN = 50;
+   private static final int DEFAULT_ROW_HEIGHT = 20;
+   private static final int DEFAULT_VIEWPORT_HEIGHT = 1000;
+   private static final int MIN_MEASURED_ROWS = 10;
 }
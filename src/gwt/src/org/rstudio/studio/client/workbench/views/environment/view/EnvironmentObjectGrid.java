@@ -91,7 +91,7 @@ public class EnvironmentObjectGrid extends EnvironmentObjectDisplay
       boolean hasFilter = !host_.getFilterText().isEmpty();
       ArrayList<String> selectedObjectNames = new ArrayList<String>();
       ArrayList<String> filteredObjectNames = new ArrayList<String>();
-      List<RObjectEntry> objects = getVisibleItems();
+      List<RObjectEntry> objects = host_.getFilteredObjects();
       for (RObjectEntry object: objects)
       {
          if (object.visible)
@@ -131,6 +131,12 @@ public class EnvironmentObjectGrid extends EnvironmentObjectDisplay
       setColumnWidths();
    }
    
+   @Override
+   protected int getRowUnits(RObjectEntry entry)
+   {
+      return 1;
+   }
+
    // Private methods ---------------------------------------------------------
 
    private void createColumns()
@@ -230,7 +236,7 @@ public class EnvironmentObjectGrid extends EnvironmentObjectDisplay
    
    private void setSelectAll(boolean selected)
    {
-      List<RObjectEntry> objects = getVisibleItems();
+      List<RObjectEntry> objects = host_.getFilteredObjects();
       for (RObjectEntry object: objects)
       {
          if (object.visible)
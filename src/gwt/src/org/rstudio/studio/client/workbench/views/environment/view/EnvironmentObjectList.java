@@ -99,7 +99,7 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
 
       // If the view is filtered, return items that are visible.
       ArrayList<String> objectNames = new ArrayList<String>();
-      List<RObjectEntry> objects = getVisibleItems();
+      List<RObjectEntry> objects = host_.getFilteredObjects();
       for (RObjectEntry object: objects)
       {
          if (object.visible)
@@ -116,6 +116,17 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
       // No selection to clear in list view
    }
 
+   @Override
+   protected int getRowUnits(RObjectEntry entry)
+   {
+      int rows = 1;
+      if (entry.isCategoryLeader)
+         rows++;
+      if (entry.expanded)
+         rows += entry.rObject.getContents().length();
+      return rows;
+   }
+
    private void createColumns()
    {
       createExpandColumn();
@@ -242,6 +253,7 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
                observer_.setObjectCollapsed(object.rObject.getName());
          }
          redrawRow(index);
+         onLayoutChanged();
       }
    }
 
@@ -361,7 +373,9 @@ public class EnvironmentObjectList extends EnvironmentObjectDisplay
          // if building the first row, we need to add a dummy row to the top.
          // since the grid uses a fixed table layout, the first row sets the
          // column widths, so we can't let the first row be a spanning header.
-         if (rowValue.isFirstObject)
+         // (only the rows near the viewport are built, so this is the first
+         // row built rather than the first object)
+         if (absRowIndex == getVisibleRange().getStart())
          {
             TableRowBuilder widthSettingRow = startRow().className(
                     style_.widthSettingRow());
@@ -17,7 +17,10 @@ package org.rstudio.studio.client.workbench.views.environment.view;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JsArray;
@@ -31,6 +34,7 @@ import com.google.gwt.uibinder.client.UiField;
 import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.*;
 import com.google.gwt.view.client.ListDataProvider;
+import com.google.gwt.view.client.Range;
 
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.cellview.AutoHidingSplitLayoutPanel;
@@ -61,7 +65,8 @@ public class EnvironmentObjects extends ResizeComposite
       environmentName_ = EnvironmentPane.GLOBAL_ENVIRONMENT_NAME;
 
       objectDisplayType_ = OBJECT_LIST_VIEW;
-      objectDataProvider_ = new ListDataProvider<RObjectEntry>();
+      objectDataProvider_ = new ListDataProvider<RObjectEntry>(
+                                                         displayedObjects_);
       objectSort_ = new RObjectEntrySort();
 
       // set up the call frame panel
@@ -104,68 +109,28 @@ public class EnvironmentObjects extends ResizeComposite
       contextDepth_ = contextDepth;
    }
 
+   // assignments and removals are queued and applied together once the
+   // current batch of events has been dispatched, so a loop assigning many
+   // objects costs one pass over the affected rows rather than one per event
    public void addObject(RObject obj)
    {
-      int idx = indexOfExistingObject(obj.getName());
-      final RObjectEntry newEntry = entryFromRObject(obj);
-      boolean added = false;
-
-      // if the object is already in the environment, just update the value
-      if (idx >= 0)
-      {
-         final RObjectEntry oldEntry = objectDataProvider_.getList().get(idx);
-
-         if (oldEntry.rObject.getType().equals(obj.getType()))
-         {
-            // type hasn't changed
-            if (oldEntry.expanded && 
-                newEntry.contentsAreDeferred)
-            {
-               // we're replacing an object that has server-deferred contents--
-               // refill it immediately. (another approach would be to push the
-               // set of currently expanded objects to the server so these
-               // objects would show up on the client already expanded)
-               fillEntryContents(newEntry, idx, false);
-            }
-            else
-            {
-               // contents aren't deferred, just use the expanded state directly
-               newEntry.expanded = oldEntry.expanded;
-            }
-            objectDataProvider_.getList().set(idx, newEntry);
-            added = true;
-         }
-         else
-         {
-            // types did change, do a full add/remove
-            objectDataProvider_.getList().remove(idx);
-         }
-         
-      }
-      if (!added)
-      {
-         RObjectEntry entry = entryFromRObject(obj);
-         idx = indexOfNewObject(entry);
-         objectDataProvider_.getList().add(idx, entry);
-      }
-      updateCategoryLeaders(true);
-      objectDisplay_.getRowElement(idx).scrollIntoView();
+      queueObjectChange(obj.getName(), obj);
    }
 
    public void removeObject(String objName)
    {
-      int idx = indexOfExistingObject(objName);
-      if (idx >= 0)
-      {
-         objectDataProvider_.getList().remove(idx);
-      }
-
-      updateCategoryLeaders(true);
+      queueObjectChange(objName, null);
    }
    
    public void clearObjects()
    {
+      // anything queued is superseded by the contents that follow
+      pendingChanges_.clear();
       objectDataProvider_.getList().clear();
+      allObjects_.clear();
+      entriesByName_.clear();
+      for (int i = 0; i < leaders_.length; i++)
+         leaders_[i] = null;
    }
    
    public void clearSelection()
@@ -183,12 +148,16 @@ public class EnvironmentObjects extends ResizeComposite
       {
          RObjectEntry entry = entryFromRObject(objects.get(i));
          objectEntryList.add(entry);
+         entriesByName_.put(entry.rObject.getName(), entry);
       }
       Collections.sort(objectEntryList, objectSort_);
+      allObjects_.addAll(objectEntryList);
 
-      // push the list into the UI and update category leaders
-      objectDataProvider_.getList().addAll(objectEntryList);
+      // push the entries matching the filter into the UI and update
+      // category leaders
+      objectDataProvider_.getList().addAll(filterObjects());
       updateCategoryLeaders(false);
+      onLayoutChanged();
 
       if (useStatePersistence())
       {
@@ -262,23 +231,27 @@ public class EnvironmentObjects extends ResizeComposite
    {
       filterText_ = filterText.toLowerCase();
 
-      // Iterate over each entry in the list, and toggle its visibility based 
-      // on whether it matches the current filter text.
+      // Toggle the visibility of each entry based on whether it matches the
+      // current filter text, then replace the displayed entries with the
+      // visible ones. Replacing the list redraws the rendered rows, which
+      // also updates the search highlight.
+      for (RObjectEntry entry : allObjects_)
+         entry.visible = matchesFilter(entry.rObject);
+
       List<RObjectEntry> objects = objectDataProvider_.getList();
-      for (int i = 0; i < objects.size(); i++)
+      objects.clear();
+      objects.addAll(filterObjects());
+
+      updateCategoryLeaders(false);
+      onLayoutChanged();
+
+      // only matching entries are displayed, so the table is empty when
+      // nothing matches
+      if (environmentEmptyMessage_ != null)
       {
-         RObjectEntry entry = objects.get(i);
-         boolean visible = matchesFilter(entry.rObject);
-         // Redraw the object if its visibility status has changed, or if it's
-         // visible (for visible entries we need to update the search highlight)
-         if (visible != entry.visible || visible)
-         {
-            entry.visible = visible;
-            redrawRowSafely(i);
-         }
+         environmentEmptyMessage_.setText(filterText_.isEmpty() ?
+               EMPTY_ENVIRONMENT_MESSAGE : NO_MATCHING_OBJECTS_MESSAGE);
       }
-
-      updateCategoryLeaders(true);
    }
    
    public int getObjectDisplay()
@@ -371,7 +344,7 @@ public class EnvironmentObjects extends ResizeComposite
       }
 
       objectDisplayType_ = type;
-      Collections.sort(objectDataProvider_.getList(), objectSort_);
+      sortObjects();
       updateCategoryLeaders(false);
       objectDataProvider_.addDataDisplay(objectDisplay_);
 
@@ -456,7 +429,7 @@ public class EnvironmentObjects extends ResizeComposite
    {
       objectSort_.setSortColumn(col);
       observer_.setViewDirty();
-      Collections.sort(objectDataProvider_.getList(), objectSort_);
+      sortObjects();
    }
    
    @Override
@@ -475,14 +448,14 @@ public class EnvironmentObjects extends ResizeComposite
    {
       objectSort_.setAscending(ascending);
       observer_.setViewDirty();
-      Collections.sort(objectDataProvider_.getList(), objectSort_);
+      sortObjects();
    }
    
    public void setSort(int column, boolean ascending)
    {
       objectSort_.setSortColumn(column);
       objectSort_.setAscending(ascending);
-      Collections.sort(objectDataProvider_.getList(), objectSort_);
+      sortObjects();
    }
 
    @Override
@@ -499,49 +472,355 @@ public class EnvironmentObjects extends ResizeComposite
          {
             entry.expanded = true;
             entry.isExpanding = false;
-            redrawRowSafely(idx);
+
+            // rows may have moved while the contents were being fetched
+            redrawRowSafely(indexOfEntry(objectDataProvider_.getList(), entry));
+            onLayoutChanged();
          }
       });
    }
 
+   @Override
+   public List<RObjectEntry> getFilteredObjects()
+   {
+      return objectDataProvider_.getList();
+   }
+
    // Private methods: object management --------------------------------------
 
-   private int indexOfExistingObject(String objectName)
+   private void queueObjectChange(String name, RObject obj)
    {
-      List<RObjectEntry> objects = objectDataProvider_.getList();
+      boolean scheduled = !pendingChanges_.isEmpty();
+
+      // only the last change to each object matters; re-adding moves the
+      // object to the end so changes are applied in arrival order
+      pendingChanges_.remove(name);
+      pendingChanges_.put(name, obj);
+
+      if (scheduled)
+         return;
+
+      Scheduler.get().scheduleDeferred(new ScheduledCommand()
+      {
+         @Override
+         public void execute()
+         {
+            applyObjectChanges();
+         }
+      });
+   }
+
+   private void applyObjectChanges()
+   {
+      if (pendingChanges_.isEmpty())
+         return;
+
+      // the changes are made to the displayed list directly rather than
+      // through the data provider, which would redraw every row from the
+      // first change to the end of the list; bring the provider up to date
+      // first so it has nothing of its own left to push
+      objectDataProvider_.flush();
+
+      List<RObjectEntry> objects = displayedObjects_;
+      int firstMoved = Integer.MAX_VALUE;
+      ArrayList<RObjectEntry> replaced = new ArrayList<RObjectEntry>();
+      RObjectEntry lastAdded = null;
+      for (Map.Entry<String, RObject> change : pendingChanges_.entrySet())
+      {
+         String name = change.getKey();
+         RObject obj = change.getValue();
+         RObjectEntry oldEntry = entriesByName_.remove(name);
+         int oldIdx = -1;
+         if (oldEntry != null)
+         {
+            removeEntry(allObjects_, oldEntry);
+            if (oldEntry.visible)
+               oldIdx = indexOfEntry(objects, oldEntry);
+         }
+
+         RObjectEntry newEntry = obj != null ? entryFromRObject(obj) : null;
+         if (newEntry == null || !newEntry.visible)
+         {
+            if (oldIdx >= 0)
+            {
+               objects.remove(oldIdx);
+               firstMoved = Math.min(firstMoved, oldIdx);
+            }
+            if (newEntry != null)
+            {
+               allObjects_.add(indexOfNewObject(allObjects_, newEntry),
+                               newEntry);
+               entriesByName_.put(name, newEntry);
+            }
+            continue;
+         }
+
+         boolean refill = false;
+         if (oldEntry != null &&
+             oldEntry.rObject.getType().equals(obj.getType()))
+         {
+            // type hasn't changed, so keep the expanded state
+            if (oldEntry.expanded && newEntry.contentsAreDeferred)
+            {
+               // we're replacing an object that has server-deferred contents--
+               // refill it immediately. (another approach would be to push the
+               // set of currently expanded objects to the server so these
+               // objects would show up on the client already expanded)
+               refill = true;
+            }
+            else
+            {
+               // contents aren't deferred, just use the expanded state directly
+               newEntry.expanded = oldEntry.expanded;
+            }
+         }
+
+         allObjects_.add(indexOfNewObject(allObjects_, newEntry), newEntry);
+         entriesByName_.put(name, newEntry);
 
-      // find the position of the object in the list--we can't use binary
-      // search here since we're matching on names and the list isn't sorted
-      // by name (it's sorted by type, then name)
-      int index;
-      boolean foundObject = false;
-      for (index = 0; index < objects.size(); index++)
+         // an object whose new value sorts in the same place (the usual
+         // case for a reassignment) replaces its row without moving others
+         int idx;
+         if (oldIdx >= 0 && belongsAt(objects, oldIdx, newEntry))
+         {
+            idx = oldIdx;
+            objects.set(idx, newEntry);
+            replaced.add(newEntry);
+         }
+         else
+         {
+            if (oldIdx >= 0)
+            {
+               objects.remove(oldIdx);
+               firstMoved = Math.min(firstMoved, oldIdx);
+            }
+            idx = indexOfNewObject(objects, newEntry);
+            objects.add(idx, newEntry);
+            firstMoved = Math.min(firstMoved, idx);
+         }
+         if (refill)
+            fillEntryContents(newEntry, idx, false);
+         lastAdded = newEntry;
+      }
+      pendingChanges_.clear();
+
+      updateChangedRows(firstMoved, replaced);
+      updateChangedCategoryLeaders();
+      onLayoutChanged();
+
+      if (lastAdded != null)
+         scrollToEntry(lastAdded);
+   }
+
+   // pushes the rows changed by applyObjectChanges to the display. Rows
+   // from the first insertion or removal onwards have moved, and replaced
+   // entries changed in place; only those in the rendered window are drawn.
+   private void updateChangedRows(int firstMoved,
+                                  List<RObjectEntry> replaced)
+   {
+      // updates the row count (the data provider hasn't seen the changes)
+      objectDataProvider_.flush();
+      if (objectDisplay_ == null)
+         return;
+
+      List<RObjectEntry> objects = displayedObjects_;
+      Range range = objectDisplay_.getVisibleRange();
+      int start = range.getStart();
+      int end = Math.min(objects.size(), start + range.getLength());
+      if (firstMoved < end)
+      {
+         int from = Math.max(firstMoved, start);
+         objectDataProvider_.updateRowData(from, 
+               new ArrayList<RObjectEntry>(objects.subList(from, end)));
+      }
+
+      for (RObjectEntry entry : replaced)
       {
-         if (objects.get(index).rObject.getName() == objectName)
+         int idx = indexOfEntry(objects, entry);
+         if (idx >= start && idx < Math.min(end, firstMoved))
+            objectDataProvider_.updateRowData(idx,
+                                              Collections.singletonList(entry));
+      }
+   }
+
+   // whether the given entry sorts at the given position of the list, in
+   // place of the entry currently there
+   private boolean belongsAt(List<RObjectEntry> objects,
+                             int idx,
+                             RObjectEntry entry)
+   {
+      if (idx > 0 && objectSort_.compare(objects.get(idx - 1), entry) > 0)
+         return false;
+      if (idx < objects.size() - 1 &&
+          objectSort_.compare(entry, objects.get(idx + 1)) >= 0)
+         return false;
+      return true;
+   }
+
+   // scrolls the given entry into view once the display has caught up with
+   // the changes to the list
+   private void scrollToEntry(final RObjectEntry entry)
+   {
+      Scheduler.get().scheduleDeferred(new ScheduledCommand()
+      {
+         @Override
+         public void execute()
          {
-            foundObject = true;
-            break;
+            int idx = indexOfEntry(objectDataProvider_.getList(), entry);
+            if (idx >= 0 && objectDisplay_ != null)
+               objectDisplay_.scrollToEntry(idx);
          }
+      });
+   }
+
+   private void removeEntry(List<RObjectEntry> objects, RObjectEntry entry)
+   {
+      int idx = indexOfEntry(objects, entry);
+      if (idx >= 0)
+         objects.remove(idx);
+   }
+
+   // the entries matching the current filter, in sorted order
+   private ArrayList<RObjectEntry> filterObjects()
+   {
+      ArrayList<RObjectEntry> filtered = new ArrayList<RObjectEntry>();
+      for (RObjectEntry entry : allObjects_)
+      {
+         if (entry.visible)
+            filtered.add(entry);
       }
+      return filtered;
+   }
 
-      return foundObject ? index : -1;
+   private void sortObjects()
+   {
+      // the displayed entries are a subsequence of all entries, so sorting
+      // both with the same (stable) sort keeps them consistent
+      Collections.sort(allObjects_, objectSort_);
+      Collections.sort(objectDataProvider_.getList(), objectSort_);
+      onLayoutChanged();
+   }
+
+   private void onLayoutChanged()
+   {
+      if (objectDisplay_ != null)
+         objectDisplay_.onLayoutChanged();
+   }
+
+   // returns the position of the given entry in the list, or -1 if it isn't
+   // there. The list is kept sorted, so this is a binary search followed by
+   // a scan over any entries that sort the same.
+   private int indexOfEntry(List<RObjectEntry> objects, RObjectEntry entry)
+   {
+      for (int idx = lowerBound(objects, entry);
+           idx < objects.size() && objectSort_.compare(entry, objects.get(idx)) == 0;
+           idx++)
+      {
+         if (objects.get(idx) == entry)
+            return idx;
+      }
+
+      // shouldn't happen, but don't lose track of the entry if the list
+      // somehow isn't in order
+      return objects.indexOf(entry);
    }
 
    // returns the position a new object entry should occupy in the table
-   private int indexOfNewObject(RObjectEntry obj)
+   // (after any entries that sort the same)
+   private int indexOfNewObject(List<RObjectEntry> objects, RObjectEntry entry)
+   {
+      int lo = 0;
+      int hi = objects.size();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         if (objectSort_.compare(entry, objects.get(mid)) < 0)
+            hi = mid;
+         else
+            lo = mid + 1;
+      }
+      return lo;
+   }
+
+   // returns the position of the first entry that doesn't sort before the
+   // given entry
+   private int lowerBound(List<RObjectEntry> objects, RObjectEntry entry)
+   {
+      int lo = 0;
+      int hi = objects.size();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         if (objectSort_.compare(objects.get(mid), entry) < 0)
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+      return lo;
+   }
+
+   // returns the position of the first entry in the given category or a
+   // later one; only meaningful in the list view, where entries are sorted
+   // by category first
+   private int indexOfCategory(int category)
+   {
+      List<RObjectEntry> objects = objectDataProvider_.getList();
+      int lo = 0;
+      int hi = objects.size();
+      while (lo < hi)
+      {
+         int mid = (lo + hi) >>> 1;
+         if (objects.get(mid).getCategory() < category)
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+      return lo;
+   }
+
+   // after a batch of adds or removes, tag the new category-leading objects.
+   // Only visible entries are displayed and each category is contiguous, so
+   // the leader is found by a search for the start of its category instead
+   // of a scan over every entry.
+   private void updateChangedCategoryLeaders()
    {
+      if (objectDisplayType_ != OBJECT_LIST_VIEW)
+         return;
+
       List<RObjectEntry> objects = objectDataProvider_.getList();
-      int numObjects = objects.size();
-      int idx;
-      // consider: can we use binary search here?
-      for (idx = 0; idx < numObjects; idx++)
+      ArrayList<RObjectEntry> changed = new ArrayList<RObjectEntry>();
+      for (int category = 0; category < leaders_.length; category++)
+      {
+         RObjectEntry leader = null;
+         int idx = indexOfCategory(category);
+         if (idx < objects.size() && objects.get(idx).getCategory() == category)
+            leader = objects.get(idx);
+
+         RObjectEntry previous = leaders_[category];
+         if (previous != null && previous != leader)
+         {
+            previous.isCategoryLeader = false;
+            changed.add(previous);
+         }
+
+         if (leader != null && !leader.isCategoryLeader)
+         {
+            leader.isCategoryLeader = true;
+            changed.add(leader);
+         }
+         leaders_[category] = leader;
+      }
+
+      // entries no longer in the list (e.g. removed leaders) don't need
+      // to be redrawn
+      for (RObjectEntry entry : changed)
       {
-         if (objectSort_.compare(obj, objects.get(idx)) < 0)
+         if (entry.visible &&
+             entriesByName_.get(entry.rObject.getName()) == entry)
          {
-            break;
+            redrawRowSafely(indexOfEntry(objects, entry));
          }
       }
-      return idx;
    }
 
    // after adds or removes, we need to tag the new category-leading objects
@@ -554,31 +833,22 @@ public class EnvironmentObjects extends ResizeComposite
       
       List<RObjectEntry> objects = objectDataProvider_.getList();
 
-      // whether or not we've found a leader for each category
-      Boolean[] leaders = { false, false, false };
-      boolean foundFirstObject = false;
+      // the leader found for each category so far
+      for (int i = 0; i < leaders_.length; i++)
+         leaders_[i] = null;
 
       for (int i = 0; i < objects.size(); i++)
       {
          RObjectEntry entry = objects.get(i);
          if (!entry.visible)
             continue;
-         if (!foundFirstObject)
-         {
-            entry.isFirstObject = true;
-            foundFirstObject = true;
-         }
-         else
-         {
-            entry.isFirstObject = false;
-         }
          int category = entry.getCategory();
          Boolean leader = entry.isCategoryLeader;
          // if we haven't found a leader for this category yet, make this object
          // the leader if it isn't already
-         if (!leaders[category])
+         if (leaders_[category] == null)
          {
-            leaders[category] = true;
+            leaders_[category] = entry;
             if (!leader)
             {
                entry.isCategoryLeader = true;
@@ -604,7 +874,8 @@ public class EnvironmentObjects extends ResizeComposite
    {
       HTMLPanel messagePanel = new HTMLPanel("");
       messagePanel.setStyleName(style.emptyEnvironmentPanel());
-      environmentEmptyMessage_ = new Label(EMPTY_ENVIRONMENT_MESSAGE);
+      environmentEmptyMessage_ = new Label(filterText_.isEmpty() ?
+            EMPTY_ENVIRONMENT_MESSAGE : NO_MATCHING_OBJECTS_MESSAGE);
       environmentEmptyMessage_.setStyleName(style.emptyEnvironmentMessage());
       messagePanel.add(environmentEmptyMessage_);
       return messagePanel;
@@ -655,23 +926,23 @@ public class EnvironmentObjects extends ResizeComposite
          {
             if (deferredExpandedObjects_ != null)
             { 
-               // loop through the objects in the list and check to see if each
-               // is marked expanded in the persisted list of expanded objects
+               // look up each object in the persisted list of expanded objects
+               // and mark it expanded
                List<RObjectEntry> objects = objectDataProvider_.getList();
-               for (int idxObj = 0; idxObj < objects.size(); idxObj++)
+               for (int idxExpanded = 0;
+                    idxExpanded < deferredExpandedObjects_.length();
+                    idxExpanded++)
                {
-                  for (int idxExpanded = 0;
-                       idxExpanded < deferredExpandedObjects_.length();
-                       idxExpanded++)
+                  RObjectEntry entry = entriesByName_.get(
+                        deferredExpandedObjects_.get(idxExpanded));
+                  if (entry != null)
                   {
-                     if (objects.get(idxObj).rObject.getName() ==
-                         deferredExpandedObjects_.get(idxExpanded))
-                     {
-                        objects.get(idxObj).expanded = true;
-                        redrawRowSafely(idxObj);
-                     }
+                     entry.expanded = true;
+                     if (entry.visible)
+                        redrawRowSafely(indexOfEntry(objects, entry));
                   }
                }
+               onLayoutChanged();
             }
 
             // set the cached scroll position
@@ -695,17 +966,18 @@ public class EnvironmentObjects extends ResizeComposite
       return new RObjectEntry(obj, matchesFilter(obj));
    }
    
-   // for very large environments, the number of objects may exceed the number
-   // of physical rows; avoid redrawing rows outside the bounds of the
-   // container's physical limit
+   // only the rows near the viewport are rendered; others are drawn with
+   // their current contents when they're scrolled into view
    private void redrawRowSafely(int idx)
    {
-      if (idx < MAX_ENVIRONMENT_OBJECTS)
-         objectDisplay_.redrawRow(idx);
+      if (idx >= 0 && objectDisplay_ != null)
+         objectDisplay_.redrawEntry(idx);
    }
    
    private final static String EMPTY_ENVIRONMENT_MESSAGE =
            "Environment is empty";
+   private final static String NO_MATCHING_OBJECTS_MESSAGE =
+           "No objects match the filter";
 
    public static final int OBJECT_LIST_VIEW = 0;
    public static final int OBJECT_GRID_VIEW = 1;
@@ -718,8 +990,24 @@ public class EnvironmentObjects extends ResizeComposite
    Label environmentEmptyMessage_;
 
    private ListDataProvider<RObjectEntry> objectDataProvider_;
+   // the list wrapped by the data provider (changes made to it directly
+   // aren't displayed until pushed to the provider)
+   private final ArrayList<RObjectEntry> displayedObjects_ =
+         new ArrayList<RObjectEntry>();
    private RObjectEntrySort objectSort_;
 
+   // all entries (the data provider holds those matching the filter), the
+   // entry for each object by name, the current leader of each
+   // category, and the object changes waiting to be applied (null values
+   // are removals)
+   private final HashMap<String, RObjectEntry> entriesByName_ =
+         new HashMap<String, RObjectEntry>();
+   private final ArrayList<RObjectEntry> allObjects_ =
+         new ArrayList<RObjectEntry>();
+   private final RObjectEntry[] leaders_ = new RObjectEntry[3];
+   private final LinkedHashMap<String, RObject> pendingChanges_ =
+         new LinkedHashMap<String, RObject>();
+
    private EnvironmentObjectsObserver observer_;
    private int contextDepth_;
    private int callFramePanelHeight_;
@@ -733,6 +1021,4 @@ public class EnvironmentObjects extends ResizeComposite
    private boolean pendingCallFramePanelSize_ = false;
    private Integer deferredObjectDisplayType_ = new Integer(OBJECT_LIST_VIEW);
    private int gridRenderRetryCount_ = 0;
-   
-   public final static int MAX_ENVIRONMENT_OBJECTS = 1024;
 }
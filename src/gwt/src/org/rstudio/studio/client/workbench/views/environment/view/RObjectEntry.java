@@ -43,7 +43,6 @@ public class RObjectEntry
       expanded = false;
       isCategoryLeader = false;
       visible = isVisible;
-      isFirstObject = false;
       isExpanding = false;
       contentsAreDeferred = obj.getContentsDeferred();
    }
@@ -103,7 +102,6 @@ public class RObjectEntry
    boolean expanded;
    boolean isCategoryLeader;
    boolean visible;
-   boolean isFirstObject;
    boolean isExpanding;
    boolean contentsAreDeferred;
 }
@@ -76,6 +76,7 @@ import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallOp
 import org.rstudio.studio.client.workbench.views.packages.model.PackageInstallRequest;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageLibraryUtils;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageLibraryUtils.PackageLibraryType;
+import org.rstudio.studio.client.workbench.views.packages.model.PackageSearchIndex;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageState;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageStatus;
 import org.rstudio.studio.client.workbench.views.packages.model.PackageUpdate;
@@ -86,6 +87,7 @@ import org.rstudio.studio.client.workbench.views.packages.ui.CleanUnusedDialog;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -700,7 +702,14 @@ public class Packages
    public void onPackageFilterChanged(String filter)
    {
       packageFilter_ = filter.toLowerCase();
-      setViewPackageList();
+      
+      // clearing the filter takes effect immediately; otherwise wait for a 
+      // pause in typing
+      filterTimer_.cancel();
+      if (packageFilter_.length() == 0)
+         setViewPackageList();
+      else
+         filterTimer_.schedule(FILTER_DELAY_MILLIS);
    }
 
    public void onPackageStatusChanged(PackageStatusChangedEvent event)
@@ -709,15 +718,13 @@ public class Packages
       view_.setPackageStatus(status);
       
       // also update the list of allPackages_
-      for (int i = 0; i<allPackages_.size(); i++)
+      Integer index = packageIndex_.get(
+            PackageInfo.makeKey(status.getLib(), status.getName()));
+      if (index != null)
       {
-         PackageInfo packageInfo = allPackages_.get(i);
-         if (packageInfo.getName().equals(status.getName()) &&
-             packageInfo.getLibrary().equals(status.getLib()))
-         {
-            allPackages_.set(i, status.isLoaded() ? packageInfo.asLoaded() :
-                                                    packageInfo.asUnloaded());
-         }
+         PackageInfo packageInfo = allPackages_.get(index);
+         allPackages_.set(index, status.isLoaded() ? packageInfo.asLoaded() :
+                                                     packageInfo.asUnloaded());
       }
    }
    
@@ -725,41 +732,13 @@ public class Packages
    {
       ArrayList<PackageInfo> packages = null;
       
-      // apply filter (if any)
+      // apply filter (if any); results are grouped by library, then ranked
       if (packageFilter_.length() > 0)
       {
-         packages = new ArrayList<PackageInfo>();
-         
-         // first do prefix search
-         for (PackageInfo pkgInfo : allPackages_)
-         {
-            if (pkgInfo.getName().toLowerCase().startsWith(packageFilter_))
-               packages.add(pkgInfo);
-         }
-         
-         // then do contains search on name & desc
-         for (PackageInfo pkgInfo : allPackages_)
-         { 
-            if (pkgInfo.getName().toLowerCase().contains(packageFilter_) ||
-                pkgInfo.getDesc().toLowerCase().contains(packageFilter_))
-            {
-               if (!packages.contains(pkgInfo))
-                  packages.add(pkgInfo);
-            }
-         }
-
-         // sort results by library (to preserve grouping)
-         Collections.sort(packages, new Comparator<PackageInfo>()
-               {
-                  @Override
-                  public int compare(PackageInfo o1, PackageInfo o2)
-                  {
-                     return PackageLibraryUtils.typeOfLibrary(
-                                   session_, o1.getLibrary()).compareTo(
-                             PackageLibraryUtils.typeOfLibrary(
-                                   session_, o2.getLibrary()));
-                  }
-               });
+         int[] matches = searchIndex_.search(packageFilter_);
+         packages = new ArrayList<PackageInfo>(matches.length);
+         for (int i = 0; i < matches.length; i++)
+            packages.add(allPackages_.get(matches[i]));
       }
       else
       {
@@ -1226,15 +1205,15 @@ public class Packages
       JsArray<PackageInfo> serverPackages = newState.getPackageList();
       for (int i = 0; i < serverPackages.length(); i++)
          allPackages_.add(serverPackages.get(i));
+      
+      // the active project (and so the project library) may have changed
+      libraryTypes_.clear();
       Collections.sort(allPackages_, new Comparator<PackageInfo>() {
          public int compare(PackageInfo o1, PackageInfo o2)
          {
             // sort first by library, then by name
-            int library = 
-                  PackageLibraryUtils.typeOfLibrary(
-                        session_, o1.getLibrary()).compareTo(
-                  PackageLibraryUtils.typeOfLibrary(
-                        session_, o2.getLibrary()));
+            int library = typeOfLibrary(o1.getLibrary()).compareTo(
+                          typeOfLibrary(o2.getLibrary()));
             return library == 0 ? 
                   o1.getName().compareToIgnoreCase(o2.getName()) :
                   library;
@@ -1249,6 +1228,9 @@ public class Packages
                                  outOfSyncPackages);
       getPackageNamesFromActions(newState.getSnapshotActions(),
                                  outOfSyncPackages);
+      // also index the packages for filtering and by key
+      searchIndex_ = new PackageSearchIndex();
+      packageIndex_.clear();
       PackageLibraryType libraryType = PackageLibraryType.None;
       for (PackageInfo pkgInfo: allPackages_)
       {
@@ -1257,13 +1239,17 @@ public class Packages
          {
             pkgInfo.setOutOfSync(true);
          }
-         PackageLibraryType pkgLibraryType = PackageLibraryUtils.typeOfLibrary(
-               session_, pkgInfo.getLibrary());
+         PackageLibraryType pkgLibraryType = 
+               typeOfLibrary(pkgInfo.getLibrary());
          if (pkgLibraryType != libraryType)
          {
             pkgInfo.setFirstInLibrary(true);
             libraryType = pkgLibraryType;
          }
+         int index = searchIndex_.add(pkgInfo.getName(), 
+                                      pkgInfo.getDesc(), 
+                                      pkgLibraryType.ordinal());
+         packageIndex_.put(pkgInfo.getKey(), index);
       }
       
       packratContext_ = newState.getPackratContext();
@@ -1272,6 +1258,20 @@ public class Packages
       setViewActions(newState);
    }
    
+   // classifying a library involves path comparisons, and there are only a
+   // handful of libraries, so remember the type of each
+   private PackageLibraryType typeOfLibrary(String library)
+   {
+      String key = StringUtil.notNull(library);
+      PackageLibraryType type = libraryTypes_.get(key);
+      if (type == null)
+      {
+         type = PackageLibraryUtils.typeOfLibrary(session_, library);
+         libraryTypes_.put(key, type);
+      }
+      return type;
+   }
+   
    private void getPackageNamesFromActions(
          JsArray<PackratPackageAction> actions,
          Set<String> pkgNames)
@@ -1289,6 +1289,20 @@ public class Packages
    private ArrayList<PackageInfo> allPackages_ = new ArrayList<PackageInfo>();
    private PackratContext packratContext_;
    private String packageFilter_ = new String();
+   private PackageSearchIndex searchIndex_ = new PackageSearchIndex();
+   // position of each package in allPackages_, by key
+   private final HashMap<String, Integer> packageIndex_ =
+         new HashMap<String, Integer>();
+   private final HashMap<String, PackageLibraryType> libraryTypes_ =
+         new HashMap<String, PackageLibraryType>();
+   private final Timer filterTimer_ = new Timer()
+   {
+      @Override
+      public void run()
+      {
+         setViewPackageList();
+      }
+   };
    private HandlerRegistration consolePromptHandlerReg_ = null;
    private final EventBus events_ ;
    private final GlobalDisplay globalDisplay_ ;
@@ -1300,4 +1314,6 @@ public class Packages
    private final Session session_;
    private PackageInstallOptions installOptions_ = 
                                   PackageInstallOptions.create(true, "", true);
+   
+   private static final int FILTER_DELAY_MILLIS = 100;
 }
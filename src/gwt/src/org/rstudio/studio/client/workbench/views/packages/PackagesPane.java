@@ -20,6 +20,7 @@ import java.util.List;
 import org.rstudio.core.client.Debug;
 import org.rstudio.core.client.cellview.ImageButtonColumn;
 import org.rstudio.core.client.cellview.LinkColumn;
+import org.rstudio.core.client.container.ListReconciler;
 import org.rstudio.core.client.theme.res.ThemeResources;
 import org.rstudio.core.client.widget.OperationWithInput;
 import org.rstudio.core.client.widget.SearchWidget;
@@ -102,9 +103,25 @@ public class PackagesPane extends WorkbenchPane implements Packages.Display
    public void setPackageState(PackratContext packratContext, 
                                List<PackageInfo> packages)
    {
+      boolean modeChanged = 
+            packratContext.isModeOn() != packratContext_.isModeOn();
       packratContext_ = packratContext;
-      packagesDataProvider_.setList(packages);
-      createPackagesTable();
+      
+      // the table's columns depend on whether Packrat mode is on; otherwise
+      // keep the table and update just the rows which changed
+      if (packagesTable_ == null || modeChanged)
+      {
+         packagesDataProvider_.setList(new ArrayList<PackageInfo>(packages));
+         createPackagesTable();
+      }
+      else
+      {
+         ListReconciler.reconcile(packagesDataProvider_.getList(), 
+                                  packages, 
+                                  PACKAGE_ADAPTER);
+         if (packages.size() > packagesTable_.getPageSize())
+            packagesTable_.setPageSize(packages.size());
+      }
 
       // show the bootstrap button if this state is eligible for Packrat but the
       // project isn't currently under Packrat control
@@ -685,6 +702,22 @@ public class PackagesPane extends WorkbenchPane implements Packages.Display
    private ActionCenter actionCenter_ = null;
    private int gridRenderRetryCount_;
    private PackratContext packratContext_ = PackratContext.empty();
+   
+   private static final ListReconciler.Adapter<PackageInfo> PACKAGE_ADAPTER =
+         new ListReconciler.Adapter<PackageInfo>()
+   {
+      @Override
+      public String getKey(PackageInfo item)
+      {
+         return item.getKey();
+      }
+
+      @Override
+      public boolean isSame(PackageInfo item1, PackageInfo item2)
+      {
+         return item1.hasSameFields(item2);
+      }
+   };
 
    private final Commands commands_;
    private final Session session_;
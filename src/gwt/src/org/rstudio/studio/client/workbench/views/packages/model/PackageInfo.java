@@ -28,6 +28,18 @@ public class PackageInfo extends JavaScriptObject
       return this.name;
    }-*/;
    
+   // identifies an installed package (the same package may be installed in
+   // more than one library)
+   public final String getKey()
+   {
+      return makeKey(getLibrary(), getName());
+   }
+   
+   public static String makeKey(String library, String name)
+   {
+      return library + "/" + name;
+   }
+   
    public final native String getLibrary() /*-{
       return this.library == null ? "" : this.library;
    }-*/;
@@ -106,6 +118,21 @@ public class PackageInfo extends JavaScriptObject
       this["out.of.sync"] = outOfSync;
    }-*/;
 
+   // whether the other package info has identical values for all fields
+   public final native boolean hasSameFields(PackageInfo other) /*-{
+      for (var key in this)
+      {
+         if (this.hasOwnProperty(key) && this[key] !== other[key])
+            return false;
+      }
+      for (var key in other)
+      {
+         if (other.hasOwnProperty(key) && !this.hasOwnProperty(key))
+            return false;
+      }
+      return true;
+   }-*/;
+   
    public final PackageInfo asLoaded()
    {
       return asLoadedState(true);
@@ -0,0 +1,136 @@
+/*
+ * PackageSearchIndex.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.packages.model;
+
+import java.util.ArrayList;
+
+/**
+ * Searches the names and descriptions of a list of packages. The text is
+ * lowercased once, when a package is added, rather than on every search.
+ *
+ * Results are ordered by group (the package's library), then by how well
+ * the package matches (exact name, name prefix, name substring, then
+ * description substring), then by the order the packages were added.
+ * When a query extends the previous one only the previous matches are
+ * searched, so typing a filter narrows the results incrementally.
+ */
+public class PackageSearchIndex
+{
+   public PackageSearchIndex()
+   {
+   }
+
+   /**
+    * Adds a package to the index, returning its position (which is what
+    * search results refer to).
+    */
+   public int add(String name, String desc, int group)
+   {
+      names_.add(name == null ? "" : name.toLowerCase());
+      descs_.add(desc == null ? "" : desc.toLowerCase());
+      groups_.add(group);
+      maxGroup_ = Math.max(maxGroup_, group);
+      lastQuery_ = null;
+      return names_.size() - 1;
+   }
+
+   public int size()
+   {
+      return names_.size();
+   }
+
+   /**
+    * Returns the positions of the packages matching the query, ranked.
+    */
+   public int[] search(String query)
+   {
+      query = query.toLowerCase();
+
+      // a longer query can only match a subset of what the previous query
+      // matched
+      int[] candidates = null;
+      if (lastQuery_ != null && query.startsWith(lastQuery_))
+         candidates = lastMatches_;
+
+      int count = candidates != null ? candidates.length : names_.size();
+      int[] matches = new int[count];
+      int[] ranks = new int[count];
+      int matchCount = 0;
+      for (int i = 0; i < count; i++)
+      {
+         int position = candidates != null ? candidates[i] : i;
+         int rank = rank(position, query);
+         if (rank != NO_MATCH)
+         {
+            matches[matchCount] = position;
+            ranks[matchCount] = rank;
+            matchCount++;
+         }
+      }
+
+      lastQuery_ = query;
+      lastMatches_ = new int[matchCount];
+      System.arraycopy(matches, 0, lastMatches_, 0, matchCount);
+
+      // order the matches with a counting sort on (group, rank); the
+      // matches are already in position order, so ties keep that order
+      int buckets = (maxGroup_ + 1) * RANK_COUNT;
+      int[] starts = new int[buckets + 1];
+      for (int i = 0; i < matchCount; i++)
+         starts[bucket(matches[i], ranks[i]) + 1]++;
+      for (int i = 0; i < buckets; i++)
+         starts[i + 1] += starts[i];
+
+      int[] results = new int[matchCount];
+      for (int i = 0; i < matchCount; i++)
+         results[starts[bucket(matches[i], ranks[i])]++] = matches[i];
+      return results;
+   }
+
+   private int rank(int position, String query)
+   {
+      String name = names_.get(position);
+      if (name.equals(query))
+         return RANK_EXACT;
+      else if (name.startsWith(query))
+         return RANK_PREFIX;
+      else if (name.contains(query))
+         return RANK_NAME;
+      else if (descs_.get(position).contains(query))
+         return RANK_DESC;
+      else
+         return NO_MATCH;
+   }
+
+   private int bucket(int position, int rank)
+   {
+      return groups_.get(position) * RANK_COUNT + rank;
+   }
+
+   private final ArrayList<String> names_ = new ArrayList<String>();
+   private final ArrayList<String> descs_ = new ArrayList<String>();
+   private final ArrayList<Integer> groups_ = new ArrayList<Integer>();
+   private int maxGroup_ = 0;
+
+   private String lastQuery_ = null;
+   private int[] lastMatches_ = null;
+
+   private static final int RANK_EXACT = 0;
+   private static final int RANK_PREFIX = 1;
+   private static final int RANK_NAME = 2;
+   private static final int RANK_DESC = 3;
+   private static final int RANK_COUNT = 4;
+   private static final int NO_MATCH = -1;
+}
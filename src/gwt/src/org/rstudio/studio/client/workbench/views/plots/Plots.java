@@ -15,6 +15,7 @@
 package org.rstudio.studio.client.workbench.views.plots;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JsArray;
 import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.event.logical.shared.HasResizeHandlers;
@@ -22,6 +23,7 @@ import com.google.gwt.event.logical.shared.SelectionEvent;
 import com.google.gwt.event.logical.shared.SelectionHandler;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.user.client.ui.HasWidgets;
+import com.google.gwt.user.client.ui.Image;
 import com.google.gwt.user.client.ui.Panel;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -61,6 +63,7 @@ import org.rstudio.studio.client.workbench.views.plots.events.LocatorHandler;
 import org.rstudio.studio.client.workbench.views.plots.events.PlotsChangedEvent;
 import org.rstudio.studio.client.workbench.views.plots.events.PlotsChangedHandler;
 import org.rstudio.studio.client.workbench.views.plots.events.PlotsZoomSizeChangedEvent;
+import org.rstudio.studio.client.workbench.views.plots.model.PlotImageCache;
 import org.rstudio.studio.client.workbench.views.plots.model.PlotsServerOperations;
 import org.rstudio.studio.client.workbench.views.plots.model.PlotsState;
 import org.rstudio.studio.client.workbench.views.plots.model.SavePlotAsPdfOptions;
@@ -201,9 +204,14 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
       }
       else
       {
+         // skip reloading the image if we're already showing it from the
+         // cache
          String url = server_.getGraphicsUrl(plotsState.getFilename());
-         view_.showPlot(url);
+         if (!url.equals(cachedPlotUrl_))
+            view_.showPlot(url);
       }
+      cachedPlotUrl_ = null;
+      updateImageCache(plotsState);
       
       // activate the plots tab if requested
       if (plotsState.getActivatePlots())
@@ -231,14 +239,16 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
    void onNextPlot()
    {
       view_.bringToFront();
-      setChangePlotProgress();
+      if (!showCachedPlot(plotIndex_ + 1))
+         setChangePlotProgress();
       server_.nextPlot(new PlotRequestCallback());
    }
 
    void onPreviousPlot()
    {
       view_.bringToFront();
-      setChangePlotProgress();
+      if (!showCachedPlot(plotIndex_ - 1))
+         setChangePlotProgress();
       server_.previousPlot(new PlotRequestCallback());
    }
    
@@ -504,6 +514,57 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
       }
    }
    
+   // shows the given plot right away if we have its image at the current
+   // size; the PlotsChangedEvent which follows confirms it
+   private boolean showCachedPlot(int index)
+   {
+      if (index < 0 || index >= plotCount_)
+         return false;
+      
+      // the server will move to this plot, so further steps through the
+      // history are relative to it
+      plotIndex_ = index;
+      
+      if (plotSize_ == null)
+         return false;
+      String url = imageCache_.get(index, plotSize_.width, plotSize_.height);
+      if (url == null)
+         return false;
+      
+      view_.showPlot(url);
+      cachedPlotUrl_ = url;
+      return true;
+   }
+   
+   private void updateImageCache(PlotsState plotsState)
+   {
+      // removing plots shifts the indexes of those after them
+      if (plotsState.getPlotCount() < plotCount_)
+         imageCache_.clear();
+      
+      plotIndex_ = plotsState.getPlotIndex();
+      plotCount_ = plotsState.getPlotCount();
+      if (plotCount_ == 0 || plotsState.getFilename().startsWith("empty."))
+         return;
+      
+      int width = plotsState.getWidth();
+      int height = plotsState.getHeight();
+      imageCache_.put(plotIndex_, width, height,
+                      server_.getGraphicsUrl(plotsState.getFilename()));
+      
+      // have the browser fetch the images of neighboring plots in the 
+      // background so that stepping to them is instant
+      JsArray<PlotsState.NeighborImage> neighbors = 
+            plotsState.getNeighborImages();
+      for (int i = 0; i < neighbors.length(); i++)
+      {
+         PlotsState.NeighborImage neighbor = neighbors.get(i);
+         String url = server_.getGraphicsUrl(neighbor.getFilename());
+         if (imageCache_.put(neighbor.getIndex(), width, height, url))
+            Image.prefetch(url);
+      }
+   }
+   
    private void setChangePlotProgress()
    {
       if (!Desktop.isDesktop())
@@ -623,4 +684,13 @@ public class Plots extends BasePresenter implements PlotsChangedHandler,
    
    // size of most recently rendered plot
    Size plotSize_ = null;
+   
+   private int plotIndex_ = 0;
+   private int plotCount_ = 0;
+   private String cachedPlotUrl_ = null;
+   private final PlotImageCache imageCache_ = 
+         new PlotImageCache(IMAGE_CACHE_BUDGET_BYTES);
+   
+   // estimated decoded size of the cached plot images
+   private static final long IMAGE_CACHE_BUDGET_BYTES = 64 * 1024 * 1024;
 }
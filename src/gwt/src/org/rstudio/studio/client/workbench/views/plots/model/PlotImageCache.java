@@ -0,0 +1,130 @@
+/*
+ * PlotImageCache.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.plots.model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the image URLs of plots in the plot history, keyed by plot
+ * index and size, so that stepping back and forth through the history can
+ * show a plot the browser has already fetched without waiting on the
+ * server.
+ *
+ * The cache holds at most one image per plot index (a plot only has one
+ * current rendering). Least recently used images are evicted once the
+ * estimated decoded size of the cached images exceeds the memory budget.
+ */
+public class PlotImageCache
+{
+   public PlotImageCache(long budgetBytes)
+   {
+      budgetBytes_ = budgetBytes;
+   }
+
+   /**
+    * Records the image for a plot, replacing any other image recorded for
+    * the same plot. Returns false if the image was already cached.
+    */
+   public boolean put(int index, int width, int height, String url)
+   {
+      String key = key(index, width, height);
+      Entry existing = entries_.get(key);
+      if (existing != null && existing.url.equals(url))
+         return false;
+
+      remove(index);
+      Entry entry = new Entry(index, url, 4L * width * height);
+      entries_.put(key, entry);
+      totalBytes_ += entry.bytes;
+
+      // evict the least recently used images, always keeping the newest
+      Iterator<Entry> it = entries_.values().iterator();
+      while (totalBytes_ > budgetBytes_ && entries_.size() > 1)
+      {
+         Entry eldest = it.next();
+         it.remove();
+         totalBytes_ -= eldest.bytes;
+      }
+      return true;
+   }
+
+   /**
+    * Returns the URL of the image of the given plot at the given size, or
+    * null if there is none.
+    */
+   public String get(int index, int width, int height)
+   {
+      Entry entry = entries_.get(key(index, width, height));
+      return entry != null ? entry.url : null;
+   }
+
+   public void remove(int index)
+   {
+      Iterator<Entry> it = entries_.values().iterator();
+      while (it.hasNext())
+      {
+         Entry entry = it.next();
+         if (entry.index == index)
+         {
+            it.remove();
+            totalBytes_ -= entry.bytes;
+         }
+      }
+   }
+
+   public void clear()
+   {
+      entries_.clear();
+      totalBytes_ = 0;
+   }
+
+   public int size()
+   {
+      return entries_.size();
+   }
+
+   public long getTotalBytes()
+   {
+      return totalBytes_;
+   }
+
+   private static String key(int index, int width, int height)
+   {
+      return index + ":" + width + "x" + height;
+   }
+
+   private static class Entry
+   {
+      public Entry(int index, String url, long bytes)
+      {
+         this.index = index;
+         this.url = url;
+         this.bytes = bytes;
+      }
+
+      public final int index;
+      public final String url;
+      public final long bytes;
+   }
+
+   private final long budgetBytes_;
+   private long totalBytes_ = 0;
+
+   // in access order, least recently used first
+   private final Map<String, Entry> entries_ =
+         new LinkedHashMap<String, Entry>(16, 0.75f, true);
+}
@@ -15,9 +15,25 @@
 package org.rstudio.studio.client.workbench.views.plots.model;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
 
 public class PlotsState extends JavaScriptObject
 {
+   public static class NeighborImage extends JavaScriptObject
+   {
+      protected NeighborImage()
+      {
+      }
+      
+      public final native int getIndex() /*-{
+         return this.index;
+      }-*/;
+      
+      public final native String getFilename() /*-{
+         return this.filename;
+      }-*/;
+   }
+   
    protected PlotsState()
    {
    }
@@ -53,4 +69,10 @@ public class PlotsState extends JavaScriptObject
    public final native boolean getShowManipulator() /*-{
       return this.showManipulator;
    }-*/;
+   
+   // images of plots near the active one which are already rendered at
+   // the current size
+   public final native JsArray<NeighborImage> getNeighborImages() /*-{
+      return this.neighbors || [];
+   }-*/;
 }
@@ -70,6 +70,7 @@ import org.rstudio.studio.client.common.GlobalProgressDelayer;
 import org.rstudio.studio.client.common.SimpleRequestCallback;
 import org.rstudio.studio.client.common.dependencies.DependencyManager;
 import org.rstudio.studio.client.common.filetypes.EditableFileType;
+import org.rstudio.studio.client.common.filetypes.FileType;
 import org.rstudio.studio.client.common.filetypes.FileTypeRegistry;
 import org.rstudio.studio.client.common.filetypes.TextFileType;
 import org.rstudio.studio.client.common.filetypes.events.OpenPresentationSourceFileEvent;
@@ -120,6 +121,7 @@ import org.rstudio.studio.client.workbench.views.environment.events.DebugModeCha
 import org.rstudio.studio.client.workbench.views.output.find.events.FindInFilesEvent;
 import org.rstudio.studio.client.workbench.views.source.NewShinyWebApplication.Result;
 import org.rstudio.studio.client.workbench.views.source.SourceWindowManager.NavigationResult;
+import org.rstudio.studio.client.workbench.views.source.editors.DeferredEditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.EditingTarget;
 import org.rstudio.studio.client.workbench.views.source.editors.EditingTargetSource;
 import org.rstudio.studio.client.workbench.views.source.editors.codebrowser.CodeBrowserEditingTarget;
@@ -155,6 +157,7 @@ import org.rstudio.studio.client.workbench.views.source.model.SourcePosition;
 import org.rstudio.studio.client.workbench.views.source.model.SourceServerOperations;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 
 public class Source implements InsertSourceHandler,
@@ -360,6 +363,7 @@ public class Source implements InsertSourceHandler,
       dynamicCommands_.add(commands.notebookCollapseAllOutput());
       dynamicCommands_.add(commands.notebookExpandAllOutput());
       dynamicCommands_.add(commands.notebookClearAllOutput());
+      dynamicCommands_.add(commands.notebookClearChunkCache());
       for (AppCommand command : dynamicCommands_)
       {
          command.setVisible(false);
@@ -566,6 +570,20 @@ public class Source implements InsertSourceHandler,
          }
       });
       
+      DiagnosticCounters.register("Source documents",
+                                  new DiagnosticCounters.Source()
+      {
+         @Override
+         public void collect(DiagnosticCounters.Collector collector)
+         {
+            collector.add("Restored documents", restoredDocumentCount_);
+            collector.add("Deferred at restore", deferredTargetCount_);
+            collector.add("Restore ms", restoreMillis_);
+            collector.add("Deferred editors created", deferredLoadCount_);
+            collector.add("Deferred editor creation ms", deferredLoadMillis_);
+         }
+      });
+      
       restoreDocuments(session);
       
       // get the key to use for active tab persistence; use ordinal-based key
@@ -582,10 +600,15 @@ public class Source implements InsertSourceHandler,
          @Override
          protected void onInit(Integer value)
          {
+            if (value != null && value >= 0 && view_.getTabCount() > value)
+               view_.selectTab(value);
+
+            // now that the active tab is known, activate it (this is the only
+            // restored tab whose editor is created up front)
+            finishRestoringDocuments();
+
             if (value == null)
                return;
-            if (value >= 0 && view_.getTabCount() > value)
-               view_.selectTab(value);
 
             if (view_.getTabCount() > 0 && view_.getActiveTabIndex() >= 0)
             {
@@ -744,7 +767,7 @@ public class Source implements InsertSourceHandler,
                                       Command continuation)
                   {
                      view_.closeTab(
-                           editingTarget.asWidget(),
+                           getTabWidget(editingTarget),
                            false,
                            continuation);
                   }
@@ -808,6 +831,12 @@ public class Source implements InsertSourceHandler,
       final JsArray<SourceDocument> docs =
             session.getSessionInfo().getSourceDocuments();
 
+      // tabs are not activated while restoring, and text documents are
+      // restored as placeholders which create their editors when first 
+      // activated (see finishRestoringDocuments)
+      restoringDocuments_ = true;
+      restoreStartTime_ = System.currentTimeMillis();
+
       for (int i = 0; i < docs.length(); i++)
       {
          // restore the docs assigned to this source window
@@ -845,6 +874,89 @@ public class Source implements InsertSourceHandler,
       }
    }
    
+   private void finishRestoringDocuments()
+   {
+      if (!restoringDocuments_)
+         return;
+      
+      restoringDocuments_ = false;
+      activateTab(view_.getActiveTabIndex());
+      
+      restoredDocumentCount_ = editors_.size();
+      restoreMillis_ = System.currentTimeMillis() - restoreStartTime_;
+   }
+   
+   /**
+    * Creates the editor for a restored document whose creation was deferred,
+    * replacing the placeholder (whose widget continues to host the tab).
+    */
+   private EditingTarget loadDeferredTarget(DeferredEditingTarget placeholder)
+   {
+      long startTime = System.currentTimeMillis();
+      
+      final Widget widget = placeholder.asWidget();
+      EditingTarget target = createEditingTarget(placeholder.getDocument());
+      
+      int index = editors_.indexOf(placeholder);
+      if (index >= 0)
+         editors_.set(index, target);
+      deferredTabWidgets_.put(target.getId(), widget);
+      
+      attachTarget(target, widget);
+      view_.renameTab(widget,
+                      target.getIcon(),
+                      target.getName().getValue(),
+                      target.getTabTooltip());
+      fireDocTabsChanged();
+      
+      // the placeholder may have been activated while the document's
+      // contents were being fetched
+      if (activeEditor_ == placeholder)
+      {
+         activeEditor_ = target;
+         if (initialized_)
+            manageCommands();
+      }
+      
+      deferredLoadCount_++;
+      deferredLoadMillis_ += System.currentTimeMillis() - startTime;
+      
+      return target;
+   }
+   
+   private EditingTarget loadEditingTarget(int index)
+   {
+      EditingTarget target = editors_.get(index);
+      if (target instanceof DeferredEditingTarget)
+      {
+         // if the document's contents need to be fetched the placeholder
+         // stands in (queueing calls) until the editor has been created
+         EditingTarget loaded = ((DeferredEditingTarget) target).loadTarget();
+         if (loaded != null)
+            return loaded;
+      }
+      return target;
+   }
+   
+   private void withLoadedTarget(EditingTarget target,
+                                 CommandWithArg<EditingTarget> command)
+   {
+      if (target instanceof DeferredEditingTarget)
+         ((DeferredEditingTarget) target).withTarget(command);
+      else
+         command.execute(target);
+   }
+   
+   /**
+    * Returns the widget hosting the target's tab; this is the placeholder's
+    * widget for targets whose creation was deferred.
+    */
+   private Widget getTabWidget(EditingTarget target)
+   {
+      Widget widget = deferredTabWidgets_.get(target.getId());
+      return widget != null ? widget : target.asWidget();
+   }
+   
    private void openEditPublishedDocs()
    {
       // don't do this if we are switching projects (it
@@ -1242,7 +1354,7 @@ public class Source implements InsertSourceHandler,
             {
                if (firstTarget_ != null)
                {
-                  view_.selectTab(firstTarget_.asWidget());
+                  view_.selectTab(getTabWidget(firstTarget_));
                   firstTarget_.setCursorPosition(Position.create(0, 0));
                }
                
@@ -2118,9 +2230,9 @@ public class Source implements InsertSourceHandler,
    
    private EditingTarget getEditingTargetForId(String id)
    {
-      for (EditingTarget target : editors_)
-         if (id.equals(target.getId()))
-            return target;
+      for (int i = 0; i < editors_.size(); i++)
+         if (id.equals(editors_.get(i).getId()))
+            return loadEditingTarget(i);
 
       return null;
    }
@@ -2194,7 +2306,7 @@ public class Source implements InsertSourceHandler,
                   }
                   else
                   {
-                     view_.closeTab(target.asWidget(), false, continuation);
+                     view_.closeTab(getTabWidget(target), false, continuation);
                   }
                }
             });
@@ -2354,7 +2466,7 @@ public class Source implements InsertSourceHandler,
                else
                {
                   // untitled document -- just close the tab non-interactively
-                  view_.closeTab(saveTarget.asWidget(), false, continuation);
+                  view_.closeTab(getTabWidget(saveTarget), false, continuation);
                }
             }
          },
@@ -2594,7 +2706,7 @@ public class Source implements InsertSourceHandler,
                else
                {
                   view_.selectTab(i);
-                  editingTargetAction.execute(target);
+                  withLoadedTarget(target, editingTargetAction);
                }
                return;
             }
@@ -2803,7 +2915,16 @@ public class Source implements InsertSourceHandler,
             view_.selectTab(i);
             pMruList_.get().add(thisPath);
             if (resultCallback != null)
-               resultCallback.onSuccess(target);
+            {
+               withLoadedTarget(target, new CommandWithArg<EditingTarget>()
+               {
+                  @Override
+                  public void execute(EditingTarget loaded)
+                  {
+                     resultCallback.onSuccess(loaded);
+                  }
+               });
+            }
             return true;
          }
       }
@@ -2956,15 +3077,11 @@ public class Source implements InsertSourceHandler,
    private EditingTarget addTab(SourceDocument doc, Integer position, 
          int mode)
    {
-      final String defaultNamePrefix = editingTargetSource_.getDefaultNamePrefix(doc);
-      final EditingTarget target = editingTargetSource_.getEditingTarget(
-            doc, fileContext_, new Provider<String>()
-            {
-               public String get()
-               {
-                  return getNextDefaultName(defaultNamePrefix);
-               }
-            });
+      EditingTarget target = null;
+      if (restoringDocuments_)
+         target = createDeferredTarget(doc);
+      if (target == null)
+         target = createEditingTarget(doc);
       
       final Widget widget = createWidget(target);
 
@@ -2997,6 +3114,60 @@ public class Source implements InsertSourceHandler,
                    true);
       fireDocTabsChanged();
 
+      attachTarget(target, widget);
+      
+      events_.fireEvent(new SourceDocAddedEvent(doc, mode));
+      
+      // adding a tab may enable commands that are only available when 
+      // multiple documents are open; if this is the second document, go check
+      if (editors_.size() == 2)
+         manageMultiTabCommands();
+      
+      // if the target had an editing session active, attempt to resume it
+      if (doc.getCollabParams() != null)
+         target.beginCollabSession(doc.getCollabParams());
+      
+      return target;
+   }
+   
+   private EditingTarget createEditingTarget(SourceDocument doc)
+   {
+      final String defaultNamePrefix = editingTargetSource_.getDefaultNamePrefix(doc);
+      return editingTargetSource_.getEditingTarget(
+            doc, fileContext_, new Provider<String>()
+            {
+               public String get()
+               {
+                  return getNextDefaultName(defaultNamePrefix);
+               }
+            });
+   }
+   
+   private EditingTarget createDeferredTarget(SourceDocument doc)
+   {
+      FileType type = fileTypeRegistry_.getTypeByTypeName(doc.getType());
+      if (type == null)
+         type = FileTypeRegistry.TEXT;
+      if (!(type instanceof TextFileType) || 
+          !DeferredEditingTarget.canDefer(doc))
+      {
+         return null;
+      }
+      
+      deferredTargetCount_++;
+      return new DeferredEditingTarget(doc, (TextFileType) type, server_,
+            globalDisplay_, new DeferredEditingTarget.Loader()
+      {
+         @Override
+         public EditingTarget load(DeferredEditingTarget placeholder)
+         {
+            return loadDeferredTarget(placeholder);
+         }
+      });
+   }
+   
+   private void attachTarget(final EditingTarget target, final Widget widget)
+   {
       target.getName().addValueChangeHandler(new ValueChangeHandler<String>()
       {
          public void onValueChange(ValueChangeEvent<String> event)
@@ -3034,19 +3205,6 @@ public class Source implements InsertSourceHandler,
             view_.closeTab(widget, false);
          }
       });
-      
-      events_.fireEvent(new SourceDocAddedEvent(doc, mode));
-      
-      // adding a tab may enable commands that are only available when 
-      // multiple documents are open; if this is the second document, go check
-      if (editors_.size() == 2)
-         manageMultiTabCommands();
-      
-      // if the target had an editing session active, attempt to resume it
-      if (doc.getCollabParams() != null)
-         target.beginCollabSession(doc.getCollabParams());
-      
-      return target;
    }
 
    private String getNextDefaultName(String defaultNamePrefix)
@@ -3148,6 +3306,7 @@ public class Source implements InsertSourceHandler,
    private void closeTabIndex(int idx, boolean closeDocument)
    {
       EditingTarget target = editors_.remove(idx);
+      deferredTabWidgets_.remove(target.getId());
 
       tabOrder_.remove(new Integer(idx));
       for (int i = 0; i < tabOrder_.size(); i++)
@@ -3264,15 +3423,25 @@ public class Source implements InsertSourceHandler,
    }
 
    public void onSelection(SelectionEvent<Integer> event)
+   {
+      // tabs selected while restoring documents aren't activated; the tab
+      // that ends up selected is activated once restoring is finished
+      if (restoringDocuments_)
+         return;
+      
+      activateTab(event.getSelectedItem());
+   }
+   
+   private void activateTab(int index)
    {
       if (activeEditor_ != null)
          activeEditor_.onDeactivate();
 
       activeEditor_ = null;
 
-      if (event.getSelectedItem() >= 0)
+      if (index >= 0)
       {
-         activeEditor_ = editors_.get(event.getSelectedItem());
+         activeEditor_ = loadEditingTarget(index);
          activeEditor_.onActivate();
          
          // let any listeners know this tab was activated
@@ -3686,7 +3855,7 @@ public class Source implements InsertSourceHandler,
             suspendSourceNavigationAdding_ = true;
             try
             {
-               view_.selectTab(target.asWidget());
+               view_.selectTab(getTabWidget(target));
                target.restorePosition(navigation.getPosition());
             }
             finally
@@ -4070,7 +4239,7 @@ public class Source implements InsertSourceHandler,
          String editorId = editors_.get(i).getId();
          if (editorId != null && editorId.equals(id))
          {
-            onEditorLocated.execute(editors_.get(i));
+            onEditorLocated.execute(loadEditingTarget(i));
             break;
          }
       }
@@ -4232,6 +4401,18 @@ public class Source implements InsertSourceHandler,
    private boolean initialized_;
    private Timer debugSelectionTimer_ = null;
    
+   // state for restoring documents at startup; the editors of restored text
+   // documents are created when their tabs are first activated
+   private boolean restoringDocuments_ = false;
+   private long restoreStartTime_;
+   private long restoreMillis_;
+   private int restoredDocumentCount_;
+   private int deferredTargetCount_;
+   private int deferredLoadCount_;
+   private long deferredLoadMillis_;
+   private final HashMap<String, Widget> deferredTabWidgets_ =
+                                             new HashMap<String, Widget>();
+   
    private final SourceWindowManager windowManager_;
 
    // If positive, a new tab is about to be created
@@ -0,0 +1,671 @@
+/*
+ * DeferredEditingTarget.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors;
+
+import com.google.gwt.event.logical.shared.CloseEvent;
+import com.google.gwt.event.logical.shared.CloseHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerManager;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.resources.client.ImageResource;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.ui.HasValue;
+import com.google.gwt.user.client.ui.SimpleLayoutPanel;
+import com.google.gwt.user.client.ui.Widget;
+import com.google.inject.Provider;
+
+import org.rstudio.core.client.CommandWithArg;
+import org.rstudio.core.client.StringUtil;
+import org.rstudio.core.client.command.AppCommand;
+import org.rstudio.core.client.events.EnsureHeightEvent;
+import org.rstudio.core.client.events.EnsureHeightHandler;
+import org.rstudio.core.client.events.EnsureVisibleEvent;
+import org.rstudio.core.client.events.EnsureVisibleHandler;
+import org.rstudio.core.client.files.FileSystemContext;
+import org.rstudio.core.client.files.FileSystemItem;
+import org.rstudio.studio.client.common.GlobalDisplay;
+import org.rstudio.studio.client.common.ReadOnlyValue;
+import org.rstudio.studio.client.common.Value;
+import org.rstudio.studio.client.common.filetypes.FileType;
+import org.rstudio.studio.client.common.filetypes.TextFileType;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+import org.rstudio.studio.client.workbench.views.source.events.CollabEditStartParams;
+import org.rstudio.studio.client.workbench.views.source.model.SourceDocument;
+import org.rstudio.studio.client.workbench.views.source.model.SourcePosition;
+import org.rstudio.studio.client.workbench.views.source.model.SourceServerOperations;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Stands in for the editing target of a restored text document until the
+ * document's tab is first activated. Only the tab's title, path, icon and
+ * dirty state are known up front; the editor itself is created by the
+ * loader on demand, after which every call is forwarded to it.
+ *
+ * If the document was restored without its contents they are fetched from
+ * the server first; calls which need the editor in the meantime are queued
+ * and run once it has been created.
+ */
+public class DeferredEditingTarget implements EditingTarget
+{
+   public interface Loader
+   {
+      /**
+       * Creates the editing target for the deferred document. The loader is
+       * responsible for swapping the real target in for the placeholder.
+       */
+      EditingTarget load(DeferredEditingTarget placeholder);
+   }
+
+   public DeferredEditingTarget(SourceDocument document,
+                                TextFileType fileType,
+                                SourceServerOperations server,
+                                GlobalDisplay globalDisplay,
+                                Loader loader)
+   {
+      document_ = document;
+      fileType_ = fileType;
+      server_ = server;
+      globalDisplay_ = globalDisplay;
+      loader_ = loader;
+      name_ = new Value<String>(getNameFromDocument(document));
+      dirtyState_ = new Value<Boolean>(document.isDirty());
+   }
+
+   /**
+    * Returns true if a document can be restored without creating its editor;
+    * untitled documents without a name are excluded since naming them
+    * requires knowledge of the other open documents.
+    */
+   public static boolean canDefer(SourceDocument document)
+   {
+      return document.getCollabParams() == null &&
+             getNameFromDocument(document) != null;
+   }
+
+   public SourceDocument getDocument()
+   {
+      return document_;
+   }
+
+   public boolean isLoaded()
+   {
+      return target_ != null;
+   }
+
+   /**
+    * Returns the editing target, creating it if necessary. Returns null if
+    * the document's contents have yet to be fetched (the fetch is started).
+    */
+   public EditingTarget loadTarget()
+   {
+      if (target_ == null)
+      {
+         if (document_.isContentsDeferred())
+         {
+            fetchDocument();
+            return null;
+         }
+         
+         target_ = loader_.load(this);
+         panel_.setWidget(target_.asWidget());
+         if (pendingPosition_ != null)
+         {
+            target_.restorePosition(pendingPosition_);
+            target_.ensureCursorVisible();
+            pendingPosition_ = null;
+         }
+      }
+      return target_;
+   }
+
+   /**
+    * Executes the command with the editing target, once it has been created.
+    */
+   public void withTarget(CommandWithArg<EditingTarget> command)
+   {
+      EditingTarget target = loadTarget();
+      if (target != null)
+         command.execute(target);
+      else
+         pendingCommands_.add(command);
+   }
+
+   private void fetchDocument()
+   {
+      if (fetching_)
+         return;
+      fetching_ = true;
+
+      server_.getSourceDocument(getId(),
+            new ServerRequestCallback<SourceDocument>()
+      {
+         @Override
+         public void onResponseReceived(SourceDocument document)
+         {
+            fetching_ = false;
+            document_ = document;
+            EditingTarget target = loadTarget();
+            if (activatePending_)
+            {
+               target.onActivate();
+               if (focusPending_)
+                  target.focus();
+            }
+            activatePending_ = false;
+            focusPending_ = false;
+
+            ArrayList<CommandWithArg<EditingTarget>> commands =
+                  new ArrayList<CommandWithArg<EditingTarget>>(pendingCommands_);
+            pendingCommands_.clear();
+            for (CommandWithArg<EditingTarget> command : commands)
+               command.execute(target);
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            // the fetch is retried when the tab is next activated; queued
+            // commands are kept and run once the editor has been created
+            fetching_ = false;
+            activatePending_ = false;
+            focusPending_ = false;
+            globalDisplay_.showErrorMessage(
+                  "Error Opening Document",
+                  "The contents of " + getTitle() + " could not be " +
+                  "loaded: " + error.getUserMessage());
+         }
+      });
+   }
+
+   @Override
+   public String getId()
+   {
+      return document_.getId();
+   }
+
+   @Override
+   public HasValue<String> getName()
+   {
+      return isLoaded() ? target_.getName() : name_;
+   }
+
+   @Override
+   public String getTitle()
+   {
+      return getName().getValue();
+   }
+
+   @Override
+   public String getPath()
+   {
+      return isLoaded() ? target_.getPath() : document_.getPath();
+   }
+
+   @Override
+   public String getContext()
+   {
+      return null;
+   }
+
+   @Override
+   public ImageResource getIcon()
+   {
+      return isLoaded() ? target_.getIcon() : fileType_.getDefaultIcon();
+   }
+
+   @Override
+   public String getTabTooltip()
+   {
+      return getPath();
+   }
+
+   @Override
+   public TextFileType getTextFileType()
+   {
+      return isLoaded() ? target_.getTextFileType() : fileType_;
+   }
+
+   @Override
+   public void adaptToExtendedFileType(String extendedType)
+   {
+      if (isLoaded())
+         target_.adaptToExtendedFileType(extendedType);
+      else
+         document_.setExtendedType(extendedType);
+   }
+
+   @Override
+   public String getExtendedFileType()
+   {
+      return isLoaded() ? target_.getExtendedFileType() :
+                          document_.getExtendedType();
+   }
+
+   @Override
+   public HashSet<AppCommand> getSupportedCommands()
+   {
+      if (isLoaded())
+         return target_.getSupportedCommands();
+      return new HashSet<AppCommand>();
+   }
+
+   @Override
+   public void manageCommands()
+   {
+      if (isLoaded())
+         target_.manageCommands();
+   }
+
+   @Override
+   public boolean canCompilePdf()
+   {
+      return isLoaded() ? target_.canCompilePdf() : fileType_.canCompilePDF();
+   }
+
+   @Override
+   public void verifyCppPrerequisites()
+   {
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.verifyCppPrerequisites();
+         }
+      });
+   }
+
+   @Override
+   public void focus()
+   {
+      if (isLoaded())
+         target_.focus();
+      else
+         focusPending_ = true;
+   }
+
+   @Override
+   public void onActivate()
+   {
+      // if the contents are being fetched, the editor is activated once it
+      // has been created (provided the tab is still active by then)
+      EditingTarget target = loadTarget();
+      if (target != null)
+         target.onActivate();
+      else
+         activatePending_ = true;
+   }
+
+   @Override
+   public void onDeactivate()
+   {
+      if (isLoaded())
+         target_.onDeactivate();
+      activatePending_ = false;
+      focusPending_ = false;
+   }
+
+   @Override
+   public void onInitiallyLoaded()
+   {
+      if (isLoaded())
+         target_.onInitiallyLoaded();
+   }
+
+   @Override
+   public void recordCurrentNavigationPosition()
+   {
+      if (isLoaded())
+         target_.recordCurrentNavigationPosition();
+   }
+
+   @Override
+   public void navigateToPosition(final SourcePosition position,
+                                  final boolean recordCurrent)
+   {
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.navigateToPosition(position, recordCurrent);
+         }
+      });
+   }
+
+   @Override
+   public void navigateToPosition(final SourcePosition position,
+                                  final boolean recordCurrent,
+                                  final boolean highlightLine)
+   {
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.navigateToPosition(position,
+                                      recordCurrent,
+                                      highlightLine);
+         }
+      });
+   }
+
+   @Override
+   public void restorePosition(SourcePosition position)
+   {
+      // remember the position until the editor exists
+      if (isLoaded())
+         target_.restorePosition(position);
+      else
+         pendingPosition_ = position;
+   }
+
+   @Override
+   public SourcePosition currentPosition()
+   {
+      return isLoaded() ? target_.currentPosition() : pendingPosition_;
+   }
+
+   @Override
+   public boolean isAtSourceRow(SourcePosition position)
+   {
+      EditingTarget target = loadTarget();
+      return target != null && target.isAtSourceRow(position);
+   }
+
+   @Override
+   public void forceLineHighlighting()
+   {
+      if (isLoaded())
+         target_.forceLineHighlighting();
+   }
+
+   @Override
+   public void setCursorPosition(final Position position)
+   {
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.setCursorPosition(position);
+         }
+      });
+   }
+
+   @Override
+   public void ensureCursorVisible()
+   {
+      // the pending position is made visible when the editor is created
+      if (isLoaded())
+         target_.ensureCursorVisible();
+   }
+
+   @Override
+   public Position search(String regex)
+   {
+      EditingTarget target = loadTarget();
+      return target != null ? target.search(regex) : null;
+   }
+
+   @Override
+   public Position search(Position startPos, String regex)
+   {
+      EditingTarget target = loadTarget();
+      return target != null ? target.search(startPos, regex) : null;
+   }
+
+   @Override
+   public void highlightDebugLocation(final SourcePosition startPos,
+                                      final SourcePosition endPos,
+                                      final boolean executing)
+   {
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.highlightDebugLocation(startPos, endPos, executing);
+         }
+      });
+   }
+
+   @Override
+   public void endDebugHighlighting()
+   {
+      if (isLoaded())
+         target_.endDebugHighlighting();
+   }
+
+   @Override
+   public void beginCollabSession(final CollabEditStartParams params)
+   {
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.beginCollabSession(params);
+         }
+      });
+   }
+
+   @Override
+   public void endCollabSession()
+   {
+      if (isLoaded())
+         target_.endCollabSession();
+   }
+
+   @Override
+   public boolean onBeforeDismiss()
+   {
+      // unmodified documents can be closed without ever creating the editor
+      // (dirty documents are always restored with their contents)
+      if (isLoaded() || dirtyState_.getValue())
+      {
+         EditingTarget target = loadTarget();
+         if (target != null)
+            return target.onBeforeDismiss();
+      }
+      return true;
+   }
+
+   @Override
+   public void onDismiss(int dismissType)
+   {
+      if (isLoaded())
+         target_.onDismiss(dismissType);
+   }
+
+   @Override
+   public ReadOnlyValue<Boolean> dirtyState()
+   {
+      return isLoaded() ? target_.dirtyState() : dirtyState_;
+   }
+
+   @Override
+   public boolean isSaveCommandActive()
+   {
+      return isLoaded() ? target_.isSaveCommandActive() :
+                          dirtyState_.getValue();
+   }
+
+   @Override
+   public void forceSaveCommandActive()
+   {
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.forceSaveCommandActive();
+         }
+      });
+   }
+
+   @Override
+   public void save(final Command onCompleted)
+   {
+      // documents without their contents are unmodified; nothing to save
+      if (!isLoaded() && document_.isContentsDeferred())
+      {
+         onCompleted.execute();
+         return;
+      }
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.save(onCompleted);
+         }
+      });
+   }
+
+   @Override
+   public void saveWithPrompt(final Command onCompleted,
+                              final Command onCancelled)
+   {
+      if (!isLoaded() && document_.isContentsDeferred())
+      {
+         onCompleted.execute();
+         return;
+      }
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.saveWithPrompt(onCompleted, onCancelled);
+         }
+      });
+   }
+
+   @Override
+   public void revertChanges(final Command onCompleted)
+   {
+      if (!isLoaded() && document_.isContentsDeferred())
+      {
+         onCompleted.execute();
+         return;
+      }
+      withTarget(new CommandWithArg<EditingTarget>()
+      {
+         @Override
+         public void execute(EditingTarget target)
+         {
+            target.revertChanges(onCompleted);
+         }
+      });
+   }
+
+   @Override
+   public void initialize(SourceDocument document,
+                          FileSystemContext fileContext,
+                          FileType type,
+                          Provider<String> defaultNameProvider)
+   {
+      assert false : "Deferred editing targets are created with a document";
+   }
+
+   @Override
+   public long getFileSizeLimit()
+   {
+      return Long.MAX_VALUE;
+   }
+
+   @Override
+   public long getLargeFileSize()
+   {
+      return Long.MAX_VALUE;
+   }
+
+   @Override
+   public String getDefaultNamePrefix()
+   {
+      return null;
+   }
+
+   @Override
+   public Widget asWidget()
+   {
+      return panel_;
+   }
+
+   @Override
+   public HandlerRegistration addEnsureVisibleHandler(
+         EnsureVisibleHandler handler)
+   {
+      if (isLoaded())
+         return target_.addEnsureVisibleHandler(handler);
+      return handlers_.addHandler(EnsureVisibleEvent.TYPE, handler);
+   }
+
+   @Override
+   public HandlerRegistration addEnsureHeightHandler(
+         EnsureHeightHandler handler)
+   {
+      if (isLoaded())
+         return target_.addEnsureHeightHandler(handler);
+      return handlers_.addHandler(EnsureHeightEvent.TYPE, handler);
+   }
+
+   @Override
+   public HandlerRegistration addCloseHandler(CloseHandler<Void> handler)
+   {
+      if (isLoaded())
+         return target_.addCloseHandler(handler);
+      return handlers_.addHandler(CloseEvent.getType(), handler);
+   }
+
+   @Override
+   public void fireEvent(GwtEvent<?> event)
+   {
+      handlers_.fireEvent(event);
+   }
+
+   private static String getNameFromDocument(SourceDocument document)
+   {
+      if (document.getPath() != null)
+         return FileSystemItem.getNameFromPath(document.getPath());
+
+      String name = document.getProperties().getString("tempName");
+      return StringUtil.isNullOrEmpty(name) ? null : name;
+   }
+
+   private SourceDocument document_;
+   private final TextFileType fileType_;
+   private final SourceServerOperations server_;
+   private final GlobalDisplay globalDisplay_;
+   private final Loader loader_;
+   private final Value<String> name_;
+   private final Value<Boolean> dirtyState_;
+   private final SimpleLayoutPanel panel_ = new SimpleLayoutPanel();
+   private final HandlerManager handlers_ = new HandlerManager(this);
+
+   private final ArrayList<CommandWithArg<EditingTarget>> pendingCommands_ =
+         new ArrayList<CommandWithArg<EditingTarget>>();
+
+   private EditingTarget target_;
+   private SourcePosition pendingPosition_;
+   private boolean fetching_ = false;
+   private boolean activatePending_ = false;
+   private boolean focusPending_ = false;
+}
@@ -1168,6 +1168,11 @@ public class AceEditor implements DocDisplay,
    {
       return getSession().getDocument().getLength();
    }
+   
+   public int getDroppedChangeCount()
+   {
+      return widget_.getDroppedChangeCount();
+   }
 
    @Override
    public int getPixelWidth()
@@ -2942,12 +2947,25 @@ public class AceEditor implements DocDisplay,
       infoBar_.show();
    }
 
-   public Range createAnchoredRange(Position start,
-                                    Position end)
+   @Override
+   public AnchoredRange createAnchoredRange(Position start,
+                                            Position end)
    {
       return widget_.getEditor().getSession().createAnchoredRange(start, end);
    }
 
+   @Override
+   public int addMarker(Range range, String clazz)
+   {
+      return getSession().addMarker(range, clazz, "text", true);
+   }
+
+   @Override
+   public void removeMarker(int markerId)
+   {
+      getSession().removeMarker(markerId);
+   }
+
    public void insertRoxygenSkeleton()
    {
       getSession().getMode().getCodeModel().insertRoxygenSkeleton();
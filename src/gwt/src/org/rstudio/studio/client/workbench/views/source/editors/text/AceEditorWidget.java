@@ -108,6 +108,7 @@ public class AceEditorWidget extends Composite
             if (inOnChangeHandler_)
             {
                Debug.log("Warning: ignoring recursive ACE change event");
+               droppedChangeCount_++;
                return;
             }
             inOnChangeHandler_ = true;
@@ -1108,12 +1109,20 @@ public class AceEditorWidget extends Composite
    {
       return isRendered_;
    }
+   
+   // the number of change events which weren't passed on to handlers (so
+   // handlers tracking individual changes can tell they missed some)
+   public int getDroppedChangeCount()
+   {
+      return droppedChangeCount_;
+   }
 
    private final AceEditorNative editor_;
    private final HandlerManager capturingHandlers_;
    private final List<HandlerRegistration> aceEventHandlers_;
    private boolean initToEmptyString_ = true;
    private boolean inOnChangeHandler_ = false;
+   private int droppedChangeCount_ = 0;
    private boolean isRendered_ = false;
    private ArrayList<Breakpoint> breakpoints_ = new ArrayList<Breakpoint>();
    private ArrayList<AnchoredAceAnnotation> annotations_ =
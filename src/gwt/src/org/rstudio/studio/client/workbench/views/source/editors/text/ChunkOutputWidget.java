@@ -493,6 +493,39 @@ public class ChunkOutputWidget extends Composite
       host_ = host;
    }
    
+   /**
+    * Unloads (or reloads) the HTML frames in the output. The frames keep 
+    * their size while unloaded, so the height of the output doesn't change.
+    */
+   public void setFramesLoaded(boolean loaded)
+   {
+      if (loaded == framesLoaded_)
+         return;
+      framesLoaded_ = loaded;
+
+      for (Widget w: root_)
+      {
+         if (!(w instanceof FixedRatioWidget))
+            continue;
+         FixedRatioWidget fixedFrame = (FixedRatioWidget)w;
+         if (!(fixedFrame.getWidget() instanceof ChunkOutputFrame))
+            continue;
+         ChunkOutputFrame frame = (ChunkOutputFrame)fixedFrame.getWidget();
+         
+         if (loaded)
+         {
+            // re-attaching the frame reloads it; load it explicitly so we 
+            // can style its contents again when it's ready
+            fixedFrame.attachWidget();
+            loadHtmlFrame(frame, frame.getUrl(), false);
+         }
+         else
+         {
+            fixedFrame.detachWidget();
+         }
+      }
+   }
+   
    // Event handlers ----------------------------------------------------------
 
    @Override
@@ -735,7 +768,14 @@ public class ChunkOutputWidget extends Composite
                   ChunkOutputUi.MAX_HTMLWIDGET_WIDTH);
 
       root_.add(fixedFrame);
+      framesLoaded_ = true;
 
+      loadHtmlFrame(frame, url, ensureVisible);
+   }
+   
+   private void loadHtmlFrame(final ChunkOutputFrame frame, String url,
+         final boolean ensureVisible)
+   {
       final Timer renderTimeout = new RenderTimer();
 
       frame.loadUrl(url, new Command() 
@@ -773,6 +813,7 @@ public class ChunkOutputWidget extends Composite
          if (vconsole_ != null)
             vconsole_.clear();
          root_.clear();
+         framesLoaded_ = true;
          hasErrors_ = false;
          lastOutputType_ = RmdChunkOutputUnit.TYPE_NONE;
          state_ = CHUNK_POST_OUTPUT;
@@ -1040,6 +1081,7 @@ public class ChunkOutputWidget extends Composite
    private boolean hasErrors_ = false;
    private int resizeCounter_ = 0;
    private boolean needsHeightSync_ = false;
+   private boolean framesLoaded_ = true;
    
    private Timer collapseTimer_ = null;
    private final String chunkId_;
@@ -33,6 +33,7 @@ import org.rstudio.studio.client.workbench.views.output.lint.model.LintItem;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceCommandManager;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceFold;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Anchor;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AnchoredRange;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.LineWidget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Mode.InsertChunkInfo;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
@@ -301,6 +302,10 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    int getLength(int row);
    int getRowCount();
    String getLine(int row);
+   
+   // the number of document changes for which no DocumentChangedEvent
+   // was fired
+   int getDroppedChangeCount();
    int getPixelWidth();
    
    char getCharacterAtCursor();
@@ -352,6 +357,12 @@ public interface DocDisplay extends HasValueChangeHandlers<Void>,
    void removeMarkersAtCursorPosition();
    void removeMarkersOnCursorLine();
    
+   // markers drawn over a range of text (use an anchored range for a
+   // marker which should follow edits)
+   AnchoredRange createAnchoredRange(Position start, Position end);
+   int addMarker(Range range, String clazz);
+   void removeMarker(int markerId);
+   
    void beginCollabSession(CollabEditStartParams params, DirtyState dirtyState);
    boolean hasActiveCollabSession();
    boolean hasFollowingCollabSession();
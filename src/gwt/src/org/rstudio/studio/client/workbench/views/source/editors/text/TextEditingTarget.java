@@ -3155,6 +3155,13 @@ public class TextEditingTarget implements
          notebook_.onNotebookClearAllOutput();
    }
    
+   @Handler
+   public void onNotebookClearChunkCache()
+   {
+      if (notebook_ != null)
+         notebook_.onNotebookClearChunkCache();
+   }
+   
    @Handler
    public void onRestartRRunAllChunks()
    {
@@ -20,10 +20,13 @@ import java.util.Iterator;
 
 import org.rstudio.core.client.CsvReader;
 import org.rstudio.core.client.CsvWriter;
+import org.rstudio.core.client.DiagnosticCounters;
 import org.rstudio.core.client.ResultCallback;
 import org.rstudio.core.client.widget.NullProgressIndicator;
+import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.common.spelling.SpellChecker;
 import org.rstudio.studio.client.server.Void;
+import org.rstudio.studio.client.workbench.views.source.editors.text.spelling.BackgroundSpellChecker;
 import org.rstudio.studio.client.workbench.views.source.editors.text.spelling.CheckSpelling;
 import org.rstudio.studio.client.workbench.views.source.editors.text.spelling.InitialProgressDialog;
 import org.rstudio.studio.client.workbench.views.source.editors.text.spelling.SpellingDialog;
@@ -39,7 +42,29 @@ public class TextEditingTargetSpelling implements SpellChecker.Context
       docDisplay_ = docDisplay;
       docUpdateSentinel_ = docUpdateSentinel;
       spellChecker_ = new SpellChecker(this);
+      backgroundChecker_ = new BackgroundSpellChecker(
+            spellChecker_,
+            docDisplay_,
+            RStudioGinjector.INSTANCE.getUIPrefs().realTimeSpellChecking());
       
+      releaseOnDismiss(DiagnosticCounters.register("Spelling",
+            new DiagnosticCounters.Source()
+      {
+         @Override
+         public void collect(DiagnosticCounters.Collector collector)
+         {
+            String path = docUpdateSentinel_.getPath();
+            collector.add("Document", path != null ? path : "(untitled)");
+            collector.add("Pending rows",
+                          backgroundChecker_.getPendingRowCount());
+            collector.add("Checked words",
+                          backgroundChecker_.getCheckedWordCount());
+            collector.add("Misspelled words",
+                          backgroundChecker_.getMisspelledWordCount());
+            collector.add("Words per second",
+                          Math.round(backgroundChecker_.getWordsPerSecond()));
+         }
+      }));
    }
    
    public void checkSpelling()
@@ -47,7 +72,7 @@ public class TextEditingTargetSpelling implements SpellChecker.Context
       if (isSpellChecking_)
          return;
       isSpellChecking_ = true;
-      new CheckSpelling(spellChecker_, docDisplay_,
+      new CheckSpelling(spellChecker_, backgroundChecker_, docDisplay_,
                         new SpellingDialog(),
                         new InitialProgressDialog(1000),
                         new ResultCallback<Void, Exception>()
@@ -75,13 +100,15 @@ public class TextEditingTargetSpelling implements SpellChecker.Context
    @Override
    public void invalidateAllWords()
    {
-      
+      // verdicts are cached per dictionary, so the words need rechecking
+      backgroundChecker_.invalidateAll();
    }
 
    @Override
    public void invalidateMisspelledWords()
    {
-      
+      // only words which were misspelled can have become correct
+      backgroundChecker_.invalidateMisspelledRows();
    }  
    
    @Override
@@ -116,6 +143,7 @@ public class TextEditingTargetSpelling implements SpellChecker.Context
    
    void onDismiss()
    {
+      backgroundChecker_.detach();
       while (releaseOnDismiss_.size() > 0)
          releaseOnDismiss_.remove(0).removeHandler();
    }
@@ -134,6 +162,7 @@ public class TextEditingTargetSpelling implements SpellChecker.Context
    private final DocDisplay docDisplay_;
    private final DocUpdateSentinel docUpdateSentinel_;
    private final SpellChecker spellChecker_;
+   private final BackgroundSpellChecker backgroundChecker_;
  
    private ArrayList<HandlerRegistration> releaseOnDismiss_ = 
                                     new ArrayList<HandlerRegistration>();
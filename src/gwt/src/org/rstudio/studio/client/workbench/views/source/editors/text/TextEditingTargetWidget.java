@@ -1094,6 +1094,7 @@ public class TextEditingTargetWidget
          menu.addItem(commands_.notebookCollapseAllOutput().createMenuItem(false));
          menu.addSeparator();
          menu.addItem(commands_.notebookClearAllOutput().createMenuItem(false));
+         menu.addItem(commands_.notebookClearChunkCache().createMenuItem(false));
          menu.addSeparator();
       }
            
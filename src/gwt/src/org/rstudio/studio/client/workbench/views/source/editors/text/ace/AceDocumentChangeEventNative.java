@@ -31,4 +31,33 @@ public class AceDocumentChangeEventNative extends JavaScriptObject
    public final native String getText() /*-{
       return this.data.text;
    }-*/;
+
+   // the number of rows the change replaced and the number it replaced them
+   // with; both include the (partially) edited first row, so a change
+   // within a single row is (1, 1). -1 if the action isn't recognized.
+   public final int getRemovedRowCount()
+   {
+      String action = getAction();
+      if (action != null && action.startsWith("insert"))
+         return 1;
+      if (action != null && action.startsWith("remove"))
+         return getRowSpan();
+      return -1;
+   }
+
+   public final int getInsertedRowCount()
+   {
+      String action = getAction();
+      if (action != null && action.startsWith("insert"))
+         return getRowSpan();
+      if (action != null && action.startsWith("remove"))
+         return 1;
+      return -1;
+   }
+
+   private int getRowSpan()
+   {
+      Range range = getRange();
+      return range.getEnd().getRow() - range.getStart().getRow() + 1;
+   }
 }
@@ -47,8 +47,12 @@ public class ChunkDefinition extends JavaScriptObject
    
    public final ChunkDefinition with(int row, String chunkLabel)
    {
-      return ChunkDefinition.create(row, getRowCount(), getVisible(), 
-            getExpansionState(), getOptions(), getChunkId(), chunkLabel);
+      ChunkDefinition def = ChunkDefinition.create(row, getRowCount(), 
+            getVisible(), getExpansionState(), getOptions(), getChunkId(), 
+            chunkLabel);
+      if (getOutputHeight() > 0)
+         def.setOutputHeight(getOutputHeight());
+      return def;
    }
    
    public native final int getRow()  /*-{
@@ -95,6 +99,14 @@ public class ChunkDefinition extends JavaScriptObject
       this.row = row;
    }-*/;
    
+   public native final int getOutputHeight() /*-{
+      return this.output_height || 0;
+   }-*/;
+   
+   public native final void setOutputHeight(int height) /*-{
+      this.output_height = height;
+   }-*/;
+   
    public final boolean equalTo(ChunkDefinition other)
    {
       return getRow() == other.getRow() &&
@@ -102,6 +114,7 @@ public class ChunkDefinition extends JavaScriptObject
              getVisible() == other.getVisible() &&
              getChunkId() == other.getChunkId() &&
              getExpansionState() == other.getExpansionState() &&
+             getOutputHeight() == other.getOutputHeight() &&
              getOptions().equalTo(other.getOptions());
    }
    
@@ -14,10 +14,13 @@
  */
 package org.rstudio.studio.client.workbench.views.source.editors.text.rmd;
 
+import java.util.ArrayList;
+
 import org.rstudio.core.client.Rectangle;
 import org.rstudio.core.client.theme.res.ThemeStyles;
 import org.rstudio.studio.client.RStudioGinjector;
 import org.rstudio.studio.client.rmarkdown.model.RmdChunkOptions;
+import org.rstudio.studio.client.rmarkdown.model.RmdChunkOutput;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ChunkOutputWidget;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.PinnedLineWidget;
@@ -130,11 +133,68 @@ public class ChunkOutputUi
       outputWidget_.setOptions(options);
    }
    
+   /**
+    * Holds replayed output until the chunk comes near the viewport, reserving
+    * the height the output last had so that the document doesn't shift when
+    * the output is rendered.
+    */
+   public void deferOutput(RmdChunkOutput output)
+   {
+      if (deferredOutput_.isEmpty() && def_.getOutputHeight() > 0)
+      {
+         outputWidget_.setVisible(true);
+         outputWidget_.getElement().getStyle().setHeight(
+               def_.getOutputHeight(), Unit.PX);
+         display_.onLineWidgetChanged(lineWidget_.getLineWidget());
+      }
+      deferredOutput_.add(output);
+   }
+   
+   public void renderDeferredOutput()
+   {
+      if (deferredOutput_.isEmpty())
+         return;
+      
+      ArrayList<RmdChunkOutput> outputs = 
+            new ArrayList<RmdChunkOutput>(deferredOutput_);
+      deferredOutput_.clear();
+      for (RmdChunkOutput output: outputs)
+      {
+         outputWidget_.showChunkOutput(output, 
+               TextEditingTargetNotebook.MODE_SINGLE,
+               TextEditingTargetNotebook.SCOPE_PARTIAL, false);
+      }
+   }
+   
+   public boolean isNearViewport()
+   {
+      return isWithinScreens(display_.getFirstVisibleRow(), 
+            display_.getLastVisibleRow(), 1);
+   }
+   
+   /**
+    * Renders deferred output once the chunk is near the visible rows, and 
+    * unloads the output's HTML frames while it's far away from them.
+    */
+   public void syncToViewport(int firstRow, int lastRow)
+   {
+      if (isWithinScreens(firstRow, lastRow, 1))
+      {
+         renderDeferredOutput();
+         outputWidget_.setFramesLoaded(true);
+      }
+      else if (!isWithinScreens(firstRow, lastRow, FRAME_UNLOAD_SCREENS))
+      {
+         outputWidget_.setFramesLoaded(false);
+      }
+   }
+   
    public void remove()
    {
       if (!attached_)
          return;
       attached_ = false;
+      deferredOutput_.clear();
 
       // note that this triggers an event which causes us to clean up the line
       // widget if we haven't already, so it's important that remove() can't
@@ -196,6 +256,11 @@ public class ChunkOutputUi
       outputWidget_.getElement().getStyle().setHeight(height, Unit.PX);
       display_.onLineWidgetChanged(lineWidget_.getLineWidget());
       
+      // remember the height so it can be reserved for the output when the
+      // document is next opened
+      if (outputWidget_.isVisible())
+         def_.setOutputHeight(height);
+      
       // if we need to ensure that this output is visible, wait for the event
       // loop to finish (so Ace gets a chance to adjust the line widgets and
       // do a render pass), then make sure the line beneath our widget is 
@@ -228,6 +293,15 @@ public class ChunkOutputUi
    }
 
    // Private methods ---------------------------------------------------------
+   
+   // whether the output is within the given number of screens of the rows
+   // which are visible
+   private boolean isWithinScreens(int firstRow, int lastRow, int screens)
+   {
+      int margin = Math.max(lastRow - firstRow, 1) * screens;
+      int row = getCurrentRow();
+      return row >= firstRow - margin && row <= lastRow + margin;
+   }
 
    private final PinnedLineWidget lineWidget_;
    private final ChunkOutputWidget outputWidget_;
@@ -238,6 +312,8 @@ public class ChunkOutputUi
 
    private boolean attached_ = false;
    private HandlerRegistration renderHandlerReg_ = null;
+   private final ArrayList<RmdChunkOutput> deferredOutput_ = 
+         new ArrayList<RmdChunkOutput>();
 
    public final static int MIN_CHUNK_HEIGHT = 25;
    public final static int CHUNK_COLLAPSED_HEIGHT = 15;
@@ -247,4 +323,6 @@ public class ChunkOutputUi
    public final static int MAX_HTMLWIDGET_WIDTH = 800;
    
    public final static double OUTPUT_ASPECT = 1.618;
+   
+   private final static int FRAME_UNLOAD_SCREENS = 4;
 }
@@ -150,6 +150,7 @@ public class TextEditingTargetNotebook
       public String options;
       public String code;
       public String setupCrc32;
+      public String cacheKey;
       public int pos;
       public int row;
       public int mode;
@@ -490,6 +491,7 @@ public class TextEditingTargetNotebook
             unit.options = options;
             unit.setupCrc32 = setupCrc32;
             unit.row = row;
+            unit.cacheKey = getChunkCacheKey(row);
             return;
          }
       }
@@ -497,6 +499,24 @@ public class TextEditingTargetNotebook
       // if this is the currently executing chunk, don't queue it again
       if (executingChunk_ != null && executingChunk_.chunkId == chunkId)
          return;
+      
+      // when running chunks in a batch, skip chunks which have already run in
+      // this session and haven't changed (nor have any of the chunks above
+      // them); the output they produced is still displayed. once a chunk in
+      // the batch needs to run, the chunks below it run too, since they may
+      // depend on the state it creates.
+      String cacheKey = getChunkCacheKey(row);
+      if (mode == MODE_BATCH)
+      {
+         if (cacheMisses_ == 0 && cacheKey != null && 
+             cacheKey.equals(executedChunkKeys_.get(chunkId)) &&
+             outputs_.containsKey(chunkId))
+         {
+            cacheHits_++;
+            return;
+         }
+         cacheMisses_++;
+      }
 
       // decorate the gutter to show the chunk is queued
       docDisplay_.setChunkLineExecState(chunk.getBodyStart().getRow() + 1,
@@ -516,10 +536,12 @@ public class TextEditingTargetNotebook
       }
 
       // put it in the queue 
-      chunkExecQueue_.add(idx, new ChunkExecQueueUnit(chunkId, 
+      ChunkExecQueueUnit unit = new ChunkExecQueueUnit(chunkId, 
             StringUtil.isNullOrEmpty(chunk.getChunkLabel()) ? 
                   chunk.getLabel() : chunk.getChunkLabel(),
-            mode, code, options, row, setupCrc32));
+            mode, code, options, row, setupCrc32);
+      unit.cacheKey = cacheKey;
+      chunkExecQueue_.add(idx, unit);
       
       // record maximum queue size (for scaling progress when we start popping
       // chunks from the list)
@@ -629,6 +651,8 @@ public class TextEditingTargetNotebook
       commands_.notebookExpandAllOutput().setVisible(inlineOutput); 
       commands_.notebookClearAllOutput().setEnabled(inlineOutput); 
       commands_.notebookClearAllOutput().setVisible(inlineOutput); 
+      commands_.notebookClearChunkCache().setEnabled(inlineOutput);
+      commands_.notebookClearChunkCache().setVisible(inlineOutput);
       editingDisplay_.setNotebookUIVisible(inlineOutput);
    }
    
@@ -710,6 +734,13 @@ public class TextEditingTargetNotebook
    {
       restartThenExecute(commands_.executeAllCode());
    }
+   
+   public void onNotebookClearChunkCache()
+   {
+      executedChunkKeys_.clear();
+      editingTarget_.getStatusBar().showMessage(
+            "Chunk cache cleared; all chunks will be re-run", 3000);
+   }
 
    public void onRestartRClearOutput()
    {
@@ -815,6 +846,17 @@ public class TextEditingTargetNotebook
       // show output in matching chunk
       if (outputs_.containsKey(chunkId))
       {
+         // while the document is loading, only render replayed output near
+         // the viewport; the rest is rendered as it's scrolled into view 
+         ChunkOutputUi output = outputs_.get(chunkId);
+         if (state_ == STATE_INITIALIZING && event.getOutput().isReplay() &&
+             !output.isNearViewport())
+         {
+            output.deferOutput(event.getOutput());
+            return;
+         }
+         output.renderDeferredOutput();
+
          // by default, ensure chunks are visible if we aren't replaying them
          // from the cache
          boolean ensureVisible = !event.getOutput().isReplay();
@@ -829,10 +871,8 @@ public class TextEditingTargetNotebook
          if (ensureVisible && mode == MODE_BATCH)
             ensureVisible = false;
          
-         outputs_.get(chunkId).getOutputWidget()
-                              .showChunkOutput(event.getOutput(), mode,
-                                  TextEditingTargetNotebook.SCOPE_PARTIAL,
-                                  ensureVisible);
+         output.getOutputWidget().showChunkOutput(event.getOutput(), mode,
+               TextEditingTargetNotebook.SCOPE_PARTIAL, ensureVisible);
       }
    }
 
@@ -851,6 +891,16 @@ public class TextEditingTargetNotebook
          cleanChunkExecState(executingChunk_.chunkId);
          ensureVisible = executingChunk_.mode == MODE_SINGLE;
 
+         // remember the key of chunks that ran without errors, so that later
+         // batch runs can skip them while they're unchanged
+         if (!StringUtil.isNullOrEmpty(executingChunk_.cacheKey) &&
+             outputs_.containsKey(executingChunk_.chunkId) &&
+             !outputs_.get(executingChunk_.chunkId).hasErrors())
+         {
+            executedChunkKeys_.put(executingChunk_.chunkId, 
+                                   executingChunk_.cacheKey);
+         }
+
          // if this was the setup chunk, and no errors were encountered while
          // executing it, mark it clean
          if (!StringUtil.isNullOrEmpty(executingChunk_.setupCrc32) &&
@@ -881,6 +931,7 @@ public class TextEditingTargetNotebook
       {
          if (outputs_.containsKey(data.getChunkId()))
          {
+            outputs_.get(data.getChunkId()).renderDeferredOutput();
             outputs_.get(data.getChunkId()).getOutputWidget()
                            .onOutputFinished(ensureVisible, data.getScope());
 
@@ -1099,6 +1150,9 @@ public class TextEditingTargetNotebook
          if (!StringUtil.isNullOrEmpty(setupCrc32_))
             writeSetupCrc32("");
          
+         // chunks which ran before the restart need to run again
+         executedChunkKeys_.clear();
+         
          // clean execution state
          clearChunkExecQueue();
          cleanCurrentExecChunk();
@@ -1301,6 +1355,7 @@ public class TextEditingTargetNotebook
       if (chunkExecQueue_.isEmpty())
       {
          editingTarget_.getStatusBar().hideNotebookProgress(false);
+         showChunkCacheUsage();
          return;
       }
       
@@ -1311,6 +1366,7 @@ public class TextEditingTargetNotebook
       // begin chunk execution
       final ChunkExecQueueUnit unit = chunkExecQueue_.remove();
       executingChunk_ = unit;
+      executedChunkKeys_.remove(unit.chunkId);
       
       if (unit.mode == MODE_BATCH)
          updateProgress();
@@ -1328,6 +1384,7 @@ public class TextEditingTargetNotebook
                                                 scope.getEnd()));
          }
 
+         output.renderDeferredOutput();
          output.getOutputWidget().setCodeExecuting(true, executingChunk_.mode);
          syncWidth();
          
@@ -1597,6 +1654,7 @@ public class TextEditingTargetNotebook
          outputs_.get(chunkId).remove();
       }
       outputs_.clear();
+      executedChunkKeys_.clear();
    }
    
    private void changeOutputMode(String mode)
@@ -1744,6 +1802,66 @@ public class TextEditingTargetNotebook
             Position.create(chunk.getEnd().getRow(), 0));
    }
    
+   /**
+    * Returns the cache key of the chunk ending on the given row: a hash of
+    * the chunk's options and code chained with the keys of all the chunks
+    * above it, so that the key changes when the chunk or anything it may
+    * depend on changes. Like the setup chunk's CRC32, keys are seeded with
+    * the session ID.
+    */
+   private String getChunkCacheKey(int row)
+   {
+      if (chunkCacheKeys_ == null)
+      {
+         chunkCacheKeys_ = new HashMap<Integer, String>();
+         String key = session_.getSessionInfo().getSessionId();
+         ScopeList chunks = new ScopeList(docDisplay_);
+         chunks.selectAll(ScopeList.CHUNK);
+         for (Scope chunk : chunks)
+         {
+            String options = TextEditingTargetRMarkdownHelper
+                  .getRmdChunkOptionText(chunk, docDisplay_);
+            key = StringUtil.crc32(key + "\n" + options + "\n" + 
+                                   getChunkCode(chunk));
+            chunkCacheKeys_.put(chunk.getEnd().getRow(), key);
+         }
+         
+         // the keys are shared by chunks queued together (e.g. by Run All) 
+         // and recomputed afterwards, since the document may change
+         Scheduler.get().scheduleDeferred(new ScheduledCommand()
+         {
+            @Override
+            public void execute()
+            {
+               chunkCacheKeys_ = null;
+               
+               // if every chunk was skipped, nothing will run to hide the 
+               // progress UI
+               if (executingChunk_ == null && chunkExecQueue_.isEmpty() &&
+                   cacheHits_ > 0)
+               {
+                  editingTarget_.getStatusBar().hideNotebookProgress(true);
+                  showChunkCacheUsage();
+               }
+            }
+         });
+      }
+      return chunkCacheKeys_.get(row);
+   }
+   
+   private void showChunkCacheUsage()
+   {
+      if (cacheHits_ > 0)
+      {
+         editingTarget_.getStatusBar().showMessage(
+               cacheHits_ + " unchanged " + 
+               (cacheHits_ == 1 ? "chunk" : "chunks") + " skipped, " +
+               cacheMisses_ + " run", 4000);
+      }
+      cacheHits_ = 0;
+      cacheMisses_ = 0;
+   }
+   
    private String getChunkCrc32(Scope chunk)
    {
       // extract the body of the chunk
@@ -2047,9 +2165,11 @@ public class TextEditingTargetNotebook
          int top = docDisplay_.getFirstVisibleRow();
          int bot = docDisplay_.getLastVisibleRow();
 
-         // sync any widgets that need it
+         // sync any widgets that need it, rendering output which has come
+         // into view
          for (ChunkOutputUi output: outputs_.values())
          {
+            output.syncToViewport(top, bot);
             ChunkOutputWidget widget = output.getOutputWidget();
             if (output.getCurrentRow() >= top &&
                 output.getCurrentRow() <= bot && 
@@ -2128,6 +2248,14 @@ public class TextEditingTargetNotebook
    private boolean resizingPlotsRemote_ = false;
    private boolean maximizedPane_ = false;
    
+   // chunk cache: the key of each chunk's last error-free run in this 
+   // session (by chunk ID), and the keys of the chunks being queued (by row)
+   private final HashMap<String, String> executedChunkKeys_ = 
+         new HashMap<String, String>();
+   private HashMap<Integer, String> chunkCacheKeys_ = null;
+   private int cacheHits_ = 0;
+   private int cacheMisses_ = 0;
+   
    private int state_ = STATE_NONE;
 
    // no chunk state
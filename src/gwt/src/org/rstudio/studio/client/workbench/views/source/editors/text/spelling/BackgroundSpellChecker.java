@@ -0,0 +1,458 @@
+/*
+ * BackgroundSpellChecker.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.source.editors.text.spelling;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.container.RowRangeSet;
+import org.rstudio.studio.client.common.filetypes.TextFileType;
+import org.rstudio.studio.client.common.spelling.SpellChecker;
+import org.rstudio.studio.client.common.spelling.model.SpellCheckerResult;
+import org.rstudio.studio.client.server.ServerError;
+import org.rstudio.studio.client.server.ServerRequestCallback;
+import org.rstudio.studio.client.workbench.prefs.model.Prefs.PrefValue;
+import org.rstudio.studio.client.workbench.views.output.lint.LintResources;
+import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AnchoredRange;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Position;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.Range;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
+
+import com.google.gwt.event.logical.shared.ValueChangeEvent;
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.Timer;
+
+/**
+ * Checks the spelling of a document incrementally. Rows edited since they
+ * were last checked go first, then unchecked rows in view, and then the
+ * rest of the document is worked through while the editor is idle, a few
+ * rows at a time with at most one request outstanding and each step
+ * limited to a small time budget so that typing stays responsive.
+ *
+ * Misspelled words are remembered (and marked in the editor when real
+ * time spell checking is enabled), so an interactive check only needs to
+ * visit rows with misspellings and rows which haven't been checked yet.
+ */
+public class BackgroundSpellChecker
+{
+   public BackgroundSpellChecker(SpellChecker spellChecker,
+                                 DocDisplay docDisplay,
+                                 PrefValue<Boolean> showMarkers)
+   {
+      spellChecker_ = spellChecker;
+      docDisplay_ = docDisplay;
+      showMarkers_ = showMarkers;
+
+      LintResources.INSTANCE.styles().ensureInjected();
+
+      timer_ = new Timer()
+      {
+         @Override
+         public void run()
+         {
+            step();
+         }
+      };
+
+      registration_ = docDisplay_.addDocumentChangedHandler(
+            new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            onChange(event.getEvent());
+         }
+      });
+
+      showMarkersRegistration_ = showMarkers_.addValueChangeHandler(
+            new ValueChangeHandler<Boolean>()
+      {
+         @Override
+         public void onValueChange(ValueChangeEvent<Boolean> event)
+         {
+            for (Misspelling misspelling : misspellings_)
+               misspelling.setMarkerVisible(event.getValue());
+         }
+      });
+
+      invalidateAll();
+   }
+
+   /**
+    * Marks every row as needing to be checked again (e.g. after the
+    * dictionary changed). Existing misspellings stay until their rows
+    * have been rechecked.
+    */
+   public void invalidateAll()
+   {
+      // any outstanding request was made against the old dictionary
+      generation_++;
+
+      // the editor may not have its contents yet, so wait until the first
+      // step to see how many rows there are
+      invalidateAllRows_ = true;
+      schedule(IDLE_DELAY_MILLIS);
+   }
+
+   /**
+    * Marks the rows containing misspellings as needing to be checked again
+    * (e.g. after a word was ignored).
+    */
+   public void invalidateMisspelledRows()
+   {
+      for (Misspelling misspelling : misspellings_)
+         uncheckedRows_.add(misspelling.getRow(), 1);
+      schedule(STEP_DELAY_MILLIS);
+   }
+
+   /**
+    * Returns the first row at or after the given row which may contain
+    * misspelled words (either it hasn't been checked since it was last
+    * edited or it has misspellings); -1 if there is none.
+    */
+   public int nextRowToCheck(int row)
+   {
+      if (invalidateAllRows_)
+         return row;
+
+      int next = firstRowAtOrAfter(uncheckedRows_, row);
+      int pending = firstRowAtOrAfter(requestRows_, row);
+      if (pending != -1 && (next == -1 || pending < next))
+         next = pending;
+
+      for (Misspelling misspelling : misspellings_)
+      {
+         int misspelledRow = misspelling.getRow();
+         if (misspelledRow >= row && (next == -1 || misspelledRow < next))
+            next = misspelledRow;
+      }
+
+      return next;
+   }
+
+   public void detach()
+   {
+      detached_ = true;
+      timer_.cancel();
+      registration_.removeHandler();
+      showMarkersRegistration_.removeHandler();
+      for (Misspelling misspelling : misspellings_)
+         misspelling.detach();
+      misspellings_.clear();
+   }
+
+   public int getPendingRowCount()
+   {
+      return invalidateAllRows_ ? docDisplay_.getRowCount()
+                                : uncheckedRows_.getRowCount();
+   }
+
+   public int getCheckedWordCount()
+   {
+      return checkedWords_;
+   }
+
+   public int getMisspelledWordCount()
+   {
+      return misspellings_.size();
+   }
+
+   // throughput of the checks made so far, counting both the time spent
+   // collecting words and the time waiting for verdicts
+   public double getWordsPerSecond()
+   {
+      if (checkMillis_ == 0)
+         return 0;
+      return checkedWords_ * 1000.0 / checkMillis_;
+   }
+
+   private void onChange(AceDocumentChangeEventNative event)
+   {
+      // results of an outstanding request may no longer line up with the
+      // document
+      generation_++;
+
+      int startRow = event.getRange().getStart().getRow();
+      int removed = event.getRemovedRowCount();
+      int inserted = event.getInsertedRowCount();
+      if (removed < 0 || inserted < 0)
+      {
+         invalidateAll();
+         return;
+      }
+
+      uncheckedRows_.onChange(startRow, removed, inserted);
+      editedRows_.onChange(startRow, removed, inserted);
+      requestRows_.onChange(startRow, removed, inserted);
+
+      // wait for a pause in typing before checking anything
+      schedule(IDLE_DELAY_MILLIS);
+   }
+
+   private void schedule(int delayMillis)
+   {
+      // while a request is outstanding its response schedules the next step
+      if (detached_ || requestPending_)
+         return;
+      timer_.schedule(delayMillis);
+   }
+
+   private void step()
+   {
+      if (detached_ || requestPending_)
+         return;
+
+      TextFileType fileType = docDisplay_.getFileType();
+      if (fileType == null || !fileType.canCheckSpelling())
+         return;
+
+      int rowCount = docDisplay_.getRowCount();
+      if (invalidateAllRows_)
+      {
+         invalidateAllRows_ = false;
+         uncheckedRows_.add(0, rowCount);
+      }
+
+      uncheckedRows_.remove(rowCount, Integer.MAX_VALUE - rowCount);
+      editedRows_.remove(rowCount, Integer.MAX_VALUE - rowCount);
+      if (uncheckedRows_.isEmpty())
+         return;
+
+      // edited rows come first, then unchecked rows in view, and then we
+      // carry on from where the previous step stopped
+      int firstVisible = docDisplay_.getFirstVisibleRow();
+      int lastVisible = docDisplay_.getLastVisibleRow();
+      int row = editedRows_.nextRow(firstVisible);
+      if (row == -1)
+      {
+         row = uncheckedRows_.nextRow(firstVisible);
+         if (row < firstVisible || row > lastVisible)
+            row = uncheckedRows_.nextRow(nextRow_);
+      }
+
+      final long startTime = System.currentTimeMillis();
+      int endRow = row + Math.min(uncheckedRows_.runLength(row),
+                                  MAX_ROWS_PER_STEP);
+      Iterable<Range> wordSource = docDisplay_.getWords(
+            fileType.getTokenPredicate(),
+            fileType.getCharPredicate(),
+            Position.create(row, 0),
+            endRow < rowCount ? Position.create(endRow, 0) : null);
+
+      final ArrayList<String> words = new ArrayList<String>();
+      final ArrayList<Range> wordRanges = new ArrayList<Range>();
+      for (Range range : wordSource)
+      {
+         // stop at a row boundary once the batch is full or the step has
+         // used up its budget; the remaining rows stay unchecked
+         int wordRow = range.getStart().getRow();
+         if (wordRow > row &&
+             (words.size() >= MAX_WORDS_PER_REQUEST ||
+              System.currentTimeMillis() - startTime > STEP_BUDGET_MILLIS))
+         {
+            endRow = wordRow;
+            break;
+         }
+
+         // Don't worry about pathologically long words
+         if (range.getEnd().getColumn() - range.getStart().getColumn() > 250)
+            continue;
+
+         wordRanges.add(range);
+         words.add(docDisplay_.getTextForRange(range));
+      }
+
+      final int firstRow = row;
+      final int lastRow = endRow;
+      uncheckedRows_.remove(firstRow, lastRow - firstRow);
+      editedRows_.remove(firstRow, lastRow - firstRow);
+      nextRow_ = lastRow;
+
+      if (words.isEmpty())
+      {
+         removeMisspellings(firstRow, lastRow);
+         checkMillis_ += System.currentTimeMillis() - startTime;
+         onStepCompleted();
+         return;
+      }
+
+      // remember which rows the request covers so that they can be checked
+      // again if the document changes before the response arrives
+      requestRows_.clear();
+      requestRows_.add(firstRow, lastRow - firstRow);
+      final int generation = generation_;
+
+      // cached verdicts may come back synchronously, so mark the request
+      // outstanding before making it
+      requestPending_ = true;
+      spellChecker_.checkSpelling(words,
+            new ServerRequestCallback<SpellCheckerResult>()
+      {
+         @Override
+         public void onResponseReceived(SpellCheckerResult result)
+         {
+            requestPending_ = false;
+            if (detached_)
+               return;
+
+            if (generation == generation_)
+            {
+               HashSet<String> incorrect =
+                     new HashSet<String>(result.getIncorrect());
+               removeMisspellings(firstRow, lastRow);
+               for (int i = 0; i < words.size(); i++)
+               {
+                  if (incorrect.contains(words.get(i)))
+                     addMisspelling(wordRanges.get(i));
+               }
+               requestRows_.clear();
+            }
+            else
+            {
+               onRequestAbandoned();
+            }
+
+            checkedWords_ += words.size();
+            checkMillis_ += System.currentTimeMillis() - startTime;
+            onStepCompleted();
+         }
+
+         @Override
+         public void onError(ServerError error)
+         {
+            requestPending_ = false;
+            Debug.logError(error);
+            onRequestAbandoned();
+            schedule(ERROR_DELAY_MILLIS);
+         }
+      });
+   }
+
+   private void onRequestAbandoned()
+   {
+      uncheckedRows_.addAll(requestRows_);
+      requestRows_.clear();
+   }
+
+   private void onStepCompleted()
+   {
+      if (invalidateAllRows_ || !uncheckedRows_.isEmpty())
+         schedule(STEP_DELAY_MILLIS);
+   }
+
+   private void addMisspelling(Range range)
+   {
+      Misspelling misspelling = new Misspelling(
+            docDisplay_.createAnchoredRange(range.getStart(), range.getEnd()));
+      misspelling.setMarkerVisible(showMarkers_.getValue());
+      misspellings_.add(misspelling);
+   }
+
+   // removes the misspellings found in rows [startRow, endRow)
+   private void removeMisspellings(int startRow, int endRow)
+   {
+      ArrayList<Misspelling> misspellings = new ArrayList<Misspelling>();
+      for (Misspelling misspelling : misspellings_)
+      {
+         int row = misspelling.getRow();
+         if (row >= startRow && row < endRow)
+            misspelling.detach();
+         else
+            misspellings.add(misspelling);
+      }
+      misspellings_ = misspellings;
+   }
+
+   // first row in the set at or after the given row (without wrapping)
+   private static int firstRowAtOrAfter(RowRangeSet rows, int row)
+   {
+      int next = rows.nextRow(row);
+      return next < row ? -1 : next;
+   }
+
+   private class Misspelling
+   {
+      public Misspelling(AnchoredRange range)
+      {
+         range_ = range;
+      }
+
+      public int getRow()
+      {
+         return range_.getStart().getRow();
+      }
+
+      public void setMarkerVisible(boolean visible)
+      {
+         if (visible && markerId_ == null)
+         {
+            markerId_ = docDisplay_.addMarker(
+                  range_, LintResources.INSTANCE.styles().error());
+         }
+         else if (!visible && markerId_ != null)
+         {
+            docDisplay_.removeMarker(markerId_);
+            markerId_ = null;
+         }
+      }
+
+      public void detach()
+      {
+         setMarkerVisible(false);
+         range_.detach();
+      }
+
+      private final AnchoredRange range_;
+      private Integer markerId_;
+   }
+
+   private final SpellChecker spellChecker_;
+   private final DocDisplay docDisplay_;
+   private final Timer timer_;
+   private final PrefValue<Boolean> showMarkers_;
+   private final HandlerRegistration registration_;
+   private final HandlerRegistration showMarkersRegistration_;
+
+   // rows which haven't been checked since they were last edited; rows
+   // edited by the user are also tracked separately so that they go first
+   private final RowRangeSet uncheckedRows_ = new RowRangeSet();
+   private final RowRangeSet editedRows_ = new RowRangeSet();
+
+   // rows covered by the outstanding request
+   private final RowRangeSet requestRows_ = new RowRangeSet();
+
+   private ArrayList<Misspelling> misspellings_ =
+                                          new ArrayList<Misspelling>();
+
+   private int nextRow_ = 0;
+   private int generation_ = 0;
+   private boolean invalidateAllRows_ = false;
+   private boolean requestPending_ = false;
+   private boolean detached_ = false;
+
+   private int checkedWords_ = 0;
+   private long checkMillis_ = 0;
+
+   private static final int IDLE_DELAY_MILLIS = 500;
+   private static final int STEP_DELAY_MILLIS = 20;
+   private static final int ERROR_DELAY_MILLIS = 5000;
+   private static final int STEP_BUDGET_MILLIS = 8;
+   private static final int MAX_ROWS_PER_STEP = 200;
+   private static final int MAX_WORDS_PER_REQUEST = 100;
+}
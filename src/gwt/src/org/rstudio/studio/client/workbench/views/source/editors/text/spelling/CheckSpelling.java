@@ -82,12 +82,14 @@ public class CheckSpelling
    }
 
    public CheckSpelling(SpellChecker spellChecker,
+                        BackgroundSpellChecker backgroundChecker,
                         DocDisplay docDisplay,
                         Display view,
                         ProgressDisplay progressDisplay,
                         ResultCallback<Void, Exception> callback)
    {
       spellChecker_ = spellChecker;
+      backgroundChecker_ = backgroundChecker;
       docDisplay_ = docDisplay;
       view_ = view;
       progressDisplay_ = progressDisplay;
@@ -212,17 +214,42 @@ public class CheckSpelling
 
          showProgress();
 
-         Iterable<Range> wordSource = docDisplay_.getWords(
-               docDisplay_.getFileType().getTokenPredicate(),
-               docDisplay_.getFileType().getCharPredicate(),
-               currentPos_,
-               wrapped_ ? initialCursorPos_.getPosition() : null);
+         // skip ahead over rows the background checker has already found
+         // to be spelled correctly
+         Position endPos = wrapped_ ? initialCursorPos_.getPosition() : null;
+         int row = backgroundChecker_.nextRowToCheck(currentPos_.getRow());
+         if (row == -1 || (endPos != null && row > endPos.getRow()))
+            row = -1;
+         else if (row > currentPos_.getRow())
+            currentPos_ = Position.create(row, 0);
 
          final ArrayList<String> words = new ArrayList<String>();
          final ArrayList<Range> wordRanges = new ArrayList<Range>();
+         Position skipPos = null;
+
+         Iterable<Range> wordSource = row == -1
+               ? new ArrayList<Range>()
+               : docDisplay_.getWords(
+                     docDisplay_.getFileType().getTokenPredicate(),
+                     docDisplay_.getFileType().getCharPredicate(),
+                     currentPos_,
+                     endPos);
 
          for (Range r : wordSource)
          {
+            // stop at the next row which doesn't need checking (the next
+            // batch starts after it)
+            int wordRow = r.getStart().getRow();
+            if (wordRow != row)
+            {
+               row = wordRow;
+               if (backgroundChecker_.nextRowToCheck(row) != row)
+               {
+                  skipPos = Position.create(row, 0);
+                  break;
+               }
+            }
+
             // Don't worry about pathologically long words
             if (r.getEnd().getColumn() - r.getStart().getColumn() > 250)
                continue;
@@ -267,6 +294,12 @@ public class CheckSpelling
                }
             });
          }
+         else if (skipPos != null)
+         {
+            // nothing to check before the skipped row
+            currentPos_ = skipPos;
+            findNextMisspelling();
+         }
          else
          {
             // No misspellings
@@ -398,6 +431,7 @@ public class CheckSpelling
    }
 
    private final SpellChecker spellChecker_;
+   private final BackgroundSpellChecker backgroundChecker_;
    private final DocDisplay docDisplay_;
    private final Display view_;
    private final ProgressDisplay progressDisplay_;
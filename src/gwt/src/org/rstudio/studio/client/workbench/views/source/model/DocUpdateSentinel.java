@@ -28,8 +28,12 @@ import com.google.gwt.user.client.Window.ClosingHandler;
 import org.rstudio.core.client.Barrier.Token;
 import org.rstudio.core.client.CommandWithArg;
 import org.rstudio.core.client.Debug;
+import org.rstudio.core.client.StringUtil;
 import org.rstudio.core.client.TimeBufferedCommand;
 import org.rstudio.core.client.js.JsObject;
+import org.rstudio.core.client.js.JsUtil;
+import org.rstudio.core.client.patch.RowChangeTracker;
+import org.rstudio.core.client.patch.RowIndexedText;
 import org.rstudio.core.client.patch.SubstringDiff;
 import org.rstudio.core.client.widget.Operation;
 import org.rstudio.core.client.widget.ProgressIndicator;
@@ -44,7 +48,9 @@ import org.rstudio.studio.client.workbench.events.LastChanceSaveHandler;
 import org.rstudio.studio.client.workbench.model.ChangeTracker;
 import org.rstudio.studio.client.workbench.views.source.editors.text.DocDisplay;
 import org.rstudio.studio.client.workbench.views.source.editors.text.Fold;
+import org.rstudio.studio.client.workbench.views.source.editors.text.ace.AceDocumentChangeEventNative;
 import org.rstudio.studio.client.workbench.views.source.editors.text.ace.VimMarks;
+import org.rstudio.studio.client.workbench.views.source.editors.text.events.DocumentChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.FoldChangeEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.events.SourceOnSaveChangedEvent;
 import org.rstudio.studio.client.workbench.views.source.editors.text.rmd.ChunkDefinition;
@@ -52,7 +58,10 @@ import org.rstudio.studio.client.workbench.views.source.events.SaveFailedEvent;
 import org.rstudio.studio.client.workbench.views.source.events.SaveFileEvent;
 import org.rstudio.studio.client.workbench.views.source.events.SaveInitiatedEvent;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class DocUpdateSentinel
@@ -78,6 +87,13 @@ public class DocUpdateSentinel
          docDisplay_.setCode(sourceDoc_.getContents(), true);
          dirtyState_.markClean();
 
+         // the editor contents were replaced wholesale
+         rowChanges_ = new RowChangeTracker();
+         rowChanges_.invalidate();
+         pendingRowChanges_.clear();
+         savedRows_ = null;
+         savedContentsStale_ = false;
+
          if (progress_ != null)
             progress_.onCompleted();
          
@@ -129,6 +145,18 @@ public class DocUpdateSentinel
 
       docDisplay_.addValueChangeHandler(this);
       docDisplay_.addFoldChangeHandler(this);
+      docDisplay_.addDocumentChangedHandler(new DocumentChangedEvent.Handler()
+      {
+         @Override
+         public void onDocumentChanged(DocumentChangedEvent event)
+         {
+            trackRowChanges(event.getEvent());
+         }
+      });
+
+      // we can't be sure the editor contents match the document contents
+      // until the first save, so compare them in full for that save
+      rowChanges_.invalidate();
 
       // Web only
       closeHandlerReg_ = Window.addWindowClosingHandler(new ClosingHandler()
@@ -360,8 +388,24 @@ public class DocUpdateSentinel
          actually sent to the server. */
       final ChangeTracker thisChangeTracker = changeTracker_.fork();
 
-      final String newContents = docDisplay_.getCode();
-      String oldContents = sourceDoc_.getContents();
+      /* Likewise, track the rows edited while the save is in progress
+         relative to the version we're sending, so that the next save can
+         build on it if this one succeeds. */
+      final RowChangeTracker thisRowChanges = new RowChangeTracker();
+
+      // rows can't be tracked across changes the editor didn't report, so
+      // the whole document needs comparing
+      int droppedChangeCount = docDisplay_.getDroppedChangeCount();
+      if (droppedChangeCount != droppedChangeCount_)
+      {
+         droppedChangeCount_ = droppedChangeCount;
+         rowChanges_.invalidate();
+         for (RowChangeTracker tracker : pendingRowChanges_)
+            tracker.invalidate();
+      }
+
+      final DocumentDiff documentDiff = computeDiffs();
+      final ArrayList<SubstringDiff> diffs = documentDiff.diffs;
       final String hash = sourceDoc_.getHash();
 
       final String foldSpec = Fold.encode(Fold.flatten(docDisplay_.getFolds()));
@@ -370,23 +414,24 @@ public class DocUpdateSentinel
       final JsArray<ChunkDefinition> newChunkDefs = docDisplay_.getChunkDefs();
       JsArray<ChunkDefinition> oldChunkDefs = sourceDoc_.getChunkDefs();
       
-      //String patch = DiffMatchPatch.diff(oldContents, newContents);
-      SubstringDiff diff = new SubstringDiff(oldContents, newContents);
-
       // Don't auto-save when there are no changes. In addition to being
       // wasteful, it causes the server to think the document is dirty.
-      if (path == null && fileType == null && diff.isEmpty()
+      if (path == null && fileType == null && diffs.isEmpty()
           && foldSpec.equals(oldFoldSpec) 
           && (newChunkDefs == null || 
               ChunkDefinition.equalTo(newChunkDefs, oldChunkDefs)))
       {
+         // the editor matches the saved contents, so there's nothing left
+         // to track
+         rowChanges_ = thisRowChanges;
          changesPending_ = false;
          return false;
       }
 
       if (path == null && fileType == null
-          && oldContents.length() == 0
-          && newContents.equals("\n"))
+          && getSavedLength() == 0
+          && docDisplay_.getRowCount() == 2
+          && docDisplay_.getCode().equals("\n"))
       {
          // This is necessary due to us adding an extra \n to empty
          // documents, which we have to do or else CodeMirror starts
@@ -410,6 +455,8 @@ public class DocUpdateSentinel
          Debug.logException(e);
       }
 
+      pendingRowChanges_.add(thisRowChanges);
+
       server_.saveDocumentDiff(
             sourceDoc_.getId(),
             path,
@@ -417,15 +464,14 @@ public class DocUpdateSentinel
             encoding,
             foldSpec,
             newChunkDefs,
-            diff.getReplacement(),
-            diff.getOffset(),
-            diff.getLength(),
+            diffs,
             hash,
             new ServerRequestCallback<String>()
             {
                @Override
                public void onError(ServerError error)
                {
+                  pendingRowChanges_.remove(thisRowChanges);
                   Debug.logError(error);
                   if (progress != null)
                      progress.onError(error.getUserMessage());
@@ -461,7 +507,11 @@ public class DocUpdateSentinel
                         sourceDoc_.setFoldSpec(foldSpec);
                         sourceDoc_.setChunkDefs(newChunkDefs);
                         
-                        onSuccessfulUpdate(newContents,
+                        // edits are now tracked relative to what we sent
+                        pendingRowChanges_.remove(thisRowChanges);
+                        rowChanges_ = thisRowChanges;
+
+                        onSuccessfulUpdate(documentDiff,
                                            newHash,
                                            path,
                                            fileType,
@@ -486,6 +536,7 @@ public class DocUpdateSentinel
                   {
                      // We just hit a race condition where two updates
                      // happened at once. Try again
+                     pendingRowChanges_.remove(thisRowChanges);
                      doSave(path, fileType, encoding, progress);
                   }
                   else
@@ -499,7 +550,7 @@ public class DocUpdateSentinel
                            encoding,
                            foldSpec,
                            newChunkDefs,
-                           newContents,
+                           documentDiff.getNewContents(getSavedContents()),
                            this);
                   }
                }
@@ -508,14 +559,185 @@ public class DocUpdateSentinel
       return true;
    }
 
-   private void onSuccessfulUpdate(String contents,
+   private void trackRowChanges(AceDocumentChangeEventNative event)
+   {
+      // unknown actions give -1 counts, which invalidate the trackers
+      int startRow = event.getRange().getStart().getRow();
+      int removed = event.getRemovedRowCount();
+      int inserted = event.getInsertedRowCount();
+
+      rowChanges_.onChange(startRow, removed, inserted);
+      for (RowChangeTracker tracker : pendingRowChanges_)
+         tracker.onChange(startRow, removed, inserted);
+   }
+
+   /**
+    * Computes the edits needed to turn the last saved contents into the
+    * current contents of the editor. Only the rows changed since the last
+    * save are read from the editor and compared; the whole document is
+    * compared only when those changes aren't known.
+    */
+   private DocumentDiff computeDiffs()
+   {
+      DocumentDiff documentDiff = new DocumentDiff();
+      ArrayList<RowChangeTracker.Region> regions = mergeRegions(
+            rowChanges_.getRegions());
+      RowIndexedText savedRows = rowChanges_.isValid() ? getSavedRows() : null;
+
+      if (savedRows == null ||
+          !regionsInRange(regions, savedRows.getRowCount()))
+      {
+         String code = docDisplay_.getCode();
+         SubstringDiff diff = new SubstringDiff(getSavedContents(), code);
+         if (!diff.isEmpty())
+            documentDiff.diffs.add(diff);
+         documentDiff.newContents = code;
+         return documentDiff;
+      }
+
+      // offsets of later diffs account for the ones applied before them
+      documentDiff.savedRows = savedRows;
+      int shift = 0;
+      for (RowChangeTracker.Region region : regions)
+      {
+         int start = savedRows.getOffset(region.getOldStart());
+         String oldText = savedRows.getRows(region.getOldStart(),
+                                            region.getOldCount());
+
+         String[] newRows = JsUtil.toStringArray(docDisplay_.getLines(
+               region.getNewStart(),
+               region.getNewStart() + region.getNewCount() - 1));
+         String newText = StringUtil.join(newRows, "\n");
+
+         SubstringDiff diff = new SubstringDiff(oldText, newText);
+         if (diff.isEmpty())
+            continue;
+
+         documentDiff.diffs.add(new SubstringDiff(
+               diff.getReplacement(),
+               start + shift + diff.getOffset(),
+               diff.getLength()));
+         shift += diff.getReplacement().length() - diff.getLength();
+
+         // regions are applied in order, so each one starts at its row in
+         // the new contents
+         documentDiff.rowEdits.add(new RowEdit(region.getNewStart(),
+                                               region.getOldCount(),
+                                               Arrays.asList(newRows)));
+      }
+      return documentDiff;
+   }
+
+   // merges regions that are close together, and everything if there are
+   // too many regions to be worth sending separately
+   private ArrayList<RowChangeTracker.Region> mergeRegions(
+         ArrayList<RowChangeTracker.Region> regions)
+   {
+      if (regions.size() > MAX_DIFF_REGIONS)
+      {
+         ArrayList<RowChangeTracker.Region> all =
+               new ArrayList<RowChangeTracker.Region>();
+         all.add(union(regions.get(0), regions.get(regions.size() - 1)));
+         return all;
+      }
+
+      ArrayList<RowChangeTracker.Region> merged =
+            new ArrayList<RowChangeTracker.Region>();
+      for (RowChangeTracker.Region region : regions)
+      {
+         if (!merged.isEmpty())
+         {
+            RowChangeTracker.Region last = merged.get(merged.size() - 1);
+            int gap = region.getOldStart() -
+                      (last.getOldStart() + last.getOldCount());
+            if (gap < MIN_DIFF_REGION_GAP)
+            {
+               merged.set(merged.size() - 1, union(last, region));
+               continue;
+            }
+         }
+         merged.add(region);
+      }
+      return merged;
+   }
+
+   private RowChangeTracker.Region union(RowChangeTracker.Region first,
+                                         RowChangeTracker.Region last)
+   {
+      return new RowChangeTracker.Region(
+            first.getNewStart(),
+            last.getNewStart() + last.getNewCount() - first.getNewStart(),
+            first.getOldStart(),
+            last.getOldStart() + last.getOldCount() - first.getOldStart());
+   }
+
+   private boolean regionsInRange(ArrayList<RowChangeTracker.Region> regions,
+                                  int oldRowCount)
+   {
+      int newRowCount = docDisplay_.getRowCount();
+      for (RowChangeTracker.Region region : regions)
+      {
+         if (region.getOldStart() + region.getOldCount() > oldRowCount ||
+             region.getNewStart() + region.getNewCount() > newRowCount)
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   // the last saved contents indexed by row (built when first needed), or
+   // null if they can't be compared row by row
+   private RowIndexedText getSavedRows()
+   {
+      if (savedRows_ == null)
+      {
+         // the editor joins rows with \n, so contents with other line
+         // endings would be compared against different text
+         String contents = sourceDoc_.getContents();
+         if (contents.indexOf('\r') == -1)
+            savedRows_ = new RowIndexedText(contents);
+      }
+      return savedRows_;
+   }
+
+   // the last saved contents; after an incremental save they are only
+   // joined back into a string when someone asks for them
+   private String getSavedContents()
+   {
+      if (savedContentsStale_)
+      {
+         sourceDoc_.setContents(savedRows_.getText());
+         savedContentsStale_ = false;
+      }
+      return sourceDoc_.getContents();
+   }
+
+   private int getSavedLength()
+   {
+      return savedContentsStale_ ? savedRows_.getLength()
+                                 : sourceDoc_.getContents().length();
+   }
+
+   private void onSuccessfulUpdate(DocumentDiff documentDiff,
                                    String hash,
                                    String path,
                                    String fileType,
                                    String encoding)
    {
       changesPending_ = false;
-      sourceDoc_.setContents(contents);
+      if (documentDiff.newContents != null)
+      {
+         sourceDoc_.setContents(documentDiff.newContents);
+         savedRows_ = null;
+         savedContentsStale_ = false;
+      }
+      else if (documentDiff.savedRows == savedRows_)
+      {
+         for (RowEdit edit : documentDiff.rowEdits)
+            savedRows_.replaceRows(edit.start, edit.count, edit.rows);
+         savedContentsStale_ |= !documentDiff.rowEdits.isEmpty();
+      }
       sourceDoc_.setHash(hash);
       if (path != null)
       {
@@ -679,11 +901,12 @@ public class DocUpdateSentinel
    
    public String getContents()
    {
-      return sourceDoc_.getContents();
+      return getSavedContents();
    }
    
    public SourceDocument getDoc()
    {
+      getSavedContents();
       return sourceDoc_;
    }
 
@@ -742,8 +965,53 @@ public class DocUpdateSentinel
       return sourceDoc_.getId();
    }
 
+   // the diffs sent by a save, along with what to update the saved
+   // contents with if it succeeds: either the new contents (when the whole
+   // document was compared) or rows to replace in the saved rows
+   private static class DocumentDiff
+   {
+      public String getNewContents(String savedContents)
+      {
+         if (newContents != null)
+            return newContents;
+         for (SubstringDiff diff : diffs)
+            savedContents = diff.patch(savedContents);
+         return savedContents;
+      }
+
+      public final ArrayList<SubstringDiff> diffs =
+            new ArrayList<SubstringDiff>();
+      public final ArrayList<RowEdit> rowEdits = new ArrayList<RowEdit>();
+      public RowIndexedText savedRows;
+      public String newContents;
+   }
+
+   private static class RowEdit
+   {
+      public RowEdit(int start, int count, List<String> rows)
+      {
+         this.start = start;
+         this.count = count;
+         this.rows = rows;
+      }
+
+      public final int start;
+      public final int count;
+      public final List<String> rows;
+   }
+
    private boolean changesPending_ = false;
    private final ChangeTracker changeTracker_;
+   // rows changed relative to the last saved contents, and relative to the
+   // contents of each save still in progress
+   private RowChangeTracker rowChanges_ = new RowChangeTracker();
+   private final ArrayList<RowChangeTracker> pendingRowChanges_ =
+         new ArrayList<RowChangeTracker>();
+   private int droppedChangeCount_ = 0;
+   // the last saved contents by row; when stale the contents held by
+   // sourceDoc_ haven't caught up with them yet
+   private RowIndexedText savedRows_;
+   private boolean savedContentsStale_ = false;
    private final SourceServerOperations server_;
    private final DocDisplay docDisplay_;
    private SourceDocument sourceDoc_;
@@ -755,4 +1023,8 @@ public class DocUpdateSentinel
    private HandlerRegistration lastChanceSaveHandlerReg_;
    private final HashMap<String, ValueChangeHandlerManager<String>> 
                  propertyChangeHandlers_;
+
+   // diff regions closer together than this many rows are sent as one
+   private static final int MIN_DIFF_REGION_GAP = 50;
+   private static final int MAX_DIFF_REGIONS = 8;
 }
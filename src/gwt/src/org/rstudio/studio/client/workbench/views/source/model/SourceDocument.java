@@ -78,6 +78,14 @@ public class SourceDocument extends JavaScriptObject
       this.contents = contents;
    }-*/;
 
+   /**
+    * True if the contents (and folds) were left out when the document was
+    * sent to the client; they can be fetched with getSourceDocument.
+    */
+   public native final boolean isContentsDeferred() /*-{
+      return !!this.contents_deferred;
+   }-*/;
+
    /**
     * True if changes have been saved to the ID that have not been persisted
     * to the file.
@@ -18,6 +18,7 @@ import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayString;
 
 import org.rstudio.core.client.js.JsObject;
+import org.rstudio.core.client.patch.SubstringDiff;
 import org.rstudio.studio.client.common.codetools.CodeToolsServerOperations;
 import org.rstudio.studio.client.events.GetEditorContextEvent;
 import org.rstudio.studio.client.htmlpreview.model.HTMLPreviewServerOperations;
@@ -99,7 +100,8 @@ public interface SourceServerOperations extends FilesServerOperations,
    /**
     * Same as saveDocument, but instead of sending the full contents, just
     * a diff is sent, along with a hash of the contents it expects the server
-    * to currently have (before the diff is applied). 
+    * to currently have (before the diff is applied). The diff may consist
+    * of several edits, which are applied in order.
     *
     * Note in particular that the semantics for the path parameter is the
     * same as saveDocument.
@@ -114,9 +116,7 @@ public interface SourceServerOperations extends FilesServerOperations,
                          String encoding,
                          String foldSpec,
                          JsArray<ChunkDefinition> chunkOutput,
-                         String replacement,
-                         int offset,
-                         int length,
+                         List<SubstringDiff> diffs,
                          String hash,
                          ServerRequestCallback<String> requestCallback);
 
@@ -0,0 +1,81 @@
+/*
+ * ListReconcilerTests.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ListReconcilerTests extends TestCase
+{
+   public void testUnchanged()
+   {
+      List<String> target = list("a=1", "b=1", "c=1");
+      assertEquals(0, reconcile(target, list("a=1", "b=1", "c=1")));
+      assertEquals(list("a=1", "b=1", "c=1"), target);
+   }
+
+   public void testInsertRemoveAndReplace()
+   {
+      List<String> target = list("a=1", "b=1", "c=1", "e=1");
+      List<String> source = list("a=1", "c=2", "d=1", "e=1", "f=1");
+      assertEquals(4, reconcile(target, source));
+      assertEquals(source, target);
+   }
+
+   public void testReorderReplacesAll()
+   {
+      List<String> target = list("a=1", "b=1", "c=1");
+      List<String> source = list("c=1", "a=1", "b=1");
+      assertEquals(3, reconcile(target, source));
+      assertEquals(source, target);
+   }
+
+   public void testEmptyLists()
+   {
+      List<String> target = list();
+      assertEquals(2, reconcile(target, list("a=1", "b=1")));
+      assertEquals(list("a=1", "b=1"), target);
+      assertEquals(2, reconcile(target, list()));
+      assertTrue(target.isEmpty());
+   }
+
+   // items are "key=value"
+   private static int reconcile(List<String> target, List<String> source)
+   {
+      return ListReconciler.reconcile(target, source,
+            new ListReconciler.Adapter<String>()
+      {
+         @Override
+         public String getKey(String item)
+         {
+            return item.substring(0, item.indexOf('='));
+         }
+
+         @Override
+         public boolean isSame(String item1, String item2)
+         {
+            return item1.equals(item2);
+         }
+      });
+   }
+
+   private static List<String> list(String... items)
+   {
+      return new ArrayList<String>(Arrays.asList(items));
+   }
+}
@@ -0,0 +1,122 @@
+/*
+ * RowRangeSetTests.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.container;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class RowRangeSetTests extends TestCase
+{
+   public void testAddAndRemove()
+   {
+      RowRangeSet rows = new RowRangeSet();
+      assertTrue(rows.isEmpty());
+
+      rows.add(0, 10);
+      rows.add(10, 5);   // adjacent; merges
+      rows.add(20, 5);
+      assertEquals(20, rows.getRowCount());
+      assertEquals(15, rows.runLength(0));
+
+      rows.remove(5, 17);
+      assertEquals(8, rows.getRowCount());
+      assertTrue(rows.contains(4));
+      assertFalse(rows.contains(5));
+      assertFalse(rows.contains(21));
+      assertTrue(rows.contains(22));
+   }
+
+   public void testNextRowWraps()
+   {
+      RowRangeSet rows = new RowRangeSet();
+      assertEquals(-1, rows.nextRow(0));
+
+      rows.add(5, 2);
+      rows.add(50, 1);
+      assertEquals(5, rows.nextRow(0));
+      assertEquals(6, rows.nextRow(6));
+      assertEquals(50, rows.nextRow(7));
+      assertEquals(5, rows.nextRow(51));
+   }
+
+   public void testAddAll()
+   {
+      RowRangeSet rows = new RowRangeSet();
+      rows.add(0, 2);
+      rows.add(10, 2);
+
+      RowRangeSet other = new RowRangeSet();
+      other.add(2, 3);
+      other.add(20, 1);
+
+      rows.addAll(other);
+      assertEquals(8, rows.getRowCount());
+      assertEquals(5, rows.runLength(0));
+      assertTrue(rows.contains(20));
+      assertEquals(4, other.getRowCount());
+   }
+
+   public void testRandomEdits()
+   {
+      Random random = new Random(7);
+      for (int trial = 0; trial < 200; trial++)
+      {
+         // the expected state: one flag per document row
+         List<Boolean> expected = new ArrayList<Boolean>();
+         RowRangeSet rows = new RowRangeSet();
+         int count = 1 + random.nextInt(40);
+         for (int i = 0; i < count; i++)
+         {
+            boolean marked = random.nextInt(3) == 0;
+            expected.add(marked);
+            if (marked)
+               rows.add(i, 1);
+         }
+
+         for (int edit = 0; edit < 10; edit++)
+         {
+            int start = random.nextInt(expected.size());
+            int removed = 1 + random.nextInt(
+                  Math.min(4, expected.size() - start));
+            int inserted = 1 + random.nextInt(4);
+
+            for (int i = 0; i < removed; i++)
+               expected.remove(start);
+            for (int i = 0; i < inserted; i++)
+               expected.add(start, true);
+            rows.onChange(start, removed, inserted);
+
+            if (random.nextBoolean())
+            {
+               int row = random.nextInt(expected.size());
+               expected.set(row, false);
+               rows.remove(row, 1);
+            }
+         }
+
+         int marked = 0;
+         for (int i = 0; i < expected.size(); i++)
+         {
+            assertEquals(expected.get(i).booleanValue(), rows.contains(i));
+            if (expected.get(i))
+               marked++;
+         }
+         assertEquals(marked, rows.getRowCount());
+      }
+   }
+}
@@ -0,0 +1,140 @@
+/*
+ * RowChangeTrackerTests.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.patch;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class RowChangeTrackerTests extends TestCase
+{
+   public void testSingleRowEdit()
+   {
+      RowChangeTracker tracker = new RowChangeTracker();
+      assertFalse(tracker.hasChanges());
+
+      tracker.onChange(5, 1, 1);
+      List<RowChangeTracker.Region> regions = tracker.getRegions();
+      assertEquals(1, regions.size());
+      assertRegion(regions.get(0), 5, 1, 5, 1);
+   }
+
+   public void testEditsAtBothEnds()
+   {
+      RowChangeTracker tracker = new RowChangeTracker();
+      tracker.onChange(2, 1, 3);     // insert two lines after row 2
+      tracker.onChange(1000, 3, 1);  // remove two lines at row 1000
+
+      List<RowChangeTracker.Region> regions = tracker.getRegions();
+      assertEquals(2, regions.size());
+      assertRegion(regions.get(0), 2, 3, 2, 1);
+      assertRegion(regions.get(1), 1000, 1, 998, 3);
+   }
+
+   public void testAdjacentEditsMerge()
+   {
+      RowChangeTracker tracker = new RowChangeTracker();
+      tracker.onChange(10, 1, 1);
+      tracker.onChange(11, 1, 1);
+      tracker.onChange(9, 2, 1);     // join rows 9 and 10
+
+      List<RowChangeTracker.Region> regions = tracker.getRegions();
+      assertEquals(1, regions.size());
+      assertRegion(regions.get(0), 9, 2, 9, 3);
+   }
+
+   public void testInvalidate()
+   {
+      RowChangeTracker tracker = new RowChangeTracker();
+      tracker.onChange(3, 1, 1);
+      tracker.invalidate();
+      assertFalse(tracker.isValid());
+      assertTrue(tracker.hasChanges());
+      assertEquals(0, tracker.getRegions().size());
+
+      // further edits can't make the tracker valid again
+      tracker.onChange(3, 1, 1);
+      assertFalse(tracker.isValid());
+   }
+
+   public void testRandomEdits()
+   {
+      Random random = new Random(42);
+      for (int trial = 0; trial < 200; trial++)
+      {
+         List<String> original = new ArrayList<String>();
+         int rows = 1 + random.nextInt(50);
+         for (int i = 0; i < rows; i++)
+            original.add("line " + i);
+
+         List<String> current = new ArrayList<String>(original);
+         RowChangeTracker tracker = new RowChangeTracker();
+
+         int edits = 1 + random.nextInt(10);
+         for (int edit = 0; edit < edits; edit++)
+         {
+            int start = random.nextInt(current.size());
+            int removed = 1 + random.nextInt(
+                  Math.min(4, current.size() - start));
+            int inserted = 1 + random.nextInt(4);
+
+            for (int i = 0; i < removed; i++)
+               current.remove(start);
+            for (int i = 0; i < inserted; i++)
+               current.add(start + i, "edit " + trial + "." + edit + "." + i);
+
+            tracker.onChange(start, removed, inserted);
+         }
+
+         assertEquals(current, rebuild(original, current, tracker));
+      }
+   }
+
+   // rebuilds the current document from the original, taking only the
+   // changed regions from the current document
+   private List<String> rebuild(List<String> original,
+                                List<String> current,
+                                RowChangeTracker tracker)
+   {
+      List<String> result = new ArrayList<String>();
+      int oldRow = 0;
+      for (RowChangeTracker.Region region : tracker.getRegions())
+      {
+         assertTrue(region.getOldStart() >= oldRow);
+         while (oldRow < region.getOldStart())
+            result.add(original.get(oldRow++));
+         for (int i = 0; i < region.getNewCount(); i++)
+            result.add(current.get(region.getNewStart() + i));
+         oldRow += region.getOldCount();
+      }
+      while (oldRow < original.size())
+         result.add(original.get(oldRow++));
+      return result;
+   }
+
+   private void assertRegion(RowChangeTracker.Region region,
+                             int newStart,
+                             int newCount,
+                             int oldStart,
+                             int oldCount)
+   {
+      assertEquals(newStart, region.getNewStart());
+      assertEquals(newCount, region.getNewCount());
+      assertEquals(oldStart, region.getOldStart());
+      assertEquals(oldCount, region.getOldCount());
+   }
+}
@@ -0,0 +1,135 @@
+/*
+ * RowIndexedTextTests.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.core.client.patch;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class RowIndexedTextTests extends TestCase
+{
+   public void testRows()
+   {
+      RowIndexedText text = new RowIndexedText("a\nbc\n\ndef");
+      assertEquals(4, text.getRowCount());
+      assertEquals(9, text.getLength());
+      assertEquals(0, text.getOffset(0));
+      assertEquals(2, text.getOffset(1));
+      assertEquals(5, text.getOffset(2));
+      assertEquals(6, text.getOffset(3));
+      assertEquals("bc\n", text.getRows(1, 2));
+      assertEquals("a\nbc\n\ndef", text.getText());
+   }
+
+   public void testEmpty()
+   {
+      RowIndexedText text = new RowIndexedText("");
+      assertEquals(1, text.getRowCount());
+      assertEquals(0, text.getLength());
+      assertEquals("", text.getText());
+
+      text.replaceRows(0, 1, Arrays.asList("x", "y"));
+      assertEquals("x\ny", text.getText());
+   }
+
+   public void testReplaceAcrossBlocks()
+   {
+      ArrayList<String> expected = new ArrayList<String>();
+      for (int i = 0; i < 2000; i++)
+         expected.add("row " + i);
+      RowIndexedText text = new RowIndexedText(join(expected));
+
+      // replace rows spanning several blocks with a single row
+      text.replaceRows(100, 1000, Arrays.asList("joined"));
+      expected.subList(100, 1100).clear();
+      expected.add(100, "joined");
+      assertText(expected, text);
+
+      // insert a large number of rows into one block
+      ArrayList<String> inserted = new ArrayList<String>();
+      for (int i = 0; i < 1500; i++)
+         inserted.add("new " + i);
+      text.replaceRows(5, 1, inserted);
+      expected.remove(5);
+      expected.addAll(5, inserted);
+      assertText(expected, text);
+   }
+
+   public void testRandomEdits()
+   {
+      Random random = new Random(11);
+      for (int trial = 0; trial < 50; trial++)
+      {
+         ArrayList<String> expected = new ArrayList<String>();
+         int rows = 1 + random.nextInt(2000);
+         for (int i = 0; i < rows; i++)
+            expected.add(randomRow(random));
+         RowIndexedText text = new RowIndexedText(join(expected));
+
+         for (int edit = 0; edit < 100; edit++)
+         {
+            int start = random.nextInt(expected.size());
+            int count = 1 + random.nextInt(
+                  Math.min(expected.size() - start, 600));
+            ArrayList<String> replacement = new ArrayList<String>();
+            int replacementCount = 1 + random.nextInt(600);
+            for (int i = 0; i < replacementCount; i++)
+               replacement.add(randomRow(random));
+
+            text.replaceRows(start, count, replacement);
+            expected.subList(start, start + count).clear();
+            expected.addAll(start, replacement);
+
+            int row = random.nextInt(expected.size());
+            assertEquals(join(expected.subList(0, row)).length() +
+                         (row > 0 ? 1 : 0),
+                         text.getOffset(row));
+         }
+         assertText(expected, text);
+      }
+   }
+
+   private static void assertText(List<String> expected, RowIndexedText text)
+   {
+      String joined = join(expected);
+      assertEquals(expected.size(), text.getRowCount());
+      assertEquals(joined.length(), text.getLength());
+      assertEquals(joined, text.getText());
+   }
+
+   private static String randomRow(Random random)
+   {
+      StringBuilder row = new StringBuilder();
+      int length = random.nextInt(20);
+      for (int i = 0; i < length; i++)
+         row.append((char) ('a' + random.nextInt(26)));
+      return row.toString();
+   }
+
+   private static String join(List<String> rows)
+   {
+      StringBuilder text = new StringBuilder();
+      for (int i = 0; i < rows.size(); i++)
+      {
+         if (i > 0)
+            text.append('\n');
+         text.append(rows.get(i));
+      }
+      return text.toString();
+   }
+}
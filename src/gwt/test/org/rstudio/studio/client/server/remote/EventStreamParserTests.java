@@ -0,0 +1,135 @@
+/*
+ * EventStreamParserTests.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import junit.framework.TestCase;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventStreamParserTests extends TestCase
+{
+   public void setUp() throws Exception
+   {
+      InputStream input = getClass().getResourceAsStream("events1.txt");
+      try
+      {
+         frames_ = EventStreamReplayServer.readFrames(input);
+      }
+      finally
+      {
+         input.close();
+      }
+   }
+
+   public void testPartialFrames() throws Exception
+   {
+      EventStreamParser parser = new EventStreamParser();
+      
+      String text = "[{\"id\":0}]\n[{\"id\"";
+      List<String> frames = parser.parse(text);
+      assertEquals(1, frames.size());
+      assertEquals("[{\"id\":0}]", frames.get(0));
+      assertTrue(parser.hasPartialFrame());
+      
+      text += ":1}]\n\n";
+      frames = parser.parse(text);
+      assertEquals(1, frames.size());
+      assertEquals("[{\"id\":1}]", frames.get(0));
+      assertFalse(parser.hasPartialFrame());
+      assertEquals(2, parser.getFrameCount());
+      
+      assertEquals(0, parser.parse(text).size());
+   }
+
+   public void testKeepAlives() throws Exception
+   {
+      EventStreamParser parser = new EventStreamParser();
+      
+      // the session opens the stream with a keep-alive and sends more 
+      // while it waits for events
+      String text = "\n\n";
+      assertEquals(0, parser.parse(text).size());
+      assertFalse(parser.hasPartialFrame());
+      
+      text += "[{\"id\":0}]\n\n";
+      assertEquals(1, parser.parse(text).size());
+      assertEquals(1, parser.getFrameCount());
+   }
+
+   public void testReplayFullStream() throws Exception
+   {
+      List<String> received = replay(-1);
+      assertEquals(frames_, received);
+   }
+
+   public void testReplayFromLastEventId() throws Exception
+   {
+      // the client has already seen events up to and including id 2
+      List<String> received = replay(2);
+      assertEquals(frames_.subList(2, frames_.size()), received);
+      assertEquals(5, EventStreamReplayServer.lastEventIdOf(
+            received.get(received.size() - 1)));
+   }
+   
+   private List<String> replay(int lastEventId) throws Exception
+   {
+      EventStreamReplayServer server = new EventStreamReplayServer(frames_, 
+                                                                   10);
+      server.start();
+      try
+      {
+         HttpURLConnection conn = (HttpURLConnection) 
+               new URL(server.getUrl()).openConnection();
+         conn.setRequestMethod("POST");
+         conn.setDoOutput(true);
+         conn.setRequestProperty("Content-Type", "application/json");
+         Writer writer = new OutputStreamWriter(conn.getOutputStream(), 
+                                                "UTF-8");
+         writer.write("{\"method\":\"stream_events\",\"params\":[" + 
+                      lastEventId + "]}");
+         writer.close();
+         assertEquals(200, conn.getResponseCode());
+         
+         // feed the parser the accumulated response text as it arrives,
+         // the same way the client sees XMLHttpRequest.responseText grow
+         EventStreamParser parser = new EventStreamParser();
+         ArrayList<String> received = new ArrayList<String>();
+         StringBuilder responseText = new StringBuilder();
+         Reader reader = new InputStreamReader(conn.getInputStream(), 
+                                               "UTF-8");
+         char[] buffer = new char[16];
+         for (int n; -1 != (n = reader.read(buffer)); )
+         {
+            responseText.append(buffer, 0, n);
+            received.addAll(parser.parse(responseText.toString()));
+         }
+         reader.close();
+         
+         assertFalse(parser.hasPartialFrame());
+         assertEquals(1, server.getRequestCount());
+         return received;
+      }
+      finally
+      {
+         server.stop();
+      }
+   }
+   
+   private List<String> frames_;
+}
@@ -0,0 +1,199 @@
+/*
+ * EventStreamReplayServer.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.server.remote;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Local stand-in for the session's events/stream_events endpoint. Replays
+// a recorded event stream (one frame per line) the same way the session
+// writes it: the headers and a keep-alive go out immediately, frames the
+// client has already seen (per the lastEventId it posts) are skipped, and
+// the remaining frames are flushed one at a time with the body ending when
+// the connection is closed.
+public class EventStreamReplayServer
+{
+   public EventStreamReplayServer(List<String> frames, int frameDelayMs)
+         throws IOException
+   {
+      frames_ = frames;
+      frameDelayMs_ = frameDelayMs;
+      socket_ = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+   }
+   
+   public static List<String> readFrames(InputStream input) throws IOException
+   {
+      ArrayList<String> frames = new ArrayList<String>();
+      BufferedReader reader = new BufferedReader(
+            new InputStreamReader(input, "UTF-8"));
+      for (String line; null != (line = reader.readLine()); )
+      {
+         if (line.trim().length() > 0)
+            frames.add(line);
+      }
+      return frames;
+   }
+   
+   public void start()
+   {
+      thread_ = new Thread(new Runnable()
+      {
+         public void run()
+         {
+            while (!socket_.isClosed())
+            {
+               try
+               {
+                  Socket connection = socket_.accept();
+                  try
+                  {
+                     replay(connection);
+                  }
+                  finally
+                  {
+                     connection.close();
+                  }
+               }
+               catch(IOException e)
+               {
+                  // socket closed by stop()
+               }
+            }
+         }
+      });
+      thread_.setDaemon(true);
+      thread_.start();
+   }
+   
+   public void stop() throws Exception
+   {
+      socket_.close();
+      thread_.join();
+   }
+   
+   public String getUrl()
+   {
+      return "http://127.0.0.1:" + socket_.getLocalPort() +
+             "/events/stream_events";
+   }
+   
+   public int getRequestCount()
+   {
+      return requestCount_;
+   }
+   
+   private void replay(Socket connection) throws IOException
+   {
+      requestCount_++;
+      int lastEventId = readLastEventId(connection.getInputStream());
+      
+      OutputStream output = connection.getOutputStream();
+      write(output, "HTTP/1.1 200 OK\r\n" +
+                    "Content-Type: application/x-ndjson\r\n" +
+                    "Cache-Control: no-cache\r\n" +
+                    "Connection: close\r\n" +
+                    "\r\n" +
+                    "\n");
+      try
+      {
+         for (String frame : frames_)
+         {
+            // skip frames the client has already seen (ids are ascending)
+            if (lastEventIdOf(frame) <= lastEventId)
+               continue;
+            
+            if (frameDelayMs_ > 0)
+               Thread.sleep(frameDelayMs_);
+            
+            write(output, frame + "\n");
+         }
+      }
+      catch(InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+   }
+   
+   private static void write(OutputStream output, String text) 
+         throws IOException
+   {
+      output.write(text.getBytes("UTF-8"));
+      output.flush();
+   }
+   
+   private static int readLastEventId(InputStream input) throws IOException
+   {
+      // read the headers (up to the blank line) to find the content length
+      int contentLength = 0;
+      for (String line; (line = readLine(input)).length() > 0; )
+      {
+         Matcher matcher = CONTENT_LENGTH_PATTERN.matcher(line);
+         if (matcher.matches())
+            contentLength = Integer.parseInt(matcher.group(1));
+      }
+      
+      byte[] body = new byte[contentLength];
+      for (int read = 0, n; read < contentLength; read += n)
+      {
+         n = input.read(body, read, contentLength - read);
+         if (n == -1)
+            throw new EOFException();
+      }
+      
+      Matcher matcher = PARAMS_PATTERN.matcher(new String(body, "UTF-8"));
+      return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+   }
+   
+   private static String readLine(InputStream input) throws IOException
+   {
+      StringBuilder line = new StringBuilder();
+      for (int c; (c = input.read()) != '\n'; )
+      {
+         if (c == -1)
+            throw new EOFException();
+         if (c != '\r')
+            line.append((char) c);
+      }
+      return line.toString();
+   }
+   
+   static int lastEventIdOf(String frame)
+   {
+      int lastId = -1;
+      Matcher matcher = ID_PATTERN.matcher(frame);
+      while (matcher.find())
+         lastId = Math.max(lastId, Integer.parseInt(matcher.group(1)));
+      return lastId;
+   }
+   
+   private final List<String> frames_;
+   private final int frameDelayMs_;
+   private final ServerSocket socket_;
+   private Thread thread_;
+   private volatile int requestCount_ = 0;
+   
+   private static final Pattern CONTENT_LENGTH_PATTERN =
+         Pattern.compile("(?i)content-length\\s*:\\s*(\\d+)");
+   private static final Pattern PARAMS_PATTERN =
+         Pattern.compile("\"params\"\\s*:\\s*\\[\\s*(-?\\d+)");
+   private static final Pattern ID_PATTERN =
+         Pattern.compile("\\{\"id\"\\s*:\\s*(\\d+)");
+}
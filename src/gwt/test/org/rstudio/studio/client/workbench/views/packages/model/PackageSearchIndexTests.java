@@ -0,0 +1,66 @@
+/*
+ * PackageSearchIndexTests.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.packages.model;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+public class PackageSearchIndexTests extends TestCase
+{
+   public void testRanking()
+   {
+      PackageSearchIndex index = new PackageSearchIndex();
+      index.add("xtable", "Export Tables to LaTeX or HTML", 0);  // 0
+      index.add("knitr", "A General-Purpose Package", 0);        // 1
+      index.add("tab", "Tables", 0);                             // 2
+      index.add("tables", "Formula-Driven Table Generation", 0); // 3
+
+      assertEquals("[2, 3, 0]", Arrays.toString(index.search("tab")));
+      assertEquals("[1]", Arrays.toString(index.search("Purpose")));
+      assertEquals("[]", Arrays.toString(index.search("zzz")));
+   }
+
+   public void testGroupsKeptTogether()
+   {
+      PackageSearchIndex index = new PackageSearchIndex();
+      index.add("plyr", "Tools for Splitting Data", 1);   // 0
+      index.add("dplyr", "Data Manipulation", 0);         // 1
+      index.add("plotly", "Interactive Plots", 2);        // 2
+      index.add("plyr", "Project Library Copy", 0);       // 3
+
+      // project library (group 0) first, even for weaker matches
+      assertEquals("[3, 1, 0]", Arrays.toString(index.search("plyr")));
+   }
+
+   public void testNarrowingMatchesFullSearch()
+   {
+      PackageSearchIndex narrowed = new PackageSearchIndex();
+      String[] names = { "stats", "stringr", "stringi", "testthat", "st" };
+      for (int i = 0; i < names.length; i++)
+         narrowed.add(names[i], "package " + i, i % 2);
+
+      String[] queries = { "s", "st", "str", "stri", "st", "t", "te", "" };
+      for (String query : queries)
+      {
+         PackageSearchIndex fresh = new PackageSearchIndex();
+         for (int i = 0; i < names.length; i++)
+            fresh.add(names[i], "package " + i, i % 2);
+
+         assertEquals(Arrays.toString(fresh.search(query)),
+                      Arrays.toString(narrowed.search(query)));
+      }
+   }
+}
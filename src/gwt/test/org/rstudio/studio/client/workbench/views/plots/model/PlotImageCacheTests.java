@@ -0,0 +1,60 @@
+/*
+ * PlotImageCacheTests.java
+ *
+ * Copyright (C) 2009-16 by RStudio, Inc.
+ *
+ * Unless you have received this program directly from RStudio pursuant
+ * to the terms of a commercial license agreement with RStudio, then
+ * this program is licensed to you under the terms of version 3 of the
+ * GNU Affero General Public License. This program is distributed WITHOUT
+ * ANY EXPRESS OR IMPLIED WARRANTY, INCLUDING THOSE OF NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FITNESS FOR A PARTICULAR PURPOSE. Please refer to the
+ * AGPL (http://www.gnu.org/licenses/agpl-3.0.txt) for more details.
+ *
+ */
+package org.rstudio.studio.client.workbench.views.plots.model;
+
+import junit.framework.TestCase;
+
+public class PlotImageCacheTests extends TestCase
+{
+   public void testKeyedByIndexAndSize()
+   {
+      PlotImageCache cache = new PlotImageCache(1000000);
+      assertTrue(cache.put(0, 100, 100, "a.png"));
+      assertFalse(cache.put(0, 100, 100, "a.png"));
+      assertEquals("a.png", cache.get(0, 100, 100));
+      assertNull(cache.get(0, 200, 100));
+      assertNull(cache.get(1, 100, 100));
+
+      // a new rendering of the same plot replaces the old one
+      assertTrue(cache.put(0, 200, 100, "b.png"));
+      assertNull(cache.get(0, 100, 100));
+      assertEquals("b.png", cache.get(0, 200, 100));
+      assertEquals(1, cache.size());
+   }
+
+   public void testEvictsLeastRecentlyUsed()
+   {
+      // room for two 100x100 images
+      PlotImageCache cache = new PlotImageCache(80000);
+      cache.put(0, 100, 100, "0.png");
+      cache.put(1, 100, 100, "1.png");
+      cache.get(0, 100, 100);
+      cache.put(2, 100, 100, "2.png");
+
+      assertEquals("0.png", cache.get(0, 100, 100));
+      assertNull(cache.get(1, 100, 100));
+      assertEquals("2.png", cache.get(2, 100, 100));
+      assertEquals(80000L, cache.getTotalBytes());
+   }
+
+   public void testKeepsNewestImageOverBudget()
+   {
+      PlotImageCache cache = new PlotImageCache(100);
+      cache.put(0, 100, 100, "0.png");
+      cache.put(1, 100, 100, "1.png");
+      assertEquals(1, cache.size());
+      assertEquals("1.png", cache.get(1, 100, 100));
+   }
+}